@@ -125,6 +125,10 @@ public class WikiDatabaseServiceVertxProxyHandler extends ProxyHandler {
           service.fetchAllPagesData(HelperUtils.createListHandler(msg));
           break;
         }
+        case "fetchAllPagesJson": {
+          service.fetchAllPagesJson(HelperUtils.createHandler(msg));
+          break;
+        }
         case "fetchPage": {
           service.fetchPage((java.lang.String)json.getValue("name"),
                         HelperUtils.createHandler(msg));
@@ -135,6 +139,11 @@ public class WikiDatabaseServiceVertxProxyHandler extends ProxyHandler {
                         HelperUtils.createHandler(msg));
           break;
         }
+        case "fetchPagesByIds": {
+          service.fetchPagesByIds((io.vertx.core.json.JsonArray)json.getValue("ids"),
+                        HelperUtils.createHandler(msg));
+          break;
+        }
         case "createPage": {
           service.createPage((java.lang.String)json.getValue("title"),
                         (java.lang.String)json.getValue("markdown"),
@@ -147,11 +156,62 @@ public class WikiDatabaseServiceVertxProxyHandler extends ProxyHandler {
                         HelperUtils.createHandler(msg));
           break;
         }
+        case "patchPage": {
+          service.patchPage(json.getValue("id") == null ? null : (json.getLong("id").intValue()),
+                        (java.lang.String)json.getValue("baseVersion"),
+                        (io.vertx.core.json.JsonArray)json.getValue("edits"),
+                        HelperUtils.createHandler(msg));
+          break;
+        }
         case "deletePage": {
           service.deletePage(json.getValue("id") == null ? null : (json.getLong("id").intValue()),
                         HelperUtils.createHandler(msg));
           break;
         }
+        case "fetchBacklinks": {
+          service.fetchBacklinks((java.lang.String)json.getValue("name"),
+                        HelperUtils.createHandler(msg));
+          break;
+        }
+        case "exportPages": {
+          service.exportPages((java.lang.String)json.getValue("address"),
+                        json.getValue("credits") == null ? null : (json.getLong("credits").intValue()),
+                        HelperUtils.createHandler(msg));
+          break;
+        }
+        case "importPages": {
+          service.importPages((io.vertx.core.json.JsonArray)json.getValue("pages"),
+                        HelperUtils.createHandler(msg));
+          break;
+        }
+        case "saveAttachment": {
+          service.saveAttachment(json.getValue("pageId") == null ? null : (json.getLong("pageId").intValue()),
+                        (java.lang.String)json.getValue("name"),
+                        (java.lang.String)json.getValue("hash"),
+                        (java.lang.String)json.getValue("mediaType"),
+                        json.getValue("size") == null ? null : (json.getLong("size").longValue()),
+                        HelperUtils.createHandler(msg));
+          break;
+        }
+        case "fetchAttachments": {
+          service.fetchAttachments(json.getValue("pageId") == null ? null : (json.getLong("pageId").intValue()),
+                        HelperUtils.createHandler(msg));
+          break;
+        }
+        case "fetchAttachment": {
+          service.fetchAttachment((java.lang.String)json.getValue("hash"),
+                        HelperUtils.createHandler(msg));
+          break;
+        }
+        case "deleteAttachment": {
+          service.deleteAttachment(json.getValue("id") == null ? null : (json.getLong("id").intValue()),
+                        HelperUtils.createHandler(msg));
+          break;
+        }
+        case "fetchMetrics": {
+          service.fetchMetrics(HelperUtils.createHandler(msg));
+          break;
+        }
         default: throw new IllegalStateException("Invalid action: " + action);
       }
     } catch (Throwable t) {
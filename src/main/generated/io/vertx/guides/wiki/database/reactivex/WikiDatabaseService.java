@@ -90,6 +90,26 @@ public class WikiDatabaseService {
     });
   }
 
+  /**
+   * Returns the id and name of every page as an encoded JSON array, serialized straight from the rows.
+   * @param resultHandler 
+   * @return 
+   */
+  public io.vertx.guides.wiki.database.reactivex.WikiDatabaseService fetchAllPagesJson(Handler<AsyncResult<String>> resultHandler) { 
+    delegate.fetchAllPagesJson(resultHandler);
+    return this;
+  }
+
+  /**
+   * Returns the id and name of every page as an encoded JSON array, serialized straight from the rows.
+   * @return 
+   */
+  public Single<String> rxFetchAllPagesJson() { 
+    return io.vertx.reactivex.impl.AsyncResultSingle.toSingle(handler -> {
+      fetchAllPagesJson(handler);
+    });
+  }
+
   public io.vertx.guides.wiki.database.reactivex.WikiDatabaseService fetchPage(String name, Handler<AsyncResult<JsonObject>> resultHandler) { 
     delegate.fetchPage(name, resultHandler);
     return this;
@@ -112,6 +132,30 @@ public class WikiDatabaseService {
     });
   }
 
+  /**
+   * Looks up several pages at once, returning for each of the <code>ids</code>, in the same order, what
+   * {@link io.vertx.guides.wiki.database.reactivex.WikiDatabaseService#fetchPageById} would.
+   * @param ids 
+   * @param resultHandler 
+   * @return 
+   */
+  public io.vertx.guides.wiki.database.reactivex.WikiDatabaseService fetchPagesByIds(JsonArray ids, Handler<AsyncResult<JsonArray>> resultHandler) { 
+    delegate.fetchPagesByIds(ids, resultHandler);
+    return this;
+  }
+
+  /**
+   * Looks up several pages at once, returning for each of the <code>ids</code>, in the same order, what
+   * {@link io.vertx.guides.wiki.database.reactivex.WikiDatabaseService#fetchPageById} would.
+   * @param ids 
+   * @return 
+   */
+  public Single<JsonArray> rxFetchPagesByIds(JsonArray ids) { 
+    return io.vertx.reactivex.impl.AsyncResultSingle.toSingle(handler -> {
+      fetchPagesByIds(ids, handler);
+    });
+  }
+
   public io.vertx.guides.wiki.database.reactivex.WikiDatabaseService createPage(String title, String markdown, Handler<AsyncResult<Void>> resultHandler) { 
     delegate.createPage(title, markdown, resultHandler);
     return this;
@@ -123,17 +167,62 @@ public class WikiDatabaseService {
     });
   }
 
+  /**
+   * Replaces the markdown of page <code>id</code>, failing with the <code>PAGE_NOT_FOUND</code> error code when there is no
+   * such page.
+   * @param id 
+   * @param markdown 
+   * @param resultHandler 
+   * @return 
+   */
   public io.vertx.guides.wiki.database.reactivex.WikiDatabaseService savePage(int id, String markdown, Handler<AsyncResult<Void>> resultHandler) { 
     delegate.savePage(id, markdown, resultHandler);
     return this;
   }
 
+  /**
+   * Replaces the markdown of page <code>id</code>, failing with the <code>PAGE_NOT_FOUND</code> error code when there is no
+   * such page.
+   * @param id 
+   * @param markdown 
+   * @return 
+   */
   public Completable rxSavePage(int id, String markdown) { 
     return io.vertx.reactivex.impl.AsyncResultCompletable.toCompletable(handler -> {
       savePage(id, markdown, handler);
     });
   }
 
+  /**
+   * Applies the {@link io.vertx.guides.wiki.database.TextPatch} <code>edits</code> to page <code>id</code> if its content is still at <code>baseVersion</code>,
+   * returning <code>found</code>, and either the new <code>version</code> of the page, or <code>conflict</code> with its current
+   * version, or an <code>error</code> when the edits do not apply to the base text.
+   * @param id 
+   * @param baseVersion 
+   * @param edits 
+   * @param resultHandler 
+   * @return 
+   */
+  public io.vertx.guides.wiki.database.reactivex.WikiDatabaseService patchPage(int id, String baseVersion, JsonArray edits, Handler<AsyncResult<JsonObject>> resultHandler) { 
+    delegate.patchPage(id, baseVersion, edits, resultHandler);
+    return this;
+  }
+
+  /**
+   * Applies the {@link io.vertx.guides.wiki.database.TextPatch} <code>edits</code> to page <code>id</code> if its content is still at <code>baseVersion</code>,
+   * returning <code>found</code>, and either the new <code>version</code> of the page, or <code>conflict</code> with its current
+   * version, or an <code>error</code> when the edits do not apply to the base text.
+   * @param id 
+   * @param baseVersion 
+   * @param edits 
+   * @return 
+   */
+  public Single<JsonObject> rxPatchPage(int id, String baseVersion, JsonArray edits) { 
+    return io.vertx.reactivex.impl.AsyncResultSingle.toSingle(handler -> {
+      patchPage(id, baseVersion, edits, handler);
+    });
+  }
+
   public io.vertx.guides.wiki.database.reactivex.WikiDatabaseService deletePage(int id, Handler<AsyncResult<Void>> resultHandler) { 
     delegate.deletePage(id, resultHandler);
     return this;
@@ -145,6 +234,176 @@ public class WikiDatabaseService {
     });
   }
 
+  /**
+   * Returns the sorted names of the pages that link to page <code>name</code>.
+   * @param name 
+   * @param resultHandler 
+   * @return 
+   */
+  public io.vertx.guides.wiki.database.reactivex.WikiDatabaseService fetchBacklinks(String name, Handler<AsyncResult<JsonArray>> resultHandler) { 
+    delegate.fetchBacklinks(name, resultHandler);
+    return this;
+  }
+
+  /**
+   * Returns the sorted names of the pages that link to page <code>name</code>.
+   * @param name 
+   * @return 
+   */
+  public Single<JsonArray> rxFetchBacklinks(String name) { 
+    return io.vertx.reactivex.impl.AsyncResultSingle.toSingle(handler -> {
+      fetchBacklinks(name, handler);
+    });
+  }
+
+  /**
+   * Streams every page to <code>address</code> following the {@link io.vertx.guides.wiki.database.PageStreams} protocol. The handler is called once
+   * the first pages have been read, not when the stream ends.
+   * @param address 
+   * @param credits 
+   * @param resultHandler 
+   * @return 
+   */
+  public io.vertx.guides.wiki.database.reactivex.WikiDatabaseService exportPages(String address, int credits, Handler<AsyncResult<Void>> resultHandler) { 
+    delegate.exportPages(address, credits, resultHandler);
+    return this;
+  }
+
+  /**
+   * Streams every page to <code>address</code> following the {@link io.vertx.guides.wiki.database.PageStreams} protocol. The handler is called once
+   * the first pages have been read, not when the stream ends.
+   * @param address 
+   * @param credits 
+   * @return 
+   */
+  public Completable rxExportPages(String address, int credits) { 
+    return io.vertx.reactivex.impl.AsyncResultCompletable.toCompletable(handler -> {
+      exportPages(address, credits, handler);
+    });
+  }
+
+  /**
+   * Creates or replaces the given <code>name</code>/<code>markdown</code> pages in a single transaction.
+   * @param pages 
+   * @param resultHandler 
+   * @return 
+   */
+  public io.vertx.guides.wiki.database.reactivex.WikiDatabaseService importPages(JsonArray pages, Handler<AsyncResult<Integer>> resultHandler) { 
+    delegate.importPages(pages, resultHandler);
+    return this;
+  }
+
+  /**
+   * Creates or replaces the given <code>name</code>/<code>markdown</code> pages in a single transaction.
+   * @param pages 
+   * @return 
+   */
+  public Single<Integer> rxImportPages(JsonArray pages) { 
+    return io.vertx.reactivex.impl.AsyncResultSingle.toSingle(handler -> {
+      importPages(pages, handler);
+    });
+  }
+
+  /**
+   * Records an attachment of page <code>pageId</code> whose content is stored under <code>hash</code>, and returns its
+   * metadata, or <code>{"found": false</code>} when the page does not exist.
+   * @param pageId 
+   * @param name 
+   * @param hash 
+   * @param mediaType 
+   * @param size 
+   * @param resultHandler 
+   * @return 
+   */
+  public io.vertx.guides.wiki.database.reactivex.WikiDatabaseService saveAttachment(int pageId, String name, String hash, String mediaType, long size, Handler<AsyncResult<JsonObject>> resultHandler) { 
+    delegate.saveAttachment(pageId, name, hash, mediaType, size, resultHandler);
+    return this;
+  }
+
+  /**
+   * Records an attachment of page <code>pageId</code> whose content is stored under <code>hash</code>, and returns its
+   * metadata, or <code>{"found": false</code>} when the page does not exist.
+   * @param pageId 
+   * @param name 
+   * @param hash 
+   * @param mediaType 
+   * @param size 
+   * @return 
+   */
+  public Single<JsonObject> rxSaveAttachment(int pageId, String name, String hash, String mediaType, long size) { 
+    return io.vertx.reactivex.impl.AsyncResultSingle.toSingle(handler -> {
+      saveAttachment(pageId, name, hash, mediaType, size, handler);
+    });
+  }
+
+  public io.vertx.guides.wiki.database.reactivex.WikiDatabaseService fetchAttachments(int pageId, Handler<AsyncResult<JsonArray>> resultHandler) { 
+    delegate.fetchAttachments(pageId, resultHandler);
+    return this;
+  }
+
+  public Single<JsonArray> rxFetchAttachments(int pageId) { 
+    return io.vertx.reactivex.impl.AsyncResultSingle.toSingle(handler -> {
+      fetchAttachments(pageId, handler);
+    });
+  }
+
+  /**
+   * Returns the <code>mediaType</code> and <code>size</code> of the content stored under <code>hash</code>, if any attachment has it.
+   * @param hash 
+   * @param resultHandler 
+   * @return 
+   */
+  public io.vertx.guides.wiki.database.reactivex.WikiDatabaseService fetchAttachment(String hash, Handler<AsyncResult<JsonObject>> resultHandler) { 
+    delegate.fetchAttachment(hash, resultHandler);
+    return this;
+  }
+
+  /**
+   * Returns the <code>mediaType</code> and <code>size</code> of the content stored under <code>hash</code>, if any attachment has it.
+   * @param hash 
+   * @return 
+   */
+  public Single<JsonObject> rxFetchAttachment(String hash) { 
+    return io.vertx.reactivex.impl.AsyncResultSingle.toSingle(handler -> {
+      fetchAttachment(hash, handler);
+    });
+  }
+
+  /**
+   * Deletes an attachment and returns its <code>hash</code> with the number of <code>references</code> left to that content,
+   * or <code>{"found": false</code>}.
+   * @param id 
+   * @param resultHandler 
+   * @return 
+   */
+  public io.vertx.guides.wiki.database.reactivex.WikiDatabaseService deleteAttachment(int id, Handler<AsyncResult<JsonObject>> resultHandler) { 
+    delegate.deleteAttachment(id, resultHandler);
+    return this;
+  }
+
+  /**
+   * Deletes an attachment and returns its <code>hash</code> with the number of <code>references</code> left to that content,
+   * or <code>{"found": false</code>}.
+   * @param id 
+   * @return 
+   */
+  public Single<JsonObject> rxDeleteAttachment(int id) { 
+    return io.vertx.reactivex.impl.AsyncResultSingle.toSingle(handler -> {
+      deleteAttachment(id, handler);
+    });
+  }
+
+  public io.vertx.guides.wiki.database.reactivex.WikiDatabaseService fetchMetrics(Handler<AsyncResult<JsonObject>> resultHandler) { 
+    delegate.fetchMetrics(resultHandler);
+    return this;
+  }
+
+  public Single<JsonObject> rxFetchMetrics() { 
+    return io.vertx.reactivex.impl.AsyncResultSingle.toSingle(handler -> {
+      fetchMetrics(handler);
+    });
+  }
+
   public static WikiDatabaseService newInstance(io.vertx.guides.wiki.database.WikiDatabaseService arg) {
     return arg != null ? new WikiDatabaseService(arg) : null;
   }
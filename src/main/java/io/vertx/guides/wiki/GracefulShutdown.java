@@ -0,0 +1,65 @@
+package io.vertx.guides.wiki;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Orders the shutdown of the verticles of a node, so that a redeploy neither drops requests nor loses warm state.
+ * <p>
+ * Vert.x undeploys the database and HTTP verticles of a node concurrently. Each HTTP verticle counts as serving from
+ * the moment it listens until its in-flight requests have drained, and the database verticle keeps answering until
+ * no HTTP verticle of its Vert.x instance is serving anymore, before draining its own requests.
+ */
+public final class GracefulShutdown {
+
+    private static final String SHARED_MAP = "wiki.shutdown";
+    private static final String SERVING = "http-serving";
+    private static final long POLL_INTERVAL = 50;
+
+    private GracefulShutdown() {
+    }
+
+    public static void serving(Vertx vertx) {
+        shared(vertx).merge(SERVING, 1, Integer::sum);
+    }
+
+    public static void drained(Vertx vertx) {
+        shared(vertx).computeIfPresent(SERVING, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Whether an HTTP verticle of this Vert.x instance may still call the database service.
+     */
+    public static boolean httpServing(Vertx vertx) {
+        return shared(vertx).containsKey(SERVING);
+    }
+
+    /**
+     * Completes with {@code true} once {@code done} holds, or with {@code false} when it still does not after
+     * {@code timeout} milliseconds.
+     */
+    public static Future<Boolean> await(Vertx vertx, BooleanSupplier done, long timeout) {
+        Promise<Boolean> promise = Promise.promise();
+        long deadline = System.currentTimeMillis() + timeout;
+        if (done.getAsBoolean()) {
+            promise.complete(true);
+            return promise.future();
+        }
+        vertx.setPeriodic(POLL_INTERVAL, id -> {
+            boolean drained = done.getAsBoolean();
+            if (drained || System.currentTimeMillis() >= deadline) {
+                vertx.cancelTimer(id);
+                promise.complete(drained);
+            }
+        });
+        return promise.future();
+    }
+
+    private static LocalMap<String, Integer> shared(Vertx vertx) {
+        return vertx.sharedData().getLocalMap(SHARED_MAP);
+    }
+}
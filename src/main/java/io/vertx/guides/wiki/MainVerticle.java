@@ -1,42 +1,107 @@
 package io.vertx.guides.wiki;
 
+import io.reactivex.Single;
 import io.reactivex.disposables.Disposable;
 import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.guides.wiki.database.WikiDatabaseVerticle;
 import io.vertx.guides.wiki.http.HttpServerVerticle;
 import io.vertx.reactivex.config.ConfigRetriever;
 import io.vertx.reactivex.core.AbstractVerticle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class MainVerticle extends AbstractVerticle {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(MainVerticle.class);
+
+    public static final String CONFIG_STARTUP_MODE = "mode";
+    public static final String STARTUP_MODE_FAST = "fast";
+    public static final String CONFIG_NODE_ROLES = "roles";
+    public static final String NODE_ROLE_DATABASE = "database";
+    public static final String NODE_ROLE_HTTP = "http";
+
     private Disposable init;
 
+    /**
+     * In the {@code fast} startup mode the database and HTTP verticles are deployed concurrently, the HTTP verticles
+     * waiting for the database service only once their own initialization is done, and both verticles default to
+     * eager initialization: JDBC connections and prepared statements, and precompiled templates. It is off unless the
+     * configuration sets {@code "startup": {"mode": "fast"}}, since eager initialization holds the minimum number of
+     * connections open from the start.
+     * <p>
+     * The {@code roles} of the node select the verticles it deploys, both by default. When Vert.x runs clustered
+     * ({@code -cluster}), nodes with only the {@code http} role reach the database service of a {@code database} node
+     * over the clustered event bus, and follow its page events to keep their caches coherent.
+     */
     @Override
     public void start(Promise<Void> promise) {
+        StartupTimings timings = new StartupTimings("Wiki");
+        long begunAt = System.nanoTime();
         ConfigRetriever retriever = ConfigRetriever.create(vertx);
         retriever.getConfig(c -> {
+            timings.record("config", begunAt);
             JsonObject config = c.result();
             JsonObject dbConfig = config.getJsonObject("wikidb");
             JsonObject httpConfig = config.getJsonObject("http");
+            JsonObject startup = config.getJsonObject("startup", new JsonObject());
+            boolean fast = STARTUP_MODE_FAST.equals(startup.getString(CONFIG_STARTUP_MODE));
+            JsonArray roles = config.getJsonObject("node", new JsonObject())
+                .getJsonArray(CONFIG_NODE_ROLES, new JsonArray().add(NODE_ROLE_DATABASE).add(NODE_ROLE_HTTP));
+            if (roles.isEmpty()) {
+                promise.fail("The node has no role");
+                return;
+            }
+            if (!roles.contains(NODE_ROLE_DATABASE) && !vertx.isClustered()) {
+                LOGGER.warn("This node has no database role and is not clustered, no database service will answer");
+            }
+            if (fast) {
+                dbConfig = new JsonObject()
+                    .put(WikiDatabaseVerticle.CONFIG_WIKIDB_STARTUP_EAGER, true)
+                    .mergeIn(dbConfig);
+                httpConfig = new JsonObject()
+                    .put(HttpServerVerticle.CONFIG_HTTP_STARTUP_PRECOMPILE_TEMPLATES, true)
+                    .mergeIn(httpConfig);
+            }
+
+            List<Single<String>> deployments = new ArrayList<>();
+            if (roles.contains(NODE_ROLE_DATABASE)) {
+                deployments.add(timings.time("database verticle", vertx
+                    .rxDeployVerticle(new WikiDatabaseVerticle(),
+                        new DeploymentOptions()
+                            .setConfig(dbConfig))));
+            }
+            if (roles.contains(NODE_ROLE_HTTP)) {
+                deployments.add(timings.time("http verticles", vertx
+                    .rxDeployVerticle(HttpServerVerticle.class.getCanonicalName(),
+                        new DeploymentOptions()
+                            .setInstances(2)
+                            .setConfig(httpConfig))));
+            }
 
-            init = vertx
-                .rxDeployVerticle(new WikiDatabaseVerticle(),
-                    new DeploymentOptions()
-                        .setConfig(dbConfig))
-                .flatMap(id -> vertx.rxDeployVerticle(HttpServerVerticle.class.getCanonicalName(),
-                    new DeploymentOptions()
-                        .setInstances(2)
-                        .setConfig(httpConfig)))
-                .subscribe(id -> promise.complete(), promise::fail);
+            init = (fast ? Single.merge(deployments) : Single.concat(deployments)).lastOrError()
+                .subscribe(id -> {
+                    LOGGER.info("Node roles: " + roles.encode() + (vertx.isClustered() ? ", clustered" : ""));
+                    LOGGER.info(timings.summary());
+                    promise.complete();
+                }, promise::fail);
         });
 
 
     }
 
+    /**
+     * Vert.x undeploys the database and HTTP verticles before this one, each draining its requests and saving its
+     * warm state through {@link GracefulShutdown}.
+     */
     @Override
     public void stop(Promise<Void> promise) {
         init.dispose();
+        promise.complete();
     }
 }
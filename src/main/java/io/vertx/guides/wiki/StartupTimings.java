@@ -0,0 +1,57 @@
+package io.vertx.guides.wiki;
+
+import io.reactivex.Completable;
+import io.reactivex.Single;
+import io.vertx.core.Future;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Wall-clock durations of the phases of a verticle start, summarized in one log line once it is up.
+ * <p>
+ * Phases may overlap: each one is measured from the moment it begins, so their sum can exceed the total.
+ */
+public final class StartupTimings {
+
+    private final String component;
+    private final long startedAt = System.nanoTime();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    public StartupTimings(String component) {
+        this.component = component;
+    }
+
+    public void record(String phase, long begunAt) {
+        phases.put(phase, (System.nanoTime() - begunAt) / 1_000_000);
+    }
+
+    public <T> Future<T> time(String phase, Supplier<Future<T>> future) {
+        long begunAt = System.nanoTime();
+        return future.get().onComplete(ar -> record(phase, begunAt));
+    }
+
+    public <T> Single<T> time(String phase, Single<T> single) {
+        return Single.defer(() -> {
+            long begunAt = System.nanoTime();
+            return single.doOnSuccess(result -> record(phase, begunAt));
+        });
+    }
+
+    public Completable time(String phase, Completable completable) {
+        return Completable.defer(() -> {
+            long begunAt = System.nanoTime();
+            return completable.doOnComplete(() -> record(phase, begunAt));
+        });
+    }
+
+    public String summary() {
+        return component + " started in " + (System.nanoTime() - startedAt) / 1_000_000 + " ms ("
+            + phases.entrySet().stream()
+            .map(phase -> phase.getKey() + " " + phase.getValue() + " ms")
+            .collect(Collectors.joining(", "))
+            + ")";
+    }
+}
@@ -0,0 +1,205 @@
+package io.vertx.guides.wiki.database;
+
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.file.FileProps;
+import io.vertx.reactivex.ext.sql.SQLClientHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Schedules the HSQLDB checkpoints of a file database instead of letting them happen whenever the log fills up.
+ * <p>
+ * Every {@code check_interval} the size of the {@code .log} file is checked. A {@code CHECKPOINT DEFRAG}, which also
+ * compacts the data file, runs once per occurrence of the daily low traffic window {@code window_start}-{@code
+ * window_end}; a plain {@code CHECKPOINT} runs whenever the log exceeds {@code log_threshold} bytes. Both are
+ * deferred while more than {@code max_busy} operations are running or waiting on the pools, unless the log has grown
+ * past {@code log_max_size}.
+ * <p>
+ * With {@code take_over_checkpoints}, the automatic checkpoints of HSQLDB are disabled with {@code SET FILES LOG SIZE
+ * 0}, so that checkpoints only happen on this schedule. That setting persists in the database, so without it the
+ * automatic checkpoints are turned back on at every start, with {@code SET FILES LOG SIZE} {@code files_log_size}
+ * megabytes (50, the HSQLDB default): a database once taken over would otherwise keep growing its log forever.
+ * <p>
+ * HSQLDB keeps no optimizer statistics, so there are none to refresh. Like {@link JdbcPool}, everything happens on
+ * the event loop of the database verticle.
+ */
+public class DatabaseMaintenance {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatabaseMaintenance.class);
+
+    public static final String CONFIG_CHECK_INTERVAL = "check_interval";
+    public static final String CONFIG_WINDOW_START = "window_start";
+    public static final String CONFIG_WINDOW_END = "window_end";
+    public static final String CONFIG_LOG_THRESHOLD = "log_threshold";
+    public static final String CONFIG_LOG_MAX_SIZE = "log_max_size";
+    public static final String CONFIG_MAX_BUSY = "max_busy";
+    public static final String CONFIG_TAKE_OVER_CHECKPOINTS = "take_over_checkpoints";
+    public static final String CONFIG_FILES_LOG_SIZE = "files_log_size";
+
+    private static final String FILE_URL_PREFIX = "jdbc:hsqldb:file:";
+    private static final String[] FILE_SUFFIXES = {".data", ".script", ".log", ".backup"};
+
+    private final io.vertx.reactivex.core.Vertx vertx;
+    private final JdbcPool readPool;
+    private final JdbcPool writePool;
+    private final String files;
+    private final long checkInterval;
+    private final MaintenanceWindow window;
+    private final long logThreshold;
+    private final long logMaxSize;
+    private final int maxBusy;
+    private final boolean takeOverCheckpoints;
+    private final int filesLogSize;
+
+    private long timerId = -1;
+    private boolean running;
+    private LocalDate lastWindow;
+
+    private long runs;
+    private long deferred;
+    private long failures;
+    private long totalReclaimedBytes;
+    private JsonObject lastRun;
+
+    private DatabaseMaintenance(Vertx vertx, JdbcPool readPool, JdbcPool writePool, String files, JsonObject config) {
+        this.vertx = io.vertx.reactivex.core.Vertx.newInstance(vertx);
+        this.readPool = readPool;
+        this.writePool = writePool;
+        this.files = files;
+        this.checkInterval = config.getLong(CONFIG_CHECK_INTERVAL, 60_000L);
+        this.window = MaintenanceWindow.parse(
+            config.getString(CONFIG_WINDOW_START, "02:00"),
+            config.getString(CONFIG_WINDOW_END, "05:00"));
+        this.logThreshold = config.getLong(CONFIG_LOG_THRESHOLD, 32L * 1024 * 1024);
+        this.logMaxSize = config.getLong(CONFIG_LOG_MAX_SIZE, 256L * 1024 * 1024);
+        this.maxBusy = config.getInteger(CONFIG_MAX_BUSY, 2);
+        this.takeOverCheckpoints = config.getBoolean(CONFIG_TAKE_OVER_CHECKPOINTS, true);
+        this.filesLogSize = config.getInteger(CONFIG_FILES_LOG_SIZE, 50);
+    }
+
+    /**
+     * The maintenance of the database at {@code url}, which does nothing unless it is an HSQLDB file database.
+     */
+    public static DatabaseMaintenance create(Vertx vertx, JdbcPool readPool, JdbcPool writePool, String url, JsonObject config) {
+        String files = null;
+        if (url != null && url.startsWith(FILE_URL_PREFIX)) {
+            int parameters = url.indexOf(';');
+            files = url.substring(FILE_URL_PREFIX.length(), parameters < 0 ? url.length() : parameters);
+        }
+        return new DatabaseMaintenance(vertx, readPool, writePool, files, config);
+    }
+
+    public Completable rxStart() {
+        if (files == null) {
+            return Completable.complete();
+        }
+        return execute("SET FILES LOG SIZE " + (takeOverCheckpoints ? 0 : filesLogSize)).doOnComplete(() -> {
+            timerId = vertx.setPeriodic(checkInterval, id -> check());
+            LOGGER.info("Database maintenance scheduled in the {} window and beyond {} bytes of log", window, logThreshold);
+        });
+    }
+
+    /**
+     * Cancels the checks and, for a file database, runs a {@code SHUTDOWN}: the pending log records are written and
+     * the files closed, so that the next start has no log to replay.
+     */
+    public Completable rxStop() {
+        if (timerId != -1) {
+            vertx.cancelTimer(timerId);
+        }
+        if (files == null) {
+            return Completable.complete();
+        }
+        return execute("SHUTDOWN")
+            .doOnComplete(() -> LOGGER.info("Database files flushed and closed"));
+    }
+
+    public JsonObject metrics() {
+        return new JsonObject()
+            .put("enabled", files != null)
+            .put("window", window.toString())
+            .put("running", running)
+            .put("runs", runs)
+            .put("deferred", deferred)
+            .put("failures", failures)
+            .put("totalReclaimedBytes", totalReclaimedBytes)
+            .put("lastRun", lastRun);
+    }
+
+    private void check() {
+        if (running) {
+            return;
+        }
+        running = true;
+        filesSize(".log").subscribe(logSize -> {
+            LocalDateTime now = LocalDateTime.now();
+            boolean inWindow = window.contains(now) && !window.occurrence(now).equals(lastWindow);
+            boolean forced = logSize > logMaxSize;
+            if (!inWindow && !forced && logSize <= logThreshold) {
+                running = false;
+                return;
+            }
+            if (!forced && readPool.busy() + writePool.busy() > maxBusy) {
+                deferred++;
+                running = false;
+                return;
+            }
+            if (inWindow) {
+                lastWindow = window.occurrence(now);
+                run("CHECKPOINT DEFRAG", "window");
+            } else {
+                run("CHECKPOINT", forced ? "log-max-size" : "log-threshold");
+            }
+        }, e -> {
+            LOGGER.warn("Could not check the database log size", e);
+            running = false;
+        });
+    }
+
+    private void run(String statement, String reason) {
+        long startedAt = System.nanoTime();
+        Single<Long> before = filesSize(FILE_SUFFIXES);
+        before.flatMap(sizeBefore -> execute(statement)
+            .andThen(filesSize(FILE_SUFFIXES))
+            .map(sizeAfter -> sizeBefore - sizeAfter))
+            .doFinally(() -> running = false)
+            .subscribe(reclaimed -> {
+                long duration = (System.nanoTime() - startedAt) / 1_000_000;
+                runs++;
+                totalReclaimedBytes += Math.max(0, reclaimed);
+                lastRun = new JsonObject()
+                    .put("statement", statement)
+                    .put("reason", reason)
+                    .put("at", System.currentTimeMillis())
+                    .put("durationMs", duration)
+                    .put("reclaimedBytes", reclaimed);
+                LOGGER.info("{} ({}) took {} ms and reclaimed {} bytes", statement, reason, duration, reclaimed);
+            }, e -> {
+                failures++;
+                LOGGER.error("Database maintenance failed: " + statement, e);
+            });
+    }
+
+    private Completable execute(String statement) {
+        return writePool.rxCompletable(client -> SQLClientHelper.usingConnectionCompletable(client,
+            conn -> conn.rxExecute(statement)));
+    }
+
+    /**
+     * The total size of the database files with the given suffixes, missing files counting as empty.
+     */
+    private Single<Long> filesSize(String... suffixes) {
+        return Flowable.fromArray(suffixes)
+            .flatMapSingle(suffix -> vertx.fileSystem().rxProps(files + suffix)
+                .map(FileProps::size)
+                .onErrorReturnItem(0L))
+            .reduce(0L, Long::sum);
+    }
+}
@@ -0,0 +1,78 @@
+package io.vertx.guides.wiki.database;
+
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Request deadlines carried from the callers of the database service to the pools that execute the queries.
+ * <p>
+ * A caller sets the deadline, in epoch milliseconds, as a message header through {@link #deliveryOptions(long)}. The
+ * database verticle drops a request that has already expired when it is delivered and, while the service method
+ * runs, exposes its deadline to {@link JdbcPool} so that a query still waiting in the pool queue past that time is
+ * dropped instead of executed: nobody is waiting for its result anymore.
+ */
+public final class Deadlines {
+
+    public static final String HEADER = "wiki-deadline";
+
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private Deadlines() {
+    }
+
+    /**
+     * Options for a proxy call that the caller gives up on after {@code timeout} milliseconds.
+     */
+    public static DeliveryOptions deliveryOptions(long timeout) {
+        return new DeliveryOptions()
+            .setSendTimeout(timeout)
+            .addHeader(HEADER, Long.toString(System.currentTimeMillis() + timeout));
+    }
+
+    /**
+     * Gives the next call of a proxy created with {@code options} a deadline {@code timeout} milliseconds away.
+     * <p>
+     * This lets a caller create its proxy once: each proxy creation registers the service exception codec, which
+     * fails and fills in a stack trace after the first time. The proxy copies the options on every call but shares
+     * their headers with the message, which adds its action header to them, so the headers are replaced rather than
+     * updated. The options must therefore be renewed right before each call, on the thread making it.
+     */
+    public static DeliveryOptions renew(DeliveryOptions options, long timeout) {
+        return options
+            .setSendTimeout(timeout)
+            .setHeaders(MultiMap.caseInsensitiveMultiMap()
+                .add(HEADER, Long.toString(System.currentTimeMillis() + timeout)));
+    }
+
+    /**
+     * The deadline of the request being delivered on this thread, or {@code Long.MAX_VALUE}.
+     */
+    static long current() {
+        Long deadline = CURRENT.get();
+        return deadline == null ? Long.MAX_VALUE : deadline;
+    }
+
+    static Handler<Message<JsonObject>> enforcing(Handler<Message<JsonObject>> handler) {
+        return message -> {
+            String header = message.headers().get(HEADER);
+            if (header == null) {
+                handler.handle(message);
+                return;
+            }
+            long deadline = Long.parseLong(header);
+            if (System.currentTimeMillis() > deadline) {
+                message.fail(ErrorCodes.DEADLINE_EXCEEDED.ordinal(), "The request deadline has passed");
+                return;
+            }
+            CURRENT.set(deadline);
+            try {
+                handler.handle(message);
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+}
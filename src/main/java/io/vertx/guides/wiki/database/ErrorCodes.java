@@ -3,5 +3,9 @@ package io.vertx.guides.wiki.database;
 public enum ErrorCodes {
     NO_ACTION_SPECIFIED,
     BAD_ACTION,
-    DB_ERROR
+    DB_ERROR,
+    POOL_SATURATED,
+    DEADLINE_EXCEEDED,
+    CIRCUIT_OPEN,
+    PAGE_NOT_FOUND
 }
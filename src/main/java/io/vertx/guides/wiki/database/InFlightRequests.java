@@ -0,0 +1,112 @@
+package io.vertx.guides.wiki.database;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the requests to the database service from their delivery to their reply, so that the database verticle can
+ * wait for them before closing its pools. Messages sent without a reply address are not counted.
+ */
+final class InFlightRequests implements Handler<Message<JsonObject>> {
+
+    private final Handler<Message<JsonObject>> handler;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    InFlightRequests(Handler<Message<JsonObject>> handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public void handle(Message<JsonObject> message) {
+        if (message.replyAddress() == null) {
+            handler.handle(message);
+            return;
+        }
+        inFlight.incrementAndGet();
+        handler.handle(new Tracked(message));
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private final class Tracked implements Message<JsonObject> {
+
+        private final Message<JsonObject> message;
+        private final AtomicBoolean answered = new AtomicBoolean();
+
+        private Tracked(Message<JsonObject> message) {
+            this.message = message;
+        }
+
+        private void answered() {
+            if (answered.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public String address() {
+            return message.address();
+        }
+
+        @Override
+        public MultiMap headers() {
+            return message.headers();
+        }
+
+        @Override
+        public JsonObject body() {
+            return message.body();
+        }
+
+        @Override
+        public String replyAddress() {
+            return message.replyAddress();
+        }
+
+        @Override
+        public boolean isSend() {
+            return message.isSend();
+        }
+
+        @Override
+        public void reply(Object reply) {
+            answered();
+            message.reply(reply);
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public <R> void reply(Object reply, Handler<AsyncResult<Message<R>>> replyHandler) {
+            answered();
+            message.reply(reply, replyHandler);
+        }
+
+        @Override
+        public void reply(Object reply, DeliveryOptions options) {
+            answered();
+            message.reply(reply, options);
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public <R> void reply(Object reply, DeliveryOptions options, Handler<AsyncResult<Message<R>>> replyHandler) {
+            answered();
+            message.reply(reply, options, replyHandler);
+        }
+
+        @Override
+        public void fail(int failureCode, String failureMessage) {
+            answered();
+            message.fail(failureCode, failureMessage);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.vertx.guides.wiki.database;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.jdbc.impl.actions.JDBCStatementHelper;
+import io.vertx.ext.jdbc.spi.DataSourceProvider;
+import io.vertx.ext.jdbc.spi.impl.C3P0DataSourceProvider;
+import io.vertx.ext.sql.ResultSet;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Runs queries the way the JDBC client does, but on the calling thread, for the {@code virtual} executor of
+ * {@link JdbcPool}.
+ * <p>
+ * Vert.x 3.9 has no public API for this, so this is the one class relying on implementation classes of the JDBC
+ * client: its statement helper, for parameters and result sets identical to those of the client, and its default
+ * data source provider. {@code JdbcClientAdapterTest} compares both with the client and fails if they drift apart.
+ */
+final class JdbcClientAdapter {
+
+    private static final String CONFIG_PROVIDER_CLASS = "provider_class";
+
+    private final DataSourceProvider provider;
+    private final DataSource dataSource;
+    private final JDBCStatementHelper statementHelper;
+
+    /**
+     * Creates the data source described by {@code config}, with the provider the JDBC client would pick.
+     */
+    JdbcClientAdapter(JsonObject config) throws SQLException {
+        this.provider = provider(config.getString(CONFIG_PROVIDER_CLASS));
+        this.dataSource = provider.getDataSource(config);
+        this.statementHelper = new JDBCStatementHelper(config);
+    }
+
+    DataSource dataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Runs {@code sql} with {@code params} on a connection of the data source, blocking the calling thread.
+     */
+    ResultSet query(String sql, JsonArray params) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statementHelper.fillStatement(statement, params);
+            try (java.sql.ResultSet rs = statement.executeQuery()) {
+                return statementHelper.asList(rs);
+            }
+        }
+    }
+
+    void close() throws SQLException {
+        provider.close(dataSource);
+    }
+
+    private static DataSourceProvider provider(String className) throws SQLException {
+        if (className == null) {
+            return new C3P0DataSourceProvider();
+        }
+        try {
+            return (DataSourceProvider) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new SQLException("Cannot create the data source provider " + className, e);
+        }
+    }
+}
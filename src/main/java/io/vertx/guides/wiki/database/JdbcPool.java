@@ -0,0 +1,409 @@
+package io.vertx.guides.wiki.database;
+
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.sql.ResultSet;
+import io.vertx.reactivex.ext.jdbc.JDBCClient;
+import io.vertx.reactivex.ext.sql.SQLConnection;
+import io.vertx.serviceproxy.ServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A named JDBC pool with its own connection pool, dispatch limit and waiting queue.
+ * <p>
+ * Operations are dispatched to the underlying {@link JDBCClient} at most {@code worker_pool_size} at a time; the
+ * others wait in a bounded queue, served first-in-first-out when {@code fair} is set and newest-first otherwise.
+ * All bookkeeping happens on the event loop of the database verticle, so no synchronization is needed.
+ * <p>
+ * With {@code "executor": "virtual"}, the single statement queries of {@link #rxQuery} bypass that dispatch limit and
+ * run directly against the pool's data source, one virtual thread per query. Their concurrency is then bounded per
+ * query, by {@code query_limit} or the entry of the query in {@code query_limits}, rather than by a number of threads.
+ * The queries waiting for their limit count against {@code max_queue_size} along with the other waiting operations, so
+ * a saturated pool rejects them all with {@link ErrorCodes#POOL_SATURATED} alike. Only these queries use virtual
+ * threads: transactions, batches and streams still go through the JDBC client.
+ * <p>
+ * An operation subscribed while a service request with a {@link Deadlines deadline} is being delivered is dropped,
+ * failing with {@link ErrorCodes#DEADLINE_EXCEEDED}, if that deadline has passed by the time it would be executed.
+ */
+public class JdbcPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcPool.class);
+
+    public static final String CONFIG_WORKER_POOL_SIZE = "worker_pool_size";
+    public static final String CONFIG_MAX_QUEUE_SIZE = "max_queue_size";
+    public static final String CONFIG_FAIR = "fair";
+    public static final String CONFIG_MIN_POOL_SIZE = "min_pool_size";
+    public static final String CONFIG_EXECUTOR = "executor";
+    public static final String CONFIG_QUERY_LIMIT = "query_limit";
+    public static final String CONFIG_QUERY_LIMITS = "query_limits";
+
+    public static final String EXECUTOR_WORKER = "worker";
+    public static final String EXECUTOR_VIRTUAL = "virtual";
+
+    private static final int DEFAULT_MAX_POOL_SIZE = 30;
+    private static final int DEFAULT_MIN_POOL_SIZE = 3;
+    private static final int DEFAULT_MAX_QUEUE_SIZE = 1000;
+
+    private final String name;
+    private final io.vertx.reactivex.core.Vertx vertx;
+    private final JDBCClient client;
+    private final int minPoolSize;
+    private final int maxPoolSize;
+    private final int workerPoolSize;
+    private final int maxQueueSize;
+    private final boolean fair;
+
+    private final JdbcClientAdapter adapter;
+    private final ExecutorService executor;
+    private final int queryLimit;
+    private final JsonObject queryLimits;
+    private final Map<SqlQuery, QueryLimit> limits = new ConcurrentHashMap<>();
+
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private int inFlight;
+    private int peakInFlight;
+    private int peakQueued;
+    private long completed;
+    private long rejected;
+    private final AtomicInteger queuedQueries = new AtomicInteger();
+    private final AtomicLong expired = new AtomicLong();
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    private JdbcPool(String name, Vertx vertx, JDBCClient client, JdbcClientAdapter adapter, JsonObject config) {
+        this.name = name;
+        this.vertx = io.vertx.reactivex.core.Vertx.newInstance(vertx);
+        this.client = client;
+        this.maxPoolSize = config.getInteger(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE, DEFAULT_MAX_POOL_SIZE);
+        this.minPoolSize = Math.min(maxPoolSize, config.getInteger(CONFIG_MIN_POOL_SIZE, DEFAULT_MIN_POOL_SIZE));
+        this.workerPoolSize = config.getInteger(CONFIG_WORKER_POOL_SIZE, maxPoolSize);
+        this.maxQueueSize = config.getInteger(CONFIG_MAX_QUEUE_SIZE, DEFAULT_MAX_QUEUE_SIZE);
+        this.fair = config.getBoolean(CONFIG_FAIR, true);
+        this.adapter = adapter;
+        this.executor = adapter == null ? null : newVirtualThreadExecutor(name, maxPoolSize);
+        this.queryLimit = config.getInteger(CONFIG_QUERY_LIMIT, maxPoolSize);
+        this.queryLimits = config.getJsonObject(CONFIG_QUERY_LIMITS, new JsonObject());
+    }
+
+    /**
+     * Creates (or joins) the shared data source {@code name} described by {@code config}.
+     */
+    public static JdbcPool create(Vertx vertx, String name, JsonObject config) throws SQLException {
+        if (EXECUTOR_VIRTUAL.equals(config.getString(CONFIG_EXECUTOR, EXECUTOR_WORKER))) {
+            JdbcClientAdapter adapter = new JdbcClientAdapter(config);
+            io.vertx.ext.jdbc.JDBCClient delegate = io.vertx.ext.jdbc.JDBCClient.create(vertx, adapter.dataSource());
+            return new JdbcPool(name, vertx, new JDBCClient(delegate), adapter, config);
+        }
+        io.vertx.ext.jdbc.JDBCClient delegate = io.vertx.ext.jdbc.JDBCClient.createShared(vertx, config, "wikidb." + name);
+        return new JdbcPool(name, vertx, new JDBCClient(delegate), null, config);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public <T> Single<T> rxSingle(Function<JDBCClient, Single<T>> operation) {
+        return Single.create(emitter -> {
+            Waiter waiter = new Waiter(() -> operation.apply(client)
+                .doFinally(this::release)
+                .subscribe(emitter::onSuccess, emitter::onError), Deadlines.current(), emitter::onError);
+            if (waiter.hasExpired()) {
+                waiter.expire();
+            } else if (inFlight < workerPoolSize && waiters.isEmpty()) {
+                dispatch(waiter);
+            } else if (queued() >= maxQueueSize) {
+                rejected++;
+                emitter.onError(saturated());
+            } else {
+                waiters.addLast(waiter);
+                peakQueued = Math.max(peakQueued, queued());
+                emitter.setCancellable(() -> waiters.remove(waiter));
+            }
+        });
+    }
+
+    public <T> Maybe<T> rxMaybe(Function<JDBCClient, Maybe<T>> operation) {
+        return this.<Optional<T>>rxSingle(c -> operation.apply(c).map(Optional::of).toSingle(Optional.empty()))
+            .flatMapMaybe(result -> result.map(Maybe::just).orElseGet(Maybe::empty));
+    }
+
+    public Completable rxCompletable(Function<JDBCClient, Completable> operation) {
+        return rxSingle(c -> operation.apply(c).toSingleDefault(Boolean.TRUE)).ignoreElement();
+    }
+
+    /**
+     * Runs a single statement query, on a virtual thread within the limit of {@code query} in the {@code virtual}
+     * executor mode, or through the JDBC client like {@link #rxSingle} otherwise.
+     */
+    public Single<ResultSet> rxQuery(SqlQuery query, String sql, JsonArray params) {
+        if (executor == null) {
+            return rxSingle(client -> client.rxQueryWithParams(sql, params));
+        }
+        QueryLimit limit = limits.computeIfAbsent(query, q -> new QueryLimit(
+            queryLimits.getInteger(q.name().toLowerCase(Locale.ROOT).replace('_', '-'), queryLimit)));
+        return Single.create(emitter -> {
+            if (queued() >= maxQueueSize) {
+                rejected++;
+                emitter.onError(saturated());
+                return;
+            }
+            queuedQueries.incrementAndGet();
+            peakQueued = Math.max(peakQueued, queued());
+            Context context = vertx.getDelegate().getOrCreateContext();
+            long deadline = Deadlines.current();
+            executor.execute(() -> {
+                try {
+                    ResultSet result = limit.run(queuedQueries::decrementAndGet, () -> {
+                        if (System.currentTimeMillis() > deadline) {
+                            expired.incrementAndGet();
+                            throw deadlineExceeded();
+                        }
+                        return adapter.query(sql, params);
+                    });
+                    context.runOnContext(v -> emitter.onSuccess(result));
+                } catch (Exception e) {
+                    context.runOnContext(v -> emitter.onError(e));
+                }
+            });
+        });
+    }
+
+    public Completable rxClose() {
+        return client.rxClose().doFinally(() -> {
+            if (executor != null) {
+                executor.shutdown();
+                adapter.close();
+            }
+        });
+    }
+
+    /**
+     * Opens the {@code min_pool_size} connections of the pool up front and prepares {@code statements} on each of
+     * them, the way the JDBC client will prepare them, so that the first requests wait neither for a connection nor
+     * for a statement to be compiled. The prepared statements are kept by the c3p0 statement cache, which has to be
+     * enabled with {@code max_statements_per_connection}.
+     */
+    public Completable rxWarmUp(Collection<String> statements) {
+        return Flowable.range(0, minPoolSize)
+            .flatMapSingle(i -> client.rxGetConnection())
+            .toList()
+            .flatMapCompletable(connections -> Flowable.fromIterable(connections)
+                .flatMapCompletable(connection -> vertx.<Void>rxExecuteBlocking(promise -> {
+                    try {
+                        prepare(connection.getDelegate().unwrap(), statements);
+                        promise.complete();
+                    } catch (SQLException e) {
+                        promise.fail(e);
+                    }
+                }, false).ignoreElement())
+                .doFinally(() -> connections.forEach(SQLConnection::close)));
+    }
+
+    /**
+     * The operations running or waiting on this pool right now.
+     */
+    public int busy() {
+        int running = 0;
+        for (QueryLimit limit : limits.values()) {
+            running += limit.limit - limit.permits.availablePermits();
+        }
+        return inFlight + queued() + running;
+    }
+
+    public JsonObject metrics() {
+        long dispatched = completed + inFlight;
+        return new JsonObject()
+            .put("minPoolSize", minPoolSize)
+            .put("maxPoolSize", maxPoolSize)
+            .put("workerPoolSize", workerPoolSize)
+            .put("maxQueueSize", maxQueueSize)
+            .put("fair", fair)
+            .put("inFlight", inFlight)
+            .put("peakInFlight", peakInFlight)
+            .put("queued", queued())
+            .put("peakQueued", peakQueued)
+            .put("completed", completed)
+            .put("rejected", rejected)
+            .put("expired", expired.get())
+            .put("saturation", (double) inFlight / workerPoolSize)
+            .put("avgWaitMs", dispatched == 0 ? 0.0 : totalWaitNanos / 1_000_000.0 / dispatched)
+            .put("maxWaitMs", maxWaitNanos / 1_000_000.0)
+            .put("executor", executor == null ? EXECUTOR_WORKER : EXECUTOR_VIRTUAL)
+            .put("queries", queryMetrics());
+    }
+
+    private JsonObject queryMetrics() {
+        JsonObject queries = new JsonObject();
+        limits.forEach((query, limit) -> queries.put(query.name(), limit.metrics()));
+        return queries;
+    }
+
+    /**
+     * The operations waiting for the dispatch limit, and the queries waiting for their own limit.
+     */
+    private int queued() {
+        return waiters.size() + queuedQueries.get();
+    }
+
+    /**
+     * A virtual thread per task when the JVM has them (Java 21, or 19 and 20 with preview features enabled), a fixed
+     * pool of {@code fallbackThreads} platform threads otherwise.
+     */
+    private static ExecutorService newVirtualThreadExecutor(String name, int fallbackThreads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warn("Virtual threads are not available, the {} pool queries run on {} platform threads",
+                name, fallbackThreads);
+            AtomicInteger threads = new AtomicInteger();
+            return Executors.newFixedThreadPool(fallbackThreads, task -> {
+                Thread thread = new Thread(task, "wikidb-" + name + "-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private static void prepare(Connection connection, Collection<String> statements) throws SQLException {
+        for (String sql : statements) {
+            connection.prepareStatement(sql).close();
+            String verb = sql.trim().toLowerCase(Locale.ROOT);
+            if (verb.startsWith("insert") || verb.startsWith("update") || verb.startsWith("delete")
+                || verb.startsWith("merge")) {
+                connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS).close();
+            }
+        }
+    }
+
+    private void dispatch(Waiter waiter) {
+        long waited = System.nanoTime() - waiter.enqueuedAt;
+        totalWaitNanos += waited;
+        maxWaitNanos = Math.max(maxWaitNanos, waited);
+        inFlight++;
+        peakInFlight = Math.max(peakInFlight, inFlight);
+        waiter.task.run();
+    }
+
+    private void release() {
+        inFlight--;
+        completed++;
+        Waiter next;
+        while ((next = fair ? waiters.pollFirst() : waiters.pollLast()) != null) {
+            if (!next.hasExpired()) {
+                dispatch(next);
+                return;
+            }
+            next.expire();
+        }
+    }
+
+    private ServiceException saturated() {
+        return new ServiceException(ErrorCodes.POOL_SATURATED.ordinal(), "The " + name + " pool is saturated");
+    }
+
+    private ServiceException deadlineExceeded() {
+        return new ServiceException(ErrorCodes.DEADLINE_EXCEEDED.ordinal(),
+            "The request deadline passed while waiting for the " + name + " pool");
+    }
+
+    private interface Query {
+        ResultSet execute() throws SQLException;
+    }
+
+    /**
+     * Caps the concurrent executions of one query. Waiting is a blocking {@link Semaphore#acquire()}, which is cheap on
+     * a virtual thread.
+     */
+    private static final class QueryLimit {
+        private final int limit;
+        private final Semaphore permits;
+        private final AtomicInteger peakInFlight = new AtomicInteger();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+
+        private QueryLimit(int limit) {
+            this.limit = limit;
+            this.permits = new Semaphore(limit, true);
+        }
+
+        /**
+         * Runs {@code query} once a permit is available, calling {@code onAcquired} when the wait is over, whether or
+         * not a permit was obtained.
+         */
+        private ResultSet run(Runnable onAcquired, Query query) throws SQLException, InterruptedException {
+            try {
+                permits.acquire();
+            } finally {
+                onAcquired.run();
+            }
+            try {
+                peakInFlight.accumulateAndGet(limit - permits.availablePermits(), Math::max);
+                ResultSet result = query.execute();
+                completed.incrementAndGet();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                failed.incrementAndGet();
+                throw e;
+            } finally {
+                permits.release();
+            }
+        }
+
+        private JsonObject metrics() {
+            return new JsonObject()
+                .put("limit", limit)
+                .put("inFlight", limit - permits.availablePermits())
+                .put("peakInFlight", peakInFlight.get())
+                .put("waiting", permits.getQueueLength())
+                .put("completed", completed.get())
+                .put("failed", failed.get());
+        }
+    }
+
+    private final class Waiter {
+        private final Runnable task;
+        private final long deadline;
+        private final Consumer<Throwable> onError;
+        private final long enqueuedAt = System.nanoTime();
+
+        private Waiter(Runnable task, long deadline, Consumer<Throwable> onError) {
+            this.task = task;
+            this.deadline = deadline;
+            this.onError = onError;
+        }
+
+        private boolean hasExpired() {
+            return System.currentTimeMillis() > deadline;
+        }
+
+        private void expire() {
+            expired.incrementAndGet();
+            onError.accept(deadlineExceeded());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package io.vertx.guides.wiki.database;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * A daily time window, such as {@code 02:00}-{@code 05:00}, which may span midnight as in {@code 23:00}-{@code 01:00}.
+ */
+final class MaintenanceWindow {
+
+    private final LocalTime start;
+    private final LocalTime end;
+
+    MaintenanceWindow(LocalTime start, LocalTime end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    static MaintenanceWindow parse(String start, String end) {
+        return new MaintenanceWindow(LocalTime.parse(start), LocalTime.parse(end));
+    }
+
+    boolean contains(LocalDateTime time) {
+        LocalTime t = time.toLocalTime();
+        if (start.isBefore(end)) {
+            return !t.isBefore(start) && t.isBefore(end);
+        }
+        return !t.isBefore(start) || t.isBefore(end);
+    }
+
+    /**
+     * The day on which the occurrence of the window that contains {@code time} began.
+     */
+    LocalDate occurrence(LocalDateTime time) {
+        LocalDate day = time.toLocalDate();
+        return time.toLocalTime().isBefore(start) ? day.minusDays(1) : day;
+    }
+
+    @Override
+    public String toString() {
+        return start + "-" + end;
+    }
+}
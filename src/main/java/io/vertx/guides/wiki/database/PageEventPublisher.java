@@ -0,0 +1,42 @@
+package io.vertx.guides.wiki.database;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.UUID;
+
+/**
+ * Publishes the {@link PageEvents} of one database service instance, numbered in sequence, and a periodic heartbeat
+ * carrying the last sequence number.
+ * <p>
+ * Event bus publications are delivered at most once: a node that was cut from the cluster for a while silently misses
+ * the events published meanwhile. The numbering lets the nodes notice the gap, from the next event or heartbeat, and
+ * the {@code origin} lets them notice that another database service instance took over.
+ */
+public class PageEventPublisher {
+
+    private final Vertx vertx;
+    private final String origin = UUID.randomUUID().toString();
+    private long sequence;
+
+    PageEventPublisher(Vertx vertx) {
+        this.vertx = vertx;
+    }
+
+    synchronized void publish(String type, Integer id, String name, JsonArray links) {
+        vertx.eventBus().publish(PageEvents.ADDRESS, new JsonObject()
+            .put("type", type)
+            .put("id", id)
+            .put("name", name)
+            .put("links", links)
+            .put("origin", origin)
+            .put("sequence", ++sequence));
+    }
+
+    synchronized void heartbeat() {
+        vertx.eventBus().publish(PageEvents.HEARTBEAT_ADDRESS, new JsonObject()
+            .put("origin", origin)
+            .put("sequence", sequence));
+    }
+}
@@ -0,0 +1,22 @@
+package io.vertx.guides.wiki.database;
+
+/**
+ * Notifications published by the database service after a page mutation has been committed.
+ * <p>
+ * Each event is a {@code JsonObject} with a {@code type}, the page {@code name} and, when known, its {@code id}, along
+ * with the {@code origin} and {@code sequence} number that tell whether events were missed. Creations and saves also
+ * list the {@code links} targets that gained or lost a backlink from the page. Heartbeats with the last
+ * {@code origin} and {@code sequence} are published on {@link #HEARTBEAT_ADDRESS}.
+ */
+public final class PageEvents {
+
+    public static final String ADDRESS = "wiki.page.events";
+    public static final String HEARTBEAT_ADDRESS = "wiki.page.events.heartbeat";
+
+    public static final String CREATED = "created";
+    public static final String SAVED = "saved";
+    public static final String DELETED = "deleted";
+
+    private PageEvents() {
+    }
+}
@@ -0,0 +1,127 @@
+package io.vertx.guides.wiki.database;
+
+import io.reactivex.Completable;
+import io.reactivex.CompletableEmitter;
+import io.reactivex.Flowable;
+import io.reactivex.FlowableSubscriber;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends {@code Id, Name, Content} rows to a {@link PageStreams} consumer, requesting rows from the database only as
+ * fast as the consumer grants credits.
+ */
+class PageStreamSender implements FlowableSubscriber<JsonArray> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PageStreamSender.class);
+
+    private final Vertx vertx;
+    private final String address;
+    private final int initialCredits;
+    private final long idleTimeout;
+
+    private CompletableEmitter emitter;
+    private Subscription subscription;
+    private MessageConsumer<Integer> creditsConsumer;
+    private long credits;
+    private long idleTimer = -1;
+    private boolean done;
+
+    private PageStreamSender(Vertx vertx, String address, int initialCredits, long idleTimeout) {
+        this.vertx = vertx;
+        this.address = address;
+        this.initialCredits = initialCredits;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Streams {@code rows} to {@code address}; completes once the stream has ended or has been cancelled.
+     */
+    static Completable send(Vertx vertx, String address, int initialCredits, long idleTimeout, Flowable<JsonArray> rows) {
+        return Completable.create(emitter -> {
+            PageStreamSender sender = new PageStreamSender(vertx, address, initialCredits, idleTimeout);
+            sender.emitter = emitter;
+            rows.subscribe(sender);
+        });
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        this.subscription = subscription;
+        creditsConsumer = vertx.eventBus().consumer(address + PageStreams.CREDITS_SUFFIX, message -> {
+            int granted = message.body();
+            if (granted == PageStreams.CANCEL) {
+                LOGGER.debug("Page stream {} cancelled by the consumer", address);
+                subscription.cancel();
+                finish(null);
+            } else {
+                grant(granted);
+            }
+        });
+        grant(initialCredits);
+    }
+
+    @Override
+    public void onNext(JsonArray row) {
+        credits--;
+        vertx.eventBus().send(address, new JsonObject()
+            .put("id", row.getInteger(0))
+            .put("name", row.getString(1))
+            .put("markdown", row.getString(2)));
+        if (credits == 0) {
+            armIdleTimer();
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        LOGGER.error("Page stream {} failed", address, t);
+        vertx.eventBus().send(address, null,
+            new DeliveryOptions().addHeader(PageStreams.HEADER_EVENT, PageStreams.EVENT_ERROR));
+        finish(t);
+    }
+
+    @Override
+    public void onComplete() {
+        vertx.eventBus().send(address, null,
+            new DeliveryOptions().addHeader(PageStreams.HEADER_EVENT, PageStreams.EVENT_END));
+        finish(null);
+    }
+
+    private void grant(int granted) {
+        if (done || granted <= 0) {
+            return;
+        }
+        vertx.cancelTimer(idleTimer);
+        credits += granted;
+        subscription.request(granted);
+    }
+
+    private void armIdleTimer() {
+        idleTimer = vertx.setTimer(idleTimeout, id -> {
+            LOGGER.warn("Page stream {} received no credits for {} ms, cancelling", address, idleTimeout);
+            subscription.cancel();
+            finish(null);
+        });
+    }
+
+    private void finish(Throwable failure) {
+        if (done) {
+            return;
+        }
+        done = true;
+        vertx.cancelTimer(idleTimer);
+        creditsConsumer.unregister();
+        if (failure == null) {
+            emitter.onComplete();
+        } else {
+            emitter.onError(failure);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package io.vertx.guides.wiki.database;
+
+/**
+ * Event-bus protocol used to stream pages out of the database service.
+ * <p>
+ * The consumer registers a handler on a private address and calls
+ * {@link WikiDatabaseService#exportPages(String, int, io.vertx.core.Handler)} with an initial number of credits.
+ * Every page is sent as a {@code JsonObject} to that address and consumes one credit. More credits are granted by
+ * sending a positive {@code Integer} to {@code address + CREDITS_SUFFIX}; a negative value cancels the stream. The
+ * stream is terminated by an empty message whose {@link #HEADER_EVENT} header is {@link #EVENT_END} or
+ * {@link #EVENT_ERROR}.
+ */
+public final class PageStreams {
+
+    public static final String CREDITS_SUFFIX = ".credits";
+    public static final String HEADER_EVENT = "event";
+    public static final String EVENT_END = "end";
+    public static final String EVENT_ERROR = "error";
+    public static final int CANCEL = -1;
+
+    private PageStreams() {
+    }
+}
@@ -2,11 +2,36 @@ package io.vertx.guides.wiki.database;
 
 public enum SqlQuery {
     CREATE_PAGES_TABLE,
+    CREATE_LINKS_TABLE,
+    CREATE_LINKS_INDEX,
+    CREATE_ATTACHMENTS_TABLE,
+    CREATE_ATTACHMENTS_INDEX,
+    CREATE_MIGRATIONS_TABLE,
     ALL_PAGES,
     ALL_PAGES_DATA,
+    ALL_PAGES_SUMMARY,
     GET_PAGE,
     GET_PAGE_BY_ID,
+    GET_PAGES_BY_IDS,
     CREATE_PAGE,
     SAVE_PAGE,
-    DELETE_PAGE
+    LOCK_PAGE,
+    DELETE_PAGE,
+    EXPORT_PAGES_AFTER,
+    IMPORT_PAGE,
+    GET_PAGE_ID,
+    GET_PAGE_NAME,
+    GET_LINKS,
+    INSERT_LINK,
+    DELETE_LINK,
+    DELETE_ALL_LINKS,
+    GET_BACKLINKS,
+    INSERT_ATTACHMENT,
+    GET_ATTACHMENTS,
+    GET_ATTACHMENT_BY_HASH,
+    GET_ATTACHMENT_HASH,
+    DELETE_ATTACHMENT,
+    COUNT_ATTACHMENTS_BY_HASH,
+    COUNT_MIGRATIONS,
+    INSERT_MIGRATION
 }
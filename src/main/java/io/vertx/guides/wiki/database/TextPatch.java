@@ -0,0 +1,89 @@
+package io.vertx.guides.wiki.database;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A text diff against a given version of a page, as a list of edits.
+ * <p>
+ * Each edit is a JSON object {@code {"offset": 120, "delete": 3, "insert": "new text"}} replacing {@code delete}
+ * characters at {@code offset} with {@code insert}, where either part may be omitted. Offsets count UTF-16 code units,
+ * like JavaScript and Java string indices, and all refer to the base text: edits come in ascending order and do not
+ * overlap.
+ * <p>
+ * The version of a text is a hash of its content, so it needs no storage and any client that has the text can tell
+ * its version.
+ */
+public final class TextPatch {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private TextPatch() {
+    }
+
+    public static String version(String text) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            char[] chars = new char[hash.length * 2];
+            for (int i = 0; i < hash.length; i++) {
+                chars[2 * i] = HEX[(hash[i] >> 4) & 0xf];
+                chars[2 * i + 1] = HEX[hash[i] & 0xf];
+            }
+            return new String(chars);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Applies {@code edits} to {@code base}, failing with an {@link IllegalArgumentException} on an edit that is
+     * malformed, out of the base text or out of order.
+     */
+    public static String apply(String base, JsonArray edits) {
+        int inserted = 0;
+        for (Object edit : edits) {
+            if (!(edit instanceof JsonObject)) {
+                throw new IllegalArgumentException("Each edit must be an object");
+            }
+            inserted += insert((JsonObject) edit).length();
+        }
+        StringBuilder patched = new StringBuilder(base.length() + inserted);
+        int position = 0;
+        for (Object item : edits) {
+            JsonObject edit = (JsonObject) item;
+            int offset = integer(edit, "offset");
+            int delete = integer(edit, "delete");
+            if (offset < position) {
+                throw new IllegalArgumentException("The edit at " + offset + " overlaps or precedes the previous one");
+            }
+            if (offset + (long) delete > base.length()) {
+                throw new IllegalArgumentException("The edit at " + offset + " goes past the end of the base text");
+            }
+            patched.append(base, position, offset).append(insert(edit));
+            position = offset + delete;
+        }
+        return patched.append(base, position, base.length()).toString();
+    }
+
+    private static int integer(JsonObject edit, String key) {
+        Object value = edit.getValue(key, 0);
+        // Streaming JSON parsers decode integers as longs
+        if (!(value instanceof Integer || value instanceof Long)
+            || ((Number) value).longValue() < 0 || ((Number) value).longValue() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The " + key + " of an edit must be a non-negative integer");
+        }
+        return ((Number) value).intValue();
+    }
+
+    private static String insert(JsonObject edit) {
+        Object value = edit.getValue("insert", "");
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException("The insert of an edit must be a string");
+        }
+        return (String) value;
+    }
+}
@@ -7,9 +7,9 @@ import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
-import io.vertx.ext.jdbc.JDBCClient;
 
 import java.util.List;
 import java.util.Map;
@@ -24,24 +24,94 @@ public interface WikiDatabaseService {
     @Fluent
     WikiDatabaseService fetchAllPagesData(Handler<AsyncResult<List<JsonObject>>> resultHandler);
 
+    /**
+     * Returns the id and name of every page as an encoded JSON array, serialized straight from the rows.
+     */
+    @Fluent
+    WikiDatabaseService fetchAllPagesJson(Handler<AsyncResult<String>> resultHandler);
+
     @Fluent
     WikiDatabaseService fetchPage(String name, Handler<AsyncResult<JsonObject>> resultHandler);
 
     @Fluent
     WikiDatabaseService fetchPageById(int id, Handler<AsyncResult<JsonObject>> resultHandler);
 
+    /**
+     * Looks up several pages at once, returning for each of the {@code ids}, in the same order, what
+     * {@link #fetchPageById} would.
+     */
+    @Fluent
+    WikiDatabaseService fetchPagesByIds(JsonArray ids, Handler<AsyncResult<JsonArray>> resultHandler);
+
     @Fluent
     WikiDatabaseService createPage(String title, String markdown, Handler<AsyncResult<Void>> resultHandler);
 
+    /**
+     * Replaces the markdown of page {@code id}, failing with the {@code PAGE_NOT_FOUND} error code when there is no
+     * such page.
+     */
     @Fluent
     WikiDatabaseService savePage(int id, String markdown, Handler<AsyncResult<Void>> resultHandler);
 
+    /**
+     * Applies the {@link TextPatch} {@code edits} to page {@code id} if its content is still at {@code baseVersion},
+     * returning {@code found}, and either the new {@code version} of the page, or {@code conflict} with its current
+     * version, or an {@code error} when the edits do not apply to the base text.
+     */
+    @Fluent
+    WikiDatabaseService patchPage(int id, String baseVersion, JsonArray edits, Handler<AsyncResult<JsonObject>> resultHandler);
+
     @Fluent
     WikiDatabaseService deletePage(int id, Handler<AsyncResult<Void>> resultHandler);
 
+    /**
+     * Returns the sorted names of the pages that link to page {@code name}.
+     */
+    @Fluent
+    WikiDatabaseService fetchBacklinks(String name, Handler<AsyncResult<JsonArray>> resultHandler);
+
+    /**
+     * Streams every page to {@code address} following the {@link PageStreams} protocol. The handler is called once
+     * the first pages have been read, not when the stream ends.
+     */
+    @Fluent
+    WikiDatabaseService exportPages(String address, int credits, Handler<AsyncResult<Void>> resultHandler);
+
+    /**
+     * Creates or replaces the given {@code name}/{@code markdown} pages in a single transaction.
+     */
+    @Fluent
+    WikiDatabaseService importPages(JsonArray pages, Handler<AsyncResult<Integer>> resultHandler);
+
+    /**
+     * Records an attachment of page {@code pageId} whose content is stored under {@code hash}, and returns its
+     * metadata, or {@code {"found": false}} when the page does not exist.
+     */
+    @Fluent
+    WikiDatabaseService saveAttachment(int pageId, String name, String hash, String mediaType, long size, Handler<AsyncResult<JsonObject>> resultHandler);
+
+    @Fluent
+    WikiDatabaseService fetchAttachments(int pageId, Handler<AsyncResult<JsonArray>> resultHandler);
+
+    /**
+     * Returns the {@code mediaType} and {@code size} of the content stored under {@code hash}, if any attachment has it.
+     */
+    @Fluent
+    WikiDatabaseService fetchAttachment(String hash, Handler<AsyncResult<JsonObject>> resultHandler);
+
+    /**
+     * Deletes an attachment and returns its {@code hash} with the number of {@code references} left to that content,
+     * or {@code {"found": false}}.
+     */
+    @Fluent
+    WikiDatabaseService deleteAttachment(int id, Handler<AsyncResult<JsonObject>> resultHandler);
+
+    @Fluent
+    WikiDatabaseService fetchMetrics(Handler<AsyncResult<JsonObject>> resultHandler);
+
     @GenIgnore
-    static WikiDatabaseService create(JDBCClient dbClient, Map<SqlQuery, String> sqlQueries, Handler<AsyncResult<WikiDatabaseService>> readyHandler) {
-        return new WikiDatabaseServiceImpl(dbClient, sqlQueries, readyHandler);
+    static WikiDatabaseService create(Vertx vertx, JdbcPool readPool, JdbcPool writePool, DatabaseMaintenance maintenance, PageEventPublisher events, Map<SqlQuery, String> sqlQueries, Handler<AsyncResult<WikiDatabaseService>> readyHandler) {
+        return new WikiDatabaseServiceImpl(vertx, readPool, writePool, maintenance, events, sqlQueries, readyHandler);
     }
 
     @GenIgnore
@@ -49,4 +119,9 @@ public interface WikiDatabaseService {
         return new WikiDatabaseServiceVertxEBProxy(vertx, address);
     }
 
+    @GenIgnore
+    static WikiDatabaseService createProxy(Vertx vertx, String address, DeliveryOptions options) {
+        return new WikiDatabaseServiceVertxEBProxy(vertx, address, options);
+    }
+
 }
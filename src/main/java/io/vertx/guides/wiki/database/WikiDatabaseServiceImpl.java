@@ -1,48 +1,80 @@
 package io.vertx.guides.wiki.database;
 
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
 import io.reactivex.Single;
+import io.reactivex.processors.UnicastProcessor;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.sql.ResultSet;
+import io.vertx.guides.wiki.json.JsonWriter;
 import io.vertx.reactivex.CompletableHelper;
-import io.vertx.reactivex.MaybeHelper;
 import io.vertx.reactivex.SingleHelper;
-import io.vertx.reactivex.ext.jdbc.JDBCClient;
 import io.vertx.reactivex.ext.sql.SQLClientHelper;
+import io.vertx.reactivex.ext.sql.SQLConnection;
+import io.vertx.serviceproxy.ServiceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class WikiDatabaseServiceImpl implements WikiDatabaseService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WikiDatabaseServiceImpl.class);
 
+    private static final long EXPORT_IDLE_TIMEOUT = 60_000;
+    private static final int EXPORT_BATCH_SIZE = 100;
+    private static final int MAX_IN_LIST_SIZE = 256;
+    private static final String LINKS_MIGRATION = "links-backfill";
+
+    private final Vertx vertx;
     private final Map<SqlQuery, String> sqlQueries;
-    private final JDBCClient dbClient;
+    private final JdbcPool readPool;
+    private final JdbcPool writePool;
+    private final DatabaseMaintenance maintenance;
+    private final PageEventPublisher events;
 
-    public WikiDatabaseServiceImpl(io.vertx.ext.jdbc.JDBCClient dbClient,
+    public WikiDatabaseServiceImpl(Vertx vertx,
+                                   JdbcPool readPool,
+                                   JdbcPool writePool,
+                                   DatabaseMaintenance maintenance,
+                                   PageEventPublisher events,
                                    Map<SqlQuery, String> sqlQueries,
                                    Handler<AsyncResult<WikiDatabaseService>> readyHandler) {
+        this.vertx = vertx;
         this.sqlQueries = sqlQueries;
-        this.dbClient = new JDBCClient(dbClient);
+        this.readPool = readPool;
+        this.writePool = writePool;
+        this.maintenance = maintenance;
+        this.events = events;
 
-        SQLClientHelper.usingConnectionSingle(this.dbClient,
+        writePool.rxSingle(client -> SQLClientHelper.usingConnectionSingle(client,
             conn -> conn
                 .rxExecute(sqlQueries.get(SqlQuery.CREATE_PAGES_TABLE))
+                .andThen(conn.rxExecute(sqlQueries.get(SqlQuery.CREATE_LINKS_TABLE)))
+                .andThen(conn.rxExecute(sqlQueries.get(SqlQuery.CREATE_LINKS_INDEX)))
+                .andThen(conn.rxExecute(sqlQueries.get(SqlQuery.CREATE_ATTACHMENTS_TABLE)))
+                .andThen(conn.rxExecute(sqlQueries.get(SqlQuery.CREATE_ATTACHMENTS_INDEX)))
+                .andThen(conn.rxExecute(sqlQueries.get(SqlQuery.CREATE_MIGRATIONS_TABLE)))
+                .andThen(migrate(conn, LINKS_MIGRATION, backfillLinks(conn, -1)))
                 .doOnComplete(() -> LOGGER.info("Database successfully prepared"))
                 .doOnError(e -> LOGGER.error("Database preparation error", e))
-                .andThen(Single.just(this)))
+                .andThen(Single.just((WikiDatabaseService) this))))
             .subscribe(SingleHelper.toObserver(readyHandler));
     }
 
     @Override
     public WikiDatabaseService fetchAllPages(Handler<AsyncResult<JsonArray>> resultHandler) {
-        dbClient.rxQuery(sqlQueries.get(SqlQuery.ALL_PAGES))
+        query(SqlQuery.ALL_PAGES, new JsonArray())
             .map(rs -> new JsonArray(rs.getResults()
                 .stream()
                 .map(json -> json.getString(0))
@@ -55,17 +87,34 @@ public class WikiDatabaseServiceImpl implements WikiDatabaseService {
 
     @Override
     public WikiDatabaseService fetchAllPagesData(Handler<AsyncResult<List<JsonObject>>> resultHandler) {
-        dbClient.rxQuery(sqlQueries.get(SqlQuery.ALL_PAGES_DATA))
+        query(SqlQuery.ALL_PAGES_DATA, new JsonArray())
             .map(ResultSet::getRows)
             .subscribe(SingleHelper.toObserver(resultHandler));
         return this;
     }
 
+    @Override
+    public WikiDatabaseService fetchAllPagesJson(Handler<AsyncResult<String>> resultHandler) {
+        readPool.rxSingle(client -> SQLClientHelper.usingConnectionSingle(client,
+            conn -> conn
+                .rxQueryStream(sqlQueries.get(SqlQuery.ALL_PAGES_SUMMARY))
+                .flatMap(stream -> stream.toFlowable()
+                    .collect(() -> JsonWriter.toText(4096).beginArray(), (json, row) -> json
+                        .beginObject()
+                        .name("id").value(row.getInteger(0))
+                        .name("name").value(row.getString(1))
+                        .endObject()))))
+            .map(json -> json.endArray().toText())
+            .doOnError(e -> LOGGER.error("Database query error", e))
+            .subscribe(SingleHelper.toObserver(resultHandler));
+        return this;
+    }
+
     @Override
     public WikiDatabaseService fetchPage(String name, Handler<AsyncResult<JsonObject>> resultHandler) {
         JsonArray params = new JsonArray().add(name);
 
-        dbClient.rxQueryWithParams(sqlQueries.get(SqlQuery.GET_PAGE), params)
+        query(SqlQuery.GET_PAGE, params)
             .map(rs -> {
                 JsonObject response = new JsonObject();
                 if (rs.getNumRows() == 0) {
@@ -87,32 +136,72 @@ public class WikiDatabaseServiceImpl implements WikiDatabaseService {
     public WikiDatabaseService fetchPageById(int id, Handler<AsyncResult<JsonObject>> resultHandler) {
         JsonArray params = new JsonArray().add(id);
 
-        dbClient.rxQuerySingleWithParams(sqlQueries.get(SqlQuery.GET_PAGE_BY_ID), params)
-            .map(row -> {
-                JsonObject response = new JsonObject();
-                if (row == null) {
-                    response.put("found", false);
-                } else {
-                    response.put("found", true);
-                    response.put("id", id);
-                    response.put("id", row.getInteger(0));
-                    response.put("name", row.getString(1));
-                    response.put("content", row.getString(2));
+        query(SqlQuery.GET_PAGE_BY_ID, params)
+            .map(rs -> rs.getNumRows() == 0 ? new JsonObject().put("found", false) : page(rs.getResults().get(0)))
+            .doOnError(e -> LOGGER.error("Database query error", e))
+            .subscribe(SingleHelper.toObserver(resultHandler));
+        return this;
+    }
+
+    @Override
+    public WikiDatabaseService fetchPagesByIds(JsonArray ids, Handler<AsyncResult<JsonArray>> resultHandler) {
+        List<Integer> distinct = ids.stream()
+            .map(id -> ((Number) id).intValue())
+            .distinct()
+            .collect(Collectors.toList());
+
+        Flowable.fromIterable(distinct)
+            .buffer(MAX_IN_LIST_SIZE)
+            .concatMapSingle(this::queryPagesByIds)
+            .flatMapIterable(ResultSet::getResults)
+            .toMap(row -> row.getInteger(0), this::page)
+            .map(pages -> {
+                JsonArray response = new JsonArray();
+                for (Object id : ids) {
+                    JsonObject page = pages.get(((Number) id).intValue());
+                    response.add(page != null ? page : new JsonObject().put("found", false));
                 }
                 return response;
             })
             .doOnError(e -> LOGGER.error("Database query error", e))
-            .subscribe(MaybeHelper.toObserver(resultHandler));
+            .subscribe(SingleHelper.toObserver(resultHandler));
         return this;
     }
 
+    /**
+     * Looks {@code ids} up with a single {@code in} list, padded with its first id to a power of two so that a
+     * handful of statements cover every batch size and stay in the statement cache.
+     */
+    private Single<ResultSet> queryPagesByIds(List<Integer> ids) {
+        int size = Integer.highestOneBit(ids.size() - 1) << 1;
+        JsonArray params = new JsonArray();
+        for (int i = 0; i < Math.max(1, size); i++) {
+            params.add(i < ids.size() ? ids.get(i) : ids.get(0));
+        }
+        String placeholders = String.join(", ", Collections.nCopies(params.size(), "?"));
+        return readPool.rxQuery(SqlQuery.GET_PAGES_BY_IDS,
+            String.format(sqlQueries.get(SqlQuery.GET_PAGES_BY_IDS), placeholders), params);
+    }
+
+    private JsonObject page(JsonArray row) {
+        return new JsonObject()
+            .put("found", true)
+            .put("id", row.getInteger(0))
+            .put("name", row.getString(1))
+            .put("content", row.getString(2));
+    }
+
     @Override
     public WikiDatabaseService createPage(String title, String markdown, Handler<AsyncResult<Void>> resultHandler) {
         JsonArray data = new JsonArray()
             .add(title)
             .add(markdown);
 
-        dbClient.rxUpdateWithParams(sqlQueries.get(SqlQuery.CREATE_PAGE), data)
+        writePool.rxSingle(client -> SQLClientHelper.inTransactionSingle(client,
+            conn -> conn.rxUpdateWithParams(sqlQueries.get(SqlQuery.CREATE_PAGE), data)
+                .ignoreElement()
+                .andThen(updateLinks(conn, title, markdown))))
+            .doOnSuccess(links -> publish(PageEvents.CREATED, null, title, links))
             .ignoreElement()
             .doOnError(e -> LOGGER.error("Database update error", e))
             .subscribe(CompletableHelper.toObserver(resultHandler));
@@ -125,21 +214,355 @@ public class WikiDatabaseServiceImpl implements WikiDatabaseService {
             .add(markdown)
             .add(id);
 
-        dbClient.rxUpdateWithParams(sqlQueries.get(SqlQuery.SAVE_PAGE), data)
+        // The update locks the page row, if there is one, before its links are touched
+        writePool.rxMaybe(client -> SQLClientHelper.inTransactionMaybe(client,
+            conn -> conn.rxUpdateWithParams(sqlQueries.get(SqlQuery.SAVE_PAGE), data)
+                .filter(result -> result.getUpdated() > 0)
+                .flatMap(saved -> updateLinks(conn, id, markdown)
+                    .flatMapMaybe(links -> pageName(conn, id)
+                        .map(name -> new JsonObject().put("name", name).put("links", links))))))
+            .switchIfEmpty(Single.error(new ServiceException(ErrorCodes.PAGE_NOT_FOUND.ordinal(),
+                "There is no page with ID " + id)))
+            .doOnSuccess(saved -> publish(PageEvents.SAVED, id, saved.getString("name"), saved.getJsonArray("links")))
             .ignoreElement()
             .doOnError(e -> LOGGER.error("Database update error", e))
             .subscribe(CompletableHelper.toObserver(resultHandler));
         return this;
     }
 
+    /**
+     * Takes the write lock of the page row before reading it, so that concurrent patches to the same base version are
+     * applied one after the other and all but the first see a conflict.
+     */
+    @Override
+    public WikiDatabaseService patchPage(int id, String baseVersion, JsonArray edits,
+                                         Handler<AsyncResult<JsonObject>> resultHandler) {
+        JsonArray params = new JsonArray().add(id);
+
+        writePool.rxSingle(client -> SQLClientHelper.inTransactionSingle(client,
+            conn -> conn.rxUpdateWithParams(sqlQueries.get(SqlQuery.LOCK_PAGE), params)
+                .filter(result -> result.getUpdated() > 0)
+                .flatMap(locked -> conn.rxQuerySingleWithParams(sqlQueries.get(SqlQuery.GET_PAGE_BY_ID), params))
+                .flatMapSingleElement(row -> {
+                    String content = row.getString(2);
+                    String version = TextPatch.version(content);
+                    if (!version.equals(baseVersion)) {
+                        return Single.just(new JsonObject()
+                            .put("found", true)
+                            .put("conflict", true)
+                            .put("version", version));
+                    }
+                    String patched;
+                    try {
+                        patched = TextPatch.apply(content, edits);
+                    } catch (IllegalArgumentException e) {
+                        return Single.just(new JsonObject()
+                            .put("found", true)
+                            .put("error", e.getMessage()));
+                    }
+                    return conn.rxUpdateWithParams(sqlQueries.get(SqlQuery.SAVE_PAGE), new JsonArray().add(patched).add(id))
+                        .ignoreElement()
+                        .andThen(updateLinks(conn, id, patched))
+                        .map(links -> new JsonObject()
+                            .put("found", true)
+                            .put("conflict", false)
+                            .put("name", row.getString(1))
+                            .put("links", links)
+                            .put("version", TextPatch.version(patched)));
+                })
+                .toSingle(new JsonObject().put("found", false))))
+            .doOnSuccess(result -> {
+                if (result.containsKey("name")) {
+                    publish(PageEvents.SAVED, id, (String) result.remove("name"), (JsonArray) result.remove("links"));
+                }
+            })
+            .doOnError(e -> LOGGER.error("Database update error", e))
+            .subscribe(SingleHelper.toObserver(resultHandler));
+        return this;
+    }
+
     @Override
     public WikiDatabaseService deletePage(int id, Handler<AsyncResult<Void>> resultHandler) {
         JsonArray data = new JsonArray().add(id);
 
-        dbClient.rxUpdateWithParams(sqlQueries.get(SqlQuery.DELETE_PAGE), data)
+        writePool.rxMaybe(client -> SQLClientHelper.inTransactionMaybe(client,
+            conn -> pageName(conn, id)
+                .flatMap(name -> conn.rxUpdateWithParams(sqlQueries.get(SqlQuery.DELETE_PAGE), data)
+                    .map(result -> name)
+                    .toMaybe())))
+            .doOnSuccess(name -> publish(PageEvents.DELETED, id, name, null))
             .ignoreElement()
             .doOnError(e -> LOGGER.error("Database update error", e))
             .subscribe(CompletableHelper.toObserver(resultHandler));
         return this;
     }
+
+    @Override
+    public WikiDatabaseService fetchBacklinks(String name, Handler<AsyncResult<JsonArray>> resultHandler) {
+        JsonArray params = new JsonArray().add(name);
+
+        query(SqlQuery.GET_BACKLINKS, params)
+            .map(rs -> new JsonArray(rs.getResults()
+                .stream()
+                .map(row -> row.getString(0))
+                .collect(Collectors.toList())))
+            .doOnError(e -> LOGGER.error("Database query error", e))
+            .subscribe(SingleHelper.toObserver(resultHandler));
+        return this;
+    }
+
+    @Override
+    public WikiDatabaseService exportPages(String address, int credits, Handler<AsyncResult<Void>> resultHandler) {
+        exportBatch(-1)
+            .doOnSuccess(batch -> resultHandler.handle(Future.succeededFuture()))
+            .doOnError(e -> resultHandler.handle(Future.failedFuture(e)))
+            .flatMapCompletable(first -> PageStreamSender
+                .send(vertx, address, credits, EXPORT_IDLE_TIMEOUT, exportRows(first)))
+            .subscribe(() -> LOGGER.debug("Page export to {} finished", address),
+                e -> LOGGER.error("Page export error", e));
+        return this;
+    }
+
+    /**
+     * The pages following the {@code first} batch, read one batch ahead of the consumer with keyset pagination.
+     * <p>
+     * Unlike a JDBC row stream, this holds no connection while the consumer is slow, and it does not depend on the row
+     * stream honouring every change of demand: under credit-based flow control the row stream of the JDBC client
+     * could stop delivering rows for good, pinning its connection.
+     */
+    private Flowable<JsonArray> exportRows(List<JsonArray> first) {
+        UnicastProcessor<Integer> cursors = UnicastProcessor.create();
+        return Flowable.just(first)
+            .concatWith(cursors.concatMapSingle(this::exportBatch))
+            .doOnNext(batch -> {
+                if (batch.size() < EXPORT_BATCH_SIZE) {
+                    cursors.onComplete();
+                } else {
+                    cursors.onNext(batch.get(batch.size() - 1).getInteger(0));
+                }
+            })
+            .concatMapIterable(batch -> batch, 1);
+    }
+
+    private Single<List<JsonArray>> exportBatch(int afterId) {
+        return query(SqlQuery.EXPORT_PAGES_AFTER, new JsonArray().add(afterId).add(EXPORT_BATCH_SIZE))
+            .map(ResultSet::getResults);
+    }
+
+    @Override
+    public WikiDatabaseService importPages(JsonArray pages, Handler<AsyncResult<Integer>> resultHandler) {
+        List<JsonArray> batch = pages.stream()
+            .map(JsonObject.class::cast)
+            .map(page -> new JsonArray()
+                .add(page.getString("name"))
+                .add(page.getString("markdown")))
+            .collect(Collectors.toList());
+
+        writePool.rxSingle(client -> SQLClientHelper.inTransactionSingle(client,
+            conn -> conn.rxBatchWithParams(sqlQueries.get(SqlQuery.IMPORT_PAGE), batch)
+                .flatMap(counts -> Flowable.fromIterable(batch)
+                    .concatMapSingle(page -> updateLinks(conn, page.getString(0), page.getString(1)))
+                    .toList())))
+            .doOnSuccess(links -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    publish(PageEvents.SAVED, null, batch.get(i).getString(0), links.get(i));
+                }
+            })
+            .map(List::size)
+            .doOnError(e -> LOGGER.error("Database import error", e))
+            .subscribe(SingleHelper.toObserver(resultHandler));
+        return this;
+    }
+
+    @Override
+    public WikiDatabaseService saveAttachment(int pageId, String name, String hash, String mediaType, long size,
+                                              Handler<AsyncResult<JsonObject>> resultHandler) {
+        JsonArray data = new JsonArray()
+            .add(pageId)
+            .add(name)
+            .add(hash)
+            .add(mediaType)
+            .add(size);
+
+        writePool.rxMaybe(client -> SQLClientHelper.inTransactionMaybe(client,
+            conn -> pageName(conn, pageId)
+                .flatMap(page -> conn.rxUpdateWithParams(sqlQueries.get(SqlQuery.INSERT_ATTACHMENT), data)
+                    .map(result -> new JsonObject()
+                        .put("found", true)
+                        .put("id", result.getKeys().getInteger(0))
+                        .put("pageId", pageId)
+                        .put("name", name)
+                        .put("hash", hash)
+                        .put("mediaType", mediaType)
+                        .put("size", size))
+                    .toMaybe())))
+            .toSingle(new JsonObject().put("found", false))
+            .doOnError(e -> LOGGER.error("Database update error", e))
+            .subscribe(SingleHelper.toObserver(resultHandler));
+        return this;
+    }
+
+    @Override
+    public WikiDatabaseService fetchAttachments(int pageId, Handler<AsyncResult<JsonArray>> resultHandler) {
+        query(SqlQuery.GET_ATTACHMENTS, new JsonArray().add(pageId))
+            .map(rs -> new JsonArray(rs.getResults()
+                .stream()
+                .map(row -> new JsonObject()
+                    .put("id", row.getInteger(0))
+                    .put("name", row.getString(1))
+                    .put("hash", row.getString(2))
+                    .put("mediaType", row.getString(3))
+                    .put("size", row.getLong(4)))
+                .collect(Collectors.toList())))
+            .doOnError(e -> LOGGER.error("Database query error", e))
+            .subscribe(SingleHelper.toObserver(resultHandler));
+        return this;
+    }
+
+    @Override
+    public WikiDatabaseService fetchAttachment(String hash, Handler<AsyncResult<JsonObject>> resultHandler) {
+        query(SqlQuery.GET_ATTACHMENT_BY_HASH, new JsonArray().add(hash))
+            .map(rs -> {
+                JsonObject response = new JsonObject();
+                if (rs.getNumRows() == 0) {
+                    response.put("found", false);
+                } else {
+                    JsonArray row = rs.getResults().get(0);
+                    response.put("found", true);
+                    response.put("mediaType", row.getString(0));
+                    response.put("size", row.getLong(1));
+                }
+                return response;
+            })
+            .doOnError(e -> LOGGER.error("Database query error", e))
+            .subscribe(SingleHelper.toObserver(resultHandler));
+        return this;
+    }
+
+    @Override
+    public WikiDatabaseService deleteAttachment(int id, Handler<AsyncResult<JsonObject>> resultHandler) {
+        JsonArray data = new JsonArray().add(id);
+
+        writePool.rxMaybe(client -> SQLClientHelper.inTransactionMaybe(client,
+            conn -> conn.rxQuerySingleWithParams(sqlQueries.get(SqlQuery.GET_ATTACHMENT_HASH), data)
+                .map(row -> row.getString(0))
+                .flatMap(hash -> conn.rxUpdateWithParams(sqlQueries.get(SqlQuery.DELETE_ATTACHMENT), data)
+                    .flatMap(result -> conn.rxQuerySingleWithParams(sqlQueries.get(SqlQuery.COUNT_ATTACHMENTS_BY_HASH),
+                        new JsonArray().add(hash)).toSingle())
+                    .map(row -> new JsonObject()
+                        .put("found", true)
+                        .put("hash", hash)
+                        .put("references", row.getLong(0)))
+                    .toMaybe())))
+            .toSingle(new JsonObject().put("found", false))
+            .doOnError(e -> LOGGER.error("Database update error", e))
+            .subscribe(SingleHelper.toObserver(resultHandler));
+        return this;
+    }
+
+    @Override
+    public WikiDatabaseService fetchMetrics(Handler<AsyncResult<JsonObject>> resultHandler) {
+        JsonObject pools = new JsonObject()
+            .put(readPool.name(), readPool.metrics())
+            .put(writePool.name(), writePool.metrics());
+        resultHandler.handle(Future.succeededFuture(new JsonObject()
+            .put("pools", pools)
+            .put("maintenance", maintenance.metrics())));
+        return this;
+    }
+
+    private void publish(String type, Integer id, String name, JsonArray links) {
+        events.publish(type, id, name, links);
+    }
+
+    private Single<ResultSet> query(SqlQuery query, JsonArray params) {
+        return readPool.rxQuery(query, sqlQueries.get(query), params);
+    }
+
+    private Maybe<String> pageName(SQLConnection conn, int id) {
+        return conn.rxQuerySingleWithParams(sqlQueries.get(SqlQuery.GET_PAGE_NAME), new JsonArray().add(id))
+            .map(row -> row.getString(0));
+    }
+
+    private Single<JsonArray> updateLinks(SQLConnection conn, String name, String markdown) {
+        return conn.rxQuerySingleWithParams(sqlQueries.get(SqlQuery.GET_PAGE_ID), new JsonArray().add(name))
+            .flatMapSingleElement(row -> updateLinks(conn, row.getInteger(0), markdown))
+            .toSingle(new JsonArray());
+    }
+
+    /**
+     * Brings the outgoing links of a page in line with its markdown, only touching the rows that changed, and returns
+     * the targets that gained or lost a backlink.
+     */
+    private Single<JsonArray> updateLinks(SQLConnection conn, int pageId, String markdown) {
+        Set<String> targets = WikiLinks.extract(markdown);
+        return conn.rxQueryWithParams(sqlQueries.get(SqlQuery.GET_LINKS), new JsonArray().add(pageId))
+            .flatMap(rs -> {
+                Set<String> existing = rs.getResults()
+                    .stream()
+                    .map(row -> row.getString(0))
+                    .collect(Collectors.toSet());
+                List<JsonArray> removed = existing.stream()
+                    .filter(target -> !targets.contains(target))
+                    .map(target -> new JsonArray().add(pageId).add(target))
+                    .collect(Collectors.toList());
+                List<JsonArray> added = targets.stream()
+                    .filter(target -> !existing.contains(target))
+                    .map(target -> new JsonArray().add(pageId).add(target))
+                    .collect(Collectors.toList());
+
+                Completable update = Completable.complete();
+                if (!removed.isEmpty()) {
+                    update = update.andThen(conn.rxBatchWithParams(sqlQueries.get(SqlQuery.DELETE_LINK), removed).ignoreElement());
+                }
+                if (!added.isEmpty()) {
+                    update = update.andThen(conn.rxBatchWithParams(sqlQueries.get(SqlQuery.INSERT_LINK), added).ignoreElement());
+                }
+                JsonArray changed = new JsonArray();
+                removed.forEach(link -> changed.add(link.getString(1)));
+                added.forEach(link -> changed.add(link.getString(1)));
+                return update.toSingleDefault(changed);
+            });
+    }
+
+    /**
+     * Runs {@code migration} unless the Migrations table records that {@code name} has already completed, then records
+     * it. A migration interrupted before being recorded runs again from the start on the next start.
+     */
+    private Completable migrate(SQLConnection conn, String name, Completable migration) {
+        JsonArray params = new JsonArray().add(name);
+        return conn.rxQuerySingleWithParams(sqlQueries.get(SqlQuery.COUNT_MIGRATIONS), params)
+            .filter(row -> row.getLong(0) == 0)
+            .flatMapCompletable(pending -> migration
+                .andThen(conn.rxUpdateWithParams(sqlQueries.get(SqlQuery.INSERT_MIGRATION), params).ignoreElement())
+                .doOnComplete(() -> LOGGER.info("Database migration {} completed", name)));
+    }
+
+    /**
+     * Indexes the links of the existing pages, reading them in keyset-paged batches like the export. Any links left by
+     * an interrupted run, or indexed by a version that did not record this migration, are cleared first.
+     */
+    private Completable backfillLinks(SQLConnection conn, int afterId) {
+        Completable cleared = afterId < 0
+            ? conn.rxUpdate(sqlQueries.get(SqlQuery.DELETE_ALL_LINKS)).ignoreElement()
+            : Completable.complete();
+        return cleared.andThen(conn.rxQueryWithParams(sqlQueries.get(SqlQuery.EXPORT_PAGES_AFTER),
+            new JsonArray().add(afterId).add(EXPORT_BATCH_SIZE)))
+            .flatMapCompletable(rs -> {
+                List<JsonArray> pages = rs.getResults();
+                List<JsonArray> links = pages.stream()
+                    .flatMap(page -> WikiLinks.extract(page.getString(2))
+                        .stream()
+                        .map(target -> new JsonArray().add(page.getInteger(0)).add(target)))
+                    .collect(Collectors.toList());
+                Completable inserted = links.isEmpty()
+                    ? Completable.complete()
+                    : conn.rxBatchWithParams(sqlQueries.get(SqlQuery.INSERT_LINK), links).ignoreElement();
+                if (pages.size() < EXPORT_BATCH_SIZE) {
+                    return inserted;
+                }
+                int lastId = pages.get(pages.size() - 1).getInteger(0);
+                return inserted.andThen(Completable.defer(() -> backfillLinks(conn, lastId)));
+            });
+    }
 }
@@ -1,10 +1,12 @@
 package io.vertx.guides.wiki.database;
 
+import io.reactivex.Completable;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
+import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.json.JsonObject;
-import io.vertx.ext.jdbc.JDBCClient;
-import io.vertx.serviceproxy.ServiceBinder;
+import io.vertx.guides.wiki.GracefulShutdown;
+import io.vertx.guides.wiki.StartupTimings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,23 +14,40 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.stream.Collectors;
 
 public class WikiDatabaseVerticle extends AbstractVerticle {
 
     public static final String CONFIG_WIKIDB_JDBC_URL = "url";
     public static final String CONFIG_WIKIDB_JDBC_DRIVER_CLASS = "driver_class";
     public static final String CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE = "max_pool_size";
+    public static final String CONFIG_WIKIDB_JDBC_READ_POOL = "read";
+    public static final String CONFIG_WIKIDB_JDBC_WRITE_POOL = "write";
     public static final String CONFIG_WIKIDB_SQL_QUERIES_RESOURCE_FILE = "sqlqueries.resource.file";
+    public static final String CONFIG_WIKIDB_STARTUP_EAGER = "startup.eager";
+    public static final String CONFIG_WIKIDB_MAINTENANCE = "maintenance";
+    public static final String CONFIG_WIKIDB_EVENTS_HEARTBEAT_INTERVAL = "events.heartbeat.interval";
+    public static final String CONFIG_WIKIDB_SHUTDOWN_DRAIN_TIMEOUT = "shutdown.drain.timeout";
 
     public static final String CONFIG_WIKIDB_QUEUE = "wikidb.queue";
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WikiDatabaseVerticle.class);
 
+    private JdbcPool readPool;
+    private JdbcPool writePool;
+    private DatabaseMaintenance maintenance;
+    private InFlightRequests requests;
+    private MessageConsumer<JsonObject> consumer;
+
     @Override
     public void start(Promise<Void> promise) throws Exception {
+        StartupTimings timings = new StartupTimings("Database service");
+        long begunAt = System.nanoTime();
         Map<SqlQuery, String> sqlQueries = loadSqlQueries();
+        timings.record("queries", begunAt);
 
         JsonObject dbConfig = config().getJsonObject("jdbc", new JsonObject()
             .put(CONFIG_WIKIDB_JDBC_URL, "jdbc:hsqldb:file:db/wiki")
@@ -36,20 +55,89 @@ public class WikiDatabaseVerticle extends AbstractVerticle {
             .put(CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE, 30)
         );
 
-        JDBCClient dbClient = JDBCClient.createShared(vertx, dbConfig);
+        readPool = JdbcPool.create(vertx, CONFIG_WIKIDB_JDBC_READ_POOL, poolConfig(dbConfig, CONFIG_WIKIDB_JDBC_READ_POOL));
+        writePool = JdbcPool.create(vertx, CONFIG_WIKIDB_JDBC_WRITE_POOL, poolConfig(dbConfig, CONFIG_WIKIDB_JDBC_WRITE_POOL));
+        maintenance = DatabaseMaintenance.create(vertx, readPool, writePool, dbConfig.getString(CONFIG_WIKIDB_JDBC_URL),
+            config().getJsonObject(CONFIG_WIKIDB_MAINTENANCE, new JsonObject()));
 
-        WikiDatabaseService.create(dbClient, sqlQueries, ready -> {
-            if (ready.succeeded()) {
-                ServiceBinder binder = new ServiceBinder(vertx);
-                binder.setAddress(CONFIG_WIKIDB_QUEUE).register(WikiDatabaseService.class, ready.result());
-                promise.complete();
-            } else {
+        PageEventPublisher events = new PageEventPublisher(vertx);
+        timings.<WikiDatabaseService>time("schema", () -> {
+            Promise<WikiDatabaseService> service = Promise.promise();
+            WikiDatabaseService.create(vertx, readPool, writePool, maintenance, events, sqlQueries, service);
+            return service.future();
+        }).onComplete(ready -> {
+            if (ready.failed()) {
                 LOGGER.error("Database init error", ready.cause());
                 promise.fail(ready.cause());
+                return;
+            }
+            Completable eager = Completable.complete();
+            if (config().getBoolean(CONFIG_WIKIDB_STARTUP_EAGER, false)) {
+                List<String> statements = sqlQueries.values().stream()
+                    .filter(sql -> !sql.trim().toLowerCase().startsWith("create"))
+                    // Templates such as in lists only become statements once filled in
+                    .filter(sql -> !sql.contains("%s"))
+                    .collect(Collectors.toList());
+                eager = Completable.mergeArray(
+                    timings.time("read connections", readPool.rxWarmUp(statements)),
+                    timings.time("write connections", writePool.rxWarmUp(statements)));
             }
+            eager.andThen(maintenance.rxStart()).subscribe(() -> {
+                // Registered by hand rather than with a ServiceBinder, to drop the requests whose deadline has passed
+                WikiDatabaseServiceVertxProxyHandler handler = new WikiDatabaseServiceVertxProxyHandler(vertx, ready.result());
+                requests = new InFlightRequests(Deadlines.enforcing(handler));
+                consumer = vertx.eventBus().consumer(CONFIG_WIKIDB_QUEUE, requests);
+                vertx.setPeriodic(config().getLong(CONFIG_WIKIDB_EVENTS_HEARTBEAT_INTERVAL, 5_000L), id -> events.heartbeat());
+                LOGGER.info(timings.summary());
+                promise.complete();
+            }, e -> {
+                LOGGER.error("Could not open the database connections", e);
+                promise.fail(e);
+            });
         });
     }
 
+    /**
+     * Keeps answering until the HTTP verticles of this node have drained their own requests, then stops taking
+     * requests and waits for those in flight, each wait being bounded by {@code shutdown.drain.timeout}, before
+     * flushing the database files and closing the pools.
+     */
+    @Override
+    public void stop(Promise<Void> promise) {
+        long drainTimeout = config().getLong(CONFIG_WIKIDB_SHUTDOWN_DRAIN_TIMEOUT, 15_000L);
+        GracefulShutdown.await(vertx, () -> !GracefulShutdown.httpServing(vertx), drainTimeout)
+            .compose(served -> {
+                Promise<Void> unregistered = Promise.promise();
+                consumer.unregister(unregistered);
+                return unregistered.future();
+            })
+            .compose(v -> GracefulShutdown.await(vertx, () -> requests.inFlight() == 0, drainTimeout))
+            .onComplete(drained -> {
+                if (drained.failed() || !drained.result()) {
+                    LOGGER.warn("Closing the database with {} requests in flight", requests.inFlight());
+                }
+                maintenance.rxStop()
+                    .doOnError(e -> LOGGER.warn("Could not flush the database files", e))
+                    .onErrorComplete()
+                    .andThen(Completable.mergeArrayDelayError(readPool.rxClose(), writePool.rxClose()))
+                    .subscribe(promise::complete, promise::fail);
+            });
+    }
+
+    private JsonObject poolConfig(JsonObject dbConfig, String pool) {
+        JsonObject config = dbConfig.copy();
+        config.remove(CONFIG_WIKIDB_JDBC_READ_POOL);
+        config.remove(CONFIG_WIKIDB_JDBC_WRITE_POOL);
+        config.mergeIn(dbConfig.getJsonObject(pool, new JsonObject()));
+        // Every write is a transaction, which the virtual executor does not cover
+        if (CONFIG_WIKIDB_JDBC_WRITE_POOL.equals(pool)
+            && JdbcPool.EXECUTOR_VIRTUAL.equals(config.getString(JdbcPool.CONFIG_EXECUTOR))) {
+            LOGGER.warn("The virtual executor only runs single statement reads, the {} pool uses the worker executor", pool);
+            config.put(JdbcPool.CONFIG_EXECUTOR, JdbcPool.EXECUTOR_WORKER);
+        }
+        return config;
+    }
+
     private Map<SqlQuery, String> loadSqlQueries() throws IOException {
         String queriesFile = config().getString(CONFIG_WIKIDB_SQL_QUERIES_RESOURCE_FILE);
         InputStream queriesInputStream;
@@ -66,13 +154,38 @@ public class WikiDatabaseVerticle extends AbstractVerticle {
         Map<SqlQuery, String> sqlQueries = new HashMap<>();
 
         sqlQueries.put(SqlQuery.CREATE_PAGES_TABLE, queriesProps.getProperty("create-pages-table"));
+        sqlQueries.put(SqlQuery.CREATE_LINKS_TABLE, queriesProps.getProperty("create-links-table"));
+        sqlQueries.put(SqlQuery.CREATE_LINKS_INDEX, queriesProps.getProperty("create-links-index"));
+        sqlQueries.put(SqlQuery.CREATE_ATTACHMENTS_TABLE, queriesProps.getProperty("create-attachments-table"));
+        sqlQueries.put(SqlQuery.CREATE_ATTACHMENTS_INDEX, queriesProps.getProperty("create-attachments-index"));
+        sqlQueries.put(SqlQuery.CREATE_MIGRATIONS_TABLE, queriesProps.getProperty("create-migrations-table"));
         sqlQueries.put(SqlQuery.ALL_PAGES, queriesProps.getProperty("all-pages"));
         sqlQueries.put(SqlQuery.ALL_PAGES_DATA, queriesProps.getProperty("all-pages-data"));
+        sqlQueries.put(SqlQuery.ALL_PAGES_SUMMARY, queriesProps.getProperty("all-pages-summary"));
         sqlQueries.put(SqlQuery.GET_PAGE, queriesProps.getProperty("get-page"));
         sqlQueries.put(SqlQuery.GET_PAGE_BY_ID, queriesProps.getProperty("get-page-by-id"));
+        sqlQueries.put(SqlQuery.GET_PAGES_BY_IDS, queriesProps.getProperty("get-pages-by-ids"));
         sqlQueries.put(SqlQuery.CREATE_PAGE, queriesProps.getProperty("create-page"));
         sqlQueries.put(SqlQuery.SAVE_PAGE, queriesProps.getProperty("save-page"));
+        sqlQueries.put(SqlQuery.LOCK_PAGE, queriesProps.getProperty("lock-page"));
         sqlQueries.put(SqlQuery.DELETE_PAGE, queriesProps.getProperty("delete-page"));
+        sqlQueries.put(SqlQuery.EXPORT_PAGES_AFTER, queriesProps.getProperty("export-pages-after"));
+        sqlQueries.put(SqlQuery.IMPORT_PAGE, queriesProps.getProperty("import-page"));
+        sqlQueries.put(SqlQuery.GET_PAGE_ID, queriesProps.getProperty("get-page-id"));
+        sqlQueries.put(SqlQuery.GET_PAGE_NAME, queriesProps.getProperty("get-page-name"));
+        sqlQueries.put(SqlQuery.GET_LINKS, queriesProps.getProperty("get-links"));
+        sqlQueries.put(SqlQuery.INSERT_LINK, queriesProps.getProperty("insert-link"));
+        sqlQueries.put(SqlQuery.DELETE_LINK, queriesProps.getProperty("delete-link"));
+        sqlQueries.put(SqlQuery.DELETE_ALL_LINKS, queriesProps.getProperty("delete-all-links"));
+        sqlQueries.put(SqlQuery.GET_BACKLINKS, queriesProps.getProperty("get-backlinks"));
+        sqlQueries.put(SqlQuery.INSERT_ATTACHMENT, queriesProps.getProperty("insert-attachment"));
+        sqlQueries.put(SqlQuery.GET_ATTACHMENTS, queriesProps.getProperty("get-attachments"));
+        sqlQueries.put(SqlQuery.GET_ATTACHMENT_BY_HASH, queriesProps.getProperty("get-attachment-by-hash"));
+        sqlQueries.put(SqlQuery.GET_ATTACHMENT_HASH, queriesProps.getProperty("get-attachment-hash"));
+        sqlQueries.put(SqlQuery.DELETE_ATTACHMENT, queriesProps.getProperty("delete-attachment"));
+        sqlQueries.put(SqlQuery.COUNT_ATTACHMENTS_BY_HASH, queriesProps.getProperty("count-attachments-by-hash"));
+        sqlQueries.put(SqlQuery.COUNT_MIGRATIONS, queriesProps.getProperty("count-migrations"));
+        sqlQueries.put(SqlQuery.INSERT_MIGRATION, queriesProps.getProperty("insert-migration"));
 
         return sqlQueries;
     }
@@ -0,0 +1,46 @@
+package io.vertx.guides.wiki.database;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the names of the wiki pages a markdown document links to.
+ * <p>
+ * Inline links {@code [text](/wiki/Name)}, reference definitions {@code [id]: /wiki/Name} and autolinks
+ * {@code </wiki/Name>} are recognized; fragments and query strings are ignored.
+ */
+public final class WikiLinks {
+
+    private static final Pattern WIKI_LINK = Pattern.compile("(?:\\]\\(\\s*|\\]:\\s*|<)/wiki/([^\\s)>#?\"]+)");
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private WikiLinks() {
+    }
+
+    public static Set<String> extract(String markdown) {
+        Set<String> targets = new LinkedHashSet<>();
+        if (markdown == null) {
+            return targets;
+        }
+        Matcher matcher = WIKI_LINK.matcher(markdown);
+        while (matcher.find()) {
+            String target = decode(matcher.group(1));
+            if (!target.isEmpty() && target.length() <= MAX_NAME_LENGTH) {
+                targets.add(target);
+            }
+        }
+        return targets;
+    }
+
+    private static String decode(String name) {
+        try {
+            return URLDecoder.decode(name.replace("+", "%2B"), "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package io.vertx.guides.wiki.http;
+
+import io.reactivex.Completable;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.file.CopyOptions;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.file.AsyncFile;
+import io.vertx.reactivex.core.http.HttpServerRequest;
+import io.vertx.reactivex.core.http.HttpServerResponse;
+import io.vertx.reactivex.ext.web.RoutingContext;
+
+import java.io.File;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Attachment contents on disk, each stored once under the SHA-256 hash of its bytes.
+ * <p>
+ * Uploads are streamed to a temporary file and hashed chunk by chunk, with back-pressure from the file to the
+ * request, then moved to {@code <directory>/<first two hex digits>/<hash>}. Downloads go through
+ * {@link HttpServerResponse#sendFile}, so contents are copied from the file to the socket by the kernel and never read
+ * into the heap. Since the content of an address never changes, responses are cacheable forever.
+ */
+class AttachmentStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Vertx vertx;
+    private final String directory;
+    private final long maxSize;
+
+    AttachmentStore(Vertx vertx, String directory, long maxSize) {
+        this.vertx = vertx;
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    static boolean isHash(String value) {
+        return value != null && HASH.matcher(value).matches();
+    }
+
+    long maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Streams the body of {@code request} into the store, completing with its {@code hash} and {@code size}. Fails
+     * with {@link TooLargeException} as soon as the body exceeds the maximum size.
+     */
+    Future<JsonObject> store(HttpServerRequest request) {
+        request.pause();
+        Promise<JsonObject> promise = Promise.promise();
+        String temporary = directory + File.separator + "tmp" + File.separator + UUID.randomUUID();
+        vertx.fileSystem().rxMkdirs(parent(temporary))
+            .andThen(vertx.fileSystem().rxOpen(temporary, new OpenOptions().setWrite(true).setCreateNew(true)))
+            .subscribe(file -> receive(request, file, temporary, promise), e -> {
+                request.resume();
+                promise.fail(e);
+            });
+        return promise.future();
+    }
+
+    /**
+     * Deletes the content stored under {@code hash}, once no attachment refers to it anymore.
+     */
+    Completable delete(String hash) {
+        return vertx.fileSystem().rxDelete(path(hash));
+    }
+
+    /**
+     * Answers {@code 304 Not Modified} when the client already has the content stored under {@code hash}, which needs
+     * no lookup since that content never changes.
+     */
+    boolean notModified(RoutingContext context, String hash) {
+        if (!etag(hash).equals(context.request().getHeader("If-None-Match"))) {
+            return false;
+        }
+        cacheHeaders(context.response(), hash);
+        context.response().setStatusCode(304).end();
+        return true;
+    }
+
+    /**
+     * Sends the content stored under {@code hash}, or the single byte range requested, with immutable cache headers.
+     */
+    void send(RoutingContext context, String hash, String mediaType, long size) {
+        HttpServerRequest request = context.request();
+        HttpServerResponse response = context.response();
+        String etag = etag(hash);
+        cacheHeaders(response, hash);
+        response.putHeader("Accept-Ranges", "bytes");
+        response.putHeader("X-Content-Type-Options", "nosniff");
+        // Uploaded HTML or SVG must not run scripts with the wiki origin
+        response.putHeader("Content-Security-Policy", "default-src 'none'; style-src 'unsafe-inline'; sandbox");
+
+        String ifRange = request.getHeader("If-Range");
+        ByteRange range = ifRange == null || ifRange.equals(etag) ? ByteRange.parse(request.getHeader("Range"), size) : null;
+        if (range == ByteRange.UNSATISFIABLE) {
+            response.setStatusCode(416);
+            response.putHeader("Content-Range", "bytes */" + size);
+            response.end();
+            return;
+        }
+        long offset = 0;
+        long length = size;
+        if (range != null) {
+            offset = range.start;
+            length = range.length();
+            response.setStatusCode(206);
+            response.putHeader("Content-Range", "bytes " + range.start + "-" + range.end + "/" + size);
+        }
+        response.putHeader("Content-Type", mediaType);
+        if (request.rawMethod().equals("HEAD")) {
+            response.putHeader("Content-Length", Long.toString(length));
+            response.end();
+            return;
+        }
+        response.sendFile(path(hash), offset, length, ar -> {
+            if (ar.failed() && !response.headWritten()) {
+                context.fail(ar.cause());
+            }
+        });
+    }
+
+    private void receive(HttpServerRequest request, AsyncFile file, String temporary, Promise<JsonObject> promise) {
+        MessageDigest digest = sha256();
+        long[] size = {0};
+        boolean[] failed = {false};
+        Handler<Throwable> abort = e -> {
+            if (failed[0]) {
+                return;
+            }
+            failed[0] = true;
+            request.resume();
+            file.rxClose()
+                .onErrorComplete()
+                .andThen(vertx.fileSystem().rxDelete(temporary))
+                .onErrorComplete()
+                .subscribe(() -> promise.fail(e));
+        };
+
+        request.handler(chunk -> {
+            if (failed[0]) {
+                return;
+            }
+            size[0] += chunk.length();
+            if (size[0] > maxSize) {
+                abort.handle(new TooLargeException(maxSize));
+                return;
+            }
+            digest.update(chunk.getDelegate().getByteBuf().nioBuffer());
+            file.write(chunk);
+            if (file.writeQueueFull()) {
+                request.pause();
+                file.drainHandler(v -> request.resume());
+            }
+        });
+        request.exceptionHandler(abort);
+        file.exceptionHandler(abort);
+        request.endHandler(v -> {
+            if (failed[0]) {
+                return;
+            }
+            String hash = hex(digest.digest());
+            file.rxClose()
+                .andThen(moveIntoPlace(temporary, hash))
+                .subscribe(() -> promise.complete(new JsonObject()
+                    .put("hash", hash)
+                    .put("size", size[0])), abort::handle);
+        });
+        request.resume();
+    }
+
+    private static String etag(String hash) {
+        return "\"" + hash + "\"";
+    }
+
+    private static void cacheHeaders(HttpServerResponse response, String hash) {
+        response.putHeader("ETag", etag(hash));
+        response.putHeader("Cache-Control", "public, max-age=31536000, immutable");
+    }
+
+    private Completable moveIntoPlace(String temporary, String hash) {
+        String target = path(hash);
+        return vertx.fileSystem().rxExists(target).flatMapCompletable(exists -> exists
+            ? vertx.fileSystem().rxDelete(temporary)
+            : vertx.fileSystem().rxMkdirs(parent(target))
+                .andThen(vertx.fileSystem().rxMove(temporary, target, new CopyOptions().setReplaceExisting(true))));
+    }
+
+    private String path(String hash) {
+        return directory + File.separator + hash.substring(0, 2) + File.separator + hash;
+    }
+
+    private static String parent(String path) {
+        return new File(path).getAbsoluteFile().getParent();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[2 * i + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    static final class TooLargeException extends RuntimeException {
+
+        TooLargeException(long maxSize) {
+            super("The attachment exceeds " + maxSize + " bytes");
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package io.vertx.guides.wiki.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufAllocatorMetricProvider;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The final bodies of page responses, kept off the heap.
+ * <p>
+ * Each body is copied once into a direct buffer of Netty's pooled allocator, then written from there to the socket as
+ * is, so tens of thousands of cached pages neither grow the heap nor get traced by the collector. The buffers are
+ * reference counted: the cache holds one reference and each response being written another, released once the write
+ * completes, so that a body evicted while it is being sent only returns to the pool afterwards.
+ * <p>
+ * The bodies together take at most {@code maxBytes}, the least recently served ones being evicted first. Each entry is
+ * indexed under the pages its content depends on, so that a page event drops exactly the entries it makes stale. A
+ * body rendered from data read before an invalidation is not stored, see {@link #generation()}.
+ * <p>
+ * One instance is shared by all the HTTP verticles of a Vert.x instance through {@link #shared(Vertx, long)}.
+ */
+class BodyCache implements Shareable {
+
+    private static final String SHARED_MAP = "wiki.caches";
+    private static final String SHARED_KEY = "bodies";
+
+    private final ByteBufAllocator allocator;
+    private final long maxBytes;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<String>> keysByPage = new HashMap<>();
+    private long bytes;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    private long skipped;
+
+    private final AtomicLong sending = new AtomicLong();
+
+    BodyCache(ByteBufAllocator allocator, long maxBytes) {
+        this.allocator = allocator;
+        this.maxBytes = maxBytes;
+    }
+
+    static BodyCache shared(Vertx vertx, long maxBytes) {
+        LocalMap<String, BodyCache> caches = vertx.sharedData().getLocalMap(SHARED_MAP);
+        BodyCache cache = new BodyCache(PooledByteBufAllocator.DEFAULT, maxBytes);
+        BodyCache existing = caches.putIfAbsent(SHARED_KEY, cache);
+        return existing != null ? existing : cache;
+    }
+
+    /**
+     * The number of invalidations so far, to be read before fetching the data of a body and handed to
+     * {@link #put}, which drops the body if the data may have changed in between.
+     */
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Stores {@code body} under {@code key}, as the response for {@code page} whose content also depends on the
+     * {@code dependencies} pages. Bodies larger than a quarter of the cache are not stored.
+     */
+    void put(String key, String page, Collection<String> dependencies, String contentType, Buffer body,
+             long generation) {
+        if (body.length() > maxBytes / 4) {
+            synchronized (this) {
+                skipped++;
+            }
+            return;
+        }
+        ByteBuf content = allocator.directBuffer(body.length()).writeBytes(body.getByteBuf());
+        Set<String> pages = new HashSet<>(dependencies);
+        pages.add(page);
+        synchronized (this) {
+            if (generation != this.generation) {
+                skipped++;
+                content.release();
+                return;
+            }
+            remove(key);
+            entries.put(key, new Entry(page, pages, contentType, content));
+            for (String name : pages) {
+                keysByPage.computeIfAbsent(name, k -> new HashSet<>()).add(key);
+            }
+            bytes += content.readableBytes();
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (bytes > maxBytes) {
+                Map.Entry<String, Entry> evicted = eldest.next();
+                eldest.remove();
+                release(evicted.getKey(), evicted.getValue());
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * Ends {@code response} with the body cached under {@code key} and returns the page it belongs to, or returns
+     * {@code null} when nothing is cached under {@code key}.
+     */
+    String send(String key, HttpServerResponse response) {
+        Entry entry;
+        ByteBuf content;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+            content = entry.content.retain();
+        }
+        sending.incrementAndGet();
+        try {
+            response.putHeader("Content-Type", entry.contentType);
+            // Wrapping does not copy, and the response writes the direct buffer itself to the socket
+            response.end(Buffer.buffer(content), written -> {
+                sending.decrementAndGet();
+                content.release();
+            });
+        } catch (RuntimeException e) {
+            sending.decrementAndGet();
+            content.release();
+            throw e;
+        }
+        return entry.page;
+    }
+
+    /**
+     * Drops the bodies that depend on {@code page} or on any of the {@code links} pages.
+     */
+    synchronized void invalidate(String page, Collection<?> links) {
+        generation++;
+        invalidatePage(page);
+        if (links != null) {
+            for (Object link : links) {
+                invalidatePage((String) link);
+            }
+        }
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        invalidations += entries.size();
+        for (String key : new ArrayList<>(entries.keySet())) {
+            remove(key);
+        }
+    }
+
+    synchronized JsonObject metrics() {
+        JsonObject metrics = new JsonObject()
+            .put("entries", entries.size())
+            .put("bytes", bytes)
+            .put("maxBytes", maxBytes)
+            .put("hits", hits)
+            .put("misses", misses)
+            .put("evictions", evictions)
+            .put("invalidations", invalidations)
+            .put("skipped", skipped)
+            .put("sending", sending.get());
+        if (allocator instanceof ByteBufAllocatorMetricProvider) {
+            // All the direct memory of the allocator, which the other users of the default pool share
+            metrics.put("allocatorDirectBytes", ((ByteBufAllocatorMetricProvider) allocator).metric().usedDirectMemory());
+        }
+        return metrics;
+    }
+
+    private void invalidatePage(String page) {
+        Set<String> keys = keysByPage.get(page);
+        if (keys != null) {
+            invalidations += keys.size();
+            for (String key : new ArrayList<>(keys)) {
+                remove(key);
+            }
+        }
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            release(key, entry);
+        }
+    }
+
+    /**
+     * Unindexes {@code entry}, already removed from the entries, and gives up the reference of the cache to its body.
+     */
+    private void release(String key, Entry entry) {
+        for (String page : entry.pages) {
+            Set<String> keys = keysByPage.get(page);
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByPage.remove(page);
+            }
+        }
+        bytes -= entry.content.readableBytes();
+        entry.content.release();
+    }
+
+    private static final class Entry {
+
+        private final String page;
+        private final Set<String> pages;
+        private final String contentType;
+        private final ByteBuf content;
+
+        private Entry(String page, Set<String> pages, String contentType, ByteBuf content) {
+            this.page = page;
+            this.pages = pages;
+            this.contentType = contentType;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.vertx.guides.wiki.http;
+
+/**
+ * A single {@code bytes} range of a {@code Range} request header, resolved against the size of the resource.
+ * <p>
+ * Only single ranges are supported: for a multi-range request, which clients rarely send, {@link #parse} returns
+ * {@code null} and the whole resource is served, as the HTTP specification allows.
+ */
+final class ByteRange {
+
+    /**
+     * A range that starts past the end of the resource, to be answered with {@code 416 Range Not Satisfiable}.
+     */
+    static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    final long start;
+    final long end;
+
+    private ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    long length() {
+        return end - start + 1;
+    }
+
+    /**
+     * The range requested by {@code header} in a resource of {@code size} bytes, or {@code null} to serve all of it.
+     */
+    static ByteRange parse(String header, long size) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return UNSATISFIABLE;
+                }
+                return size == 0 ? UNSATISFIABLE : new ByteRange(Math.max(0, size - suffix), size - 1);
+            }
+            long start = Long.parseLong(spec.substring(0, dash));
+            long end = dash == spec.length() - 1 ? size - 1 : Long.parseLong(spec.substring(dash + 1));
+            if (start >= size) {
+                return UNSATISFIABLE;
+            }
+            if (end < start) {
+                return null;
+            }
+            return new ByteRange(start, Math.min(end, size - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * A count-based circuit breaker over the outcomes of the last {@code windowSize} calls.
+ * <p>
+ * The breaker opens when, over at least {@code minimumCalls} calls, the share of failed calls reaches
+ * {@code failureRateThreshold} or the share of calls slower than {@code slowCallNanos} reaches
+ * {@code slowCallRateThreshold}. It stays open for {@code openNanos}, then lets a single probe call through: the
+ * breaker closes again with an empty window when the probe succeeds in time, and re-opens otherwise.
+ * <p>
+ * Instances are confined to the event loop of one verticle, so no synchronization is needed. Times are
+ * {@link System#nanoTime()} values passed by the caller.
+ */
+class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final double slowCallRateThreshold;
+    private final long openNanos;
+
+    private final boolean[] failures;
+    private final boolean[] slowCalls;
+    private int next;
+    private int calls;
+    private int failed;
+    private int slow;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probing;
+
+    private long opened;
+    private long rejected;
+
+    CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long slowCallNanos,
+                   double slowCallRateThreshold, long openNanos) {
+        this.failures = new boolean[windowSize];
+        this.slowCalls = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallNanos;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = openNanos;
+    }
+
+    /**
+     * Whether a call may go through now. Once the open period is over, only the first caller gets {@code true}, and
+     * must then {@link #record} the outcome of its probe call.
+     */
+    boolean allow(long now) {
+        if (state == State.OPEN && now - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            probing = false;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !probing) {
+            probing = true;
+            return true;
+        }
+        rejected++;
+        return false;
+    }
+
+    void record(boolean failure, long latencyNanos, long now) {
+        boolean tooSlow = latencyNanos >= slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            if (failure || tooSlow) {
+                open(now);
+            } else {
+                close();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // A call dispatched before the breaker opened
+            return;
+        }
+        if (calls == failures.length) {
+            failed -= failures[next] ? 1 : 0;
+            slow -= slowCalls[next] ? 1 : 0;
+        } else {
+            calls++;
+        }
+        failures[next] = failure;
+        slowCalls[next] = tooSlow;
+        failed += failure ? 1 : 0;
+        slow += tooSlow ? 1 : 0;
+        next = (next + 1) % failures.length;
+        if (calls >= minimumCalls
+            && ((double) failed / calls >= failureRateThreshold || (double) slow / calls >= slowCallRateThreshold)) {
+            open(now);
+        }
+    }
+
+    State state() {
+        return state;
+    }
+
+    /**
+     * Nanoseconds until a probe call will be let through, {@code 0} unless the breaker is open.
+     */
+    long remainingOpenNanos(long now) {
+        return state == State.OPEN ? Math.max(0, openNanos - (now - openedAt)) : 0;
+    }
+
+    JsonObject metrics() {
+        return new JsonObject()
+            .put("state", state.name())
+            .put("calls", calls)
+            .put("failureRate", calls == 0 ? 0.0 : (double) failed / calls)
+            .put("slowCallRate", calls == 0 ? 0.0 : (double) slow / calls)
+            .put("opened", opened)
+            .put("rejected", rejected);
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        openedAt = now;
+        opened++;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        probing = false;
+        next = 0;
+        calls = 0;
+        failed = 0;
+        slow = 0;
+    }
+}
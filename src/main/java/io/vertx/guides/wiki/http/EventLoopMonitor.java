@@ -0,0 +1,96 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how long the event loops of the HTTP verticles are kept from running their tasks.
+ * <p>
+ * Each monitored event loop runs a periodic timer and records by how much every tick is late: a tick can only be late
+ * because a handler held the loop, which also delays every request served by it. A lag above the stall threshold is
+ * counted as a stall. Unlike the blocked thread checker of Vert.x, which only logs the loops blocked for seconds, this
+ * also reports the short stalls that add up to latency.
+ * <p>
+ * One instance is shared by all the HTTP verticles of a Vert.x instance through {@link #shared(Vertx, long, long)}.
+ */
+class EventLoopMonitor implements Shareable {
+
+    private static final String SHARED_MAP = "wiki.eventloops";
+    private static final String SHARED_KEY = "monitor";
+
+    private final long interval;
+    private final long stallThreshold;
+    private final Map<String, Loop> loops = new ConcurrentSkipListMap<>();
+
+    EventLoopMonitor(long interval, long stallThreshold) {
+        this.interval = interval;
+        this.stallThreshold = stallThreshold;
+    }
+
+    static EventLoopMonitor shared(Vertx vertx, long interval, long stallThreshold) {
+        LocalMap<String, EventLoopMonitor> monitors = vertx.sharedData().getLocalMap(SHARED_MAP);
+        EventLoopMonitor monitor = new EventLoopMonitor(interval, stallThreshold);
+        EventLoopMonitor existing = monitors.putIfAbsent(SHARED_KEY, monitor);
+        return existing != null ? existing : monitor;
+    }
+
+    /**
+     * Starts monitoring the event loop of the calling verticle, until it is undeployed.
+     */
+    void monitor(Vertx vertx) {
+        Loop loop = loops.computeIfAbsent(Thread.currentThread().getName(), name -> new Loop());
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(interval);
+        long[] expected = {System.nanoTime() + intervalNanos};
+        vertx.setPeriodic(interval, id -> {
+            long now = System.nanoTime();
+            loop.record(Math.max(0, now - expected[0]), TimeUnit.MILLISECONDS.toNanos(stallThreshold));
+            expected[0] = now + intervalNanos;
+        });
+    }
+
+    JsonObject metrics() {
+        JsonObject metrics = new JsonObject();
+        loops.forEach((name, loop) -> metrics.put(name, loop.metrics()));
+        return new JsonObject()
+            .put("interval", interval)
+            .put("stallThreshold", stallThreshold)
+            .put("loops", metrics);
+    }
+
+    private static final class Loop {
+
+        private final LongAdder ticks = new LongAdder();
+        private final LongAdder totalLag = new LongAdder();
+        private final LongAdder stalls = new LongAdder();
+        private final LongAdder stalledNanos = new LongAdder();
+        private final AtomicLong maxLag = new AtomicLong();
+
+        void record(long lag, long stallThreshold) {
+            ticks.increment();
+            totalLag.add(lag);
+            maxLag.accumulateAndGet(lag, Math::max);
+            if (lag > stallThreshold) {
+                stalls.increment();
+                stalledNanos.add(lag);
+            }
+        }
+
+        JsonObject metrics() {
+            long count = ticks.sum();
+            return new JsonObject()
+                .put("ticks", count)
+                .put("meanLagMillis", count == 0 ? 0.0 : totalLag.sum() / 1e6 / count)
+                .put("maxLagMillis", TimeUnit.NANOSECONDS.toMillis(maxLag.get()))
+                .put("stalls", stalls.sum())
+                .put("stalledMillis", TimeUnit.NANOSECONDS.toMillis(stalledNanos.sum()));
+        }
+    }
+}
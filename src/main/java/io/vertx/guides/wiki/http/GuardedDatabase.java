@@ -0,0 +1,151 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.json.JsonObject;
+import io.vertx.guides.wiki.database.Deadlines;
+import io.vertx.guides.wiki.database.ErrorCodes;
+import io.vertx.guides.wiki.database.WikiDatabaseService;
+import io.vertx.serviceproxy.ServiceException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Calls the database service through a {@link CircuitBreaker}, with a deadline per call.
+ * <p>
+ * Each call is sent with the read or write deadline as its send timeout and as a {@link Deadlines} header, so the
+ * database drops it rather than executing it once the caller has given up. Calls that time out, find no database or
+ * are shed by the database pools count as failures for the breaker; other errors, such as a constraint violation,
+ * show that the database is answering and count as successes.
+ * <p>
+ * The latest successful result of each keyed read is kept in a bounded LRU map. While the breaker is open, or when a
+ * read fails because the database is unavailable, that possibly stale result is served instead of an error.
+ * <p>
+ * Instances are confined to the event loop of one HTTP verticle.
+ */
+class GuardedDatabase {
+
+    private final DeliveryOptions options = new DeliveryOptions();
+    private final WikiDatabaseService service;
+    private final CircuitBreaker breaker;
+    private final long readDeadline;
+    private final long writeDeadline;
+    private final Map<String, Object> fallback;
+
+    private long fallbacks;
+
+    GuardedDatabase(Vertx vertx, String address, CircuitBreaker breaker, long readDeadline, long writeDeadline,
+                    int fallbackEntries) {
+        this.service = WikiDatabaseService.createProxy(vertx, address, options);
+        this.breaker = breaker;
+        this.readDeadline = readDeadline;
+        this.writeDeadline = writeDeadline;
+        this.fallback = new LinkedHashMap<String, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                return size() > fallbackEntries;
+            }
+        };
+    }
+
+    /**
+     * Whether {@code failure} means that the database could not serve the request, as opposed to rejecting it.
+     */
+    static boolean isUnavailable(Throwable failure) {
+        if (!(failure instanceof ReplyException)) {
+            return false;
+        }
+        ReplyException reply = (ReplyException) failure;
+        if (reply.failureType() == ReplyFailure.TIMEOUT || reply.failureType() == ReplyFailure.NO_HANDLERS) {
+            return true;
+        }
+        int code = reply.failureCode();
+        return code == ErrorCodes.POOL_SATURATED.ordinal()
+            || code == ErrorCodes.DEADLINE_EXCEEDED.ordinal()
+            || code == ErrorCodes.CIRCUIT_OPEN.ordinal();
+    }
+
+    <T> Future<T> read(String fallbackKey, BiConsumer<WikiDatabaseService, Handler<AsyncResult<T>>> operation) {
+        return call(fallbackKey, readDeadline, operation);
+    }
+
+    <T> Future<T> write(BiConsumer<WikiDatabaseService, Handler<AsyncResult<T>>> operation) {
+        return call(null, writeDeadline, operation);
+    }
+
+    /**
+     * Drops the fallback results that mention {@code name} or {@code id}, and the page listings, after a page event.
+     */
+    void invalidate(String name, Integer id) {
+        fallback.remove("page:" + name);
+        fallback.remove("backlinks:" + name);
+        fallback.remove("page-id:" + id);
+        fallback.remove("pages");
+        fallback.remove("pages-json");
+    }
+
+    /**
+     * Drops every fallback result, after page events may have been missed.
+     */
+    void invalidateAll() {
+        fallback.clear();
+    }
+
+    /**
+     * Seconds a client should wait before retrying a request that failed because the database is unavailable.
+     */
+    long retryAfterSeconds() {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(breaker.remainingOpenNanos(System.nanoTime()) + 999_999_999));
+    }
+
+    JsonObject metrics() {
+        return breaker.metrics()
+            .put("fallbackEntries", fallback.size())
+            .put("fallbacks", fallbacks);
+    }
+
+    private <T> Future<T> call(String fallbackKey, long deadline,
+                               BiConsumer<WikiDatabaseService, Handler<AsyncResult<T>>> operation) {
+        long startedAt = System.nanoTime();
+        if (!breaker.allow(startedAt)) {
+            return fallback(fallbackKey, new ServiceException(ErrorCodes.CIRCUIT_OPEN.ordinal(),
+                "The database is temporarily unavailable"));
+        }
+        Promise<T> result = Promise.promise();
+        Deadlines.renew(options, deadline);
+        operation.accept(service, reply -> {
+            long now = System.nanoTime();
+            boolean unavailable = reply.failed() && isUnavailable(reply.cause());
+            breaker.record(unavailable, now - startedAt, now);
+            if (reply.succeeded()) {
+                if (fallbackKey != null) {
+                    fallback.put(fallbackKey, reply.result());
+                }
+                result.complete(reply.result());
+            } else if (unavailable) {
+                this.<T>fallback(fallbackKey, reply.cause()).onComplete(result);
+            } else {
+                result.fail(reply.cause());
+            }
+        });
+        return result.future();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Future<T> fallback(String key, Throwable failure) {
+        if (key != null && fallback.containsKey(key)) {
+            fallbacks++;
+            return Future.succeededFuture((T) fallback.get(key));
+        }
+        return Future.failedFuture(failure);
+    }
+}
@@ -0,0 +1,158 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Approximate page view counts in a fixed amount of memory.
+ * <p>
+ * Views are counted in a count-min sketch of {@code depth} rows of {@code width} counters, with conservative updates
+ * so that only the smallest counters of a page grow. The {@code topSize} pages with the highest estimates are kept in
+ * a min-heap, so the hot list is available without scanning anything. {@link #decay()} halves every count, which
+ * makes the list follow recent traffic rather than all-time totals.
+ * <p>
+ * One instance is shared by all the HTTP verticles of a Vert.x instance through {@link #shared(Vertx, int, int, int)}.
+ */
+class HotPages implements Shareable {
+
+    private static final String SHARED_MAP = "wiki.stats";
+    private static final String SHARED_KEY = "hot-pages";
+
+    private final int[][] sketch;
+    private final int width;
+    private final int topSize;
+
+    private final Map<String, Entry> top = new HashMap<>();
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>(Comparator.comparingLong((Entry e) -> e.views));
+    private long totalViews;
+
+    private final AtomicBoolean owned = new AtomicBoolean();
+
+    HotPages(int width, int depth, int topSize) {
+        this.sketch = new int[depth][width];
+        this.width = width;
+        this.topSize = topSize;
+    }
+
+    static HotPages shared(Vertx vertx, int width, int depth, int topSize) {
+        LocalMap<String, HotPages> stats = vertx.sharedData().getLocalMap(SHARED_MAP);
+        HotPages hotPages = new HotPages(width, depth, topSize);
+        HotPages existing = stats.putIfAbsent(SHARED_KEY, hotPages);
+        return existing != null ? existing : hotPages;
+    }
+
+    /**
+     * Returns {@code true} to the first caller only, which then takes care of persisting and decaying the counts.
+     */
+    boolean claim() {
+        return owned.compareAndSet(false, true);
+    }
+
+    void record(String name) {
+        add(name, 1);
+    }
+
+    synchronized void add(String name, int views) {
+        totalViews += views;
+        int hash = name.hashCode();
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < sketch.length; row++) {
+            estimate = Math.min(estimate, sketch[row][index(hash, row)]);
+        }
+        long updated = Math.min((long) estimate + views, Integer.MAX_VALUE);
+        for (int row = 0; row < sketch.length; row++) {
+            int column = index(hash, row);
+            if (sketch[row][column] < updated) {
+                sketch[row][column] = (int) updated;
+            }
+        }
+
+        Entry entry = top.get(name);
+        if (entry != null) {
+            heap.remove(entry);
+            entry.views = updated;
+            heap.add(entry);
+        } else if (top.size() < topSize) {
+            insert(name, updated);
+        } else if (heap.peek().views < updated) {
+            top.remove(heap.poll().name);
+            insert(name, updated);
+        }
+    }
+
+    synchronized void forget(String name) {
+        Entry entry = top.remove(name);
+        if (entry != null) {
+            heap.remove(entry);
+        }
+    }
+
+    synchronized void decay() {
+        for (int[] row : sketch) {
+            for (int column = 0; column < width; column++) {
+                row[column] >>>= 1;
+            }
+        }
+        for (Entry entry : top.values()) {
+            entry.views >>>= 1;
+        }
+        totalViews >>>= 1;
+    }
+
+    /**
+     * The hottest pages first, as {@code {name, views}} objects.
+     */
+    synchronized JsonArray hottest(int limit) {
+        List<Entry> entries = new ArrayList<>(top.values());
+        entries.sort(Comparator.comparingLong((Entry e) -> e.views).reversed().thenComparing(e -> e.name));
+        JsonArray pages = new JsonArray();
+        for (int i = 0; i < Math.min(limit, entries.size()); i++) {
+            pages.add(new JsonObject().put("name", entries.get(i).name).put("views", entries.get(i).views));
+        }
+        return pages;
+    }
+
+    synchronized JsonObject metrics() {
+        return new JsonObject()
+            .put("tracked", top.size())
+            .put("topSize", topSize)
+            .put("totalViews", totalViews)
+            .put("sketchBytes", 4L * sketch.length * width);
+    }
+
+    private void insert(String name, long views) {
+        Entry entry = new Entry(name, views);
+        top.put(name, entry);
+        heap.add(entry);
+    }
+
+    private int index(int hash, int row) {
+        int h = hash * (0x9e3779b9 + 2 * row);
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return (h & Integer.MAX_VALUE) % width;
+    }
+
+    private static final class Entry {
+
+        private final String name;
+        private long views;
+
+        private Entry(String name, long views) {
+            this.name = name;
+            this.views = views;
+        }
+    }
+}
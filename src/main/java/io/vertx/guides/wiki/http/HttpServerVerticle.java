@@ -1,23 +1,56 @@
 package io.vertx.guides.wiki.http;
 
-import com.github.rjeschke.txtmark.Processor;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.file.CopyOptions;
+import io.vertx.core.http.Http2Settings;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.JksOptions;
+import io.vertx.core.net.PemKeyCertOptions;
+import io.vertx.core.net.PfxOptions;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.guides.wiki.GracefulShutdown;
+import io.vertx.guides.wiki.StartupTimings;
+import io.vertx.guides.wiki.database.ErrorCodes;
+import io.vertx.guides.wiki.database.PageEvents;
+import io.vertx.guides.wiki.database.TextPatch;
 import io.vertx.guides.wiki.database.WikiDatabaseService;
+import io.vertx.guides.wiki.json.JsonWriter;
+import io.vertx.guides.wiki.render.IncrementalRenderer;
+import io.vertx.guides.wiki.render.MarkdownRenderer;
+import io.vertx.guides.wiki.render.RenderService;
 import io.vertx.reactivex.core.AbstractVerticle;
+import io.vertx.reactivex.core.buffer.Buffer;
 import io.vertx.reactivex.core.http.HttpServer;
+import io.vertx.reactivex.core.http.HttpServerResponse;
 import io.vertx.reactivex.ext.web.Router;
 import io.vertx.reactivex.ext.web.RoutingContext;
-import io.vertx.reactivex.ext.web.handler.BodyHandler;
+import io.vertx.reactivex.ext.web.client.WebClient;
 import io.vertx.reactivex.ext.web.templ.freemarker.FreeMarkerTemplateEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class HttpServerVerticle extends AbstractVerticle {
@@ -25,7 +58,63 @@ public class HttpServerVerticle extends AbstractVerticle {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpServerVerticle.class);
 
     public static final String CONFIG_HTTP_SERVER_PORT = "server.port";
+    public static final String CONFIG_HTTP_TLS_KEYSTORE_PATH = "tls.keystore.path";
+    public static final String CONFIG_HTTP_TLS_KEYSTORE_PASSWORD = "tls.keystore.password";
+    public static final String CONFIG_HTTP_TLS_KEY_PATH = "tls.key.path";
+    public static final String CONFIG_HTTP_TLS_CERT_PATH = "tls.cert.path";
+    public static final String CONFIG_HTTP_HTTP2_MAX_CONCURRENT_STREAMS = "http2.max.concurrent.streams";
+    public static final String CONFIG_HTTP_HTTP2_INITIAL_WINDOW_SIZE = "http2.initial.window.size";
+    public static final String CONFIG_HTTP_HTTP2_CONNECTION_WINDOW_SIZE = "http2.connection.window.size";
     public static final String CONFIG_WIKIDB_QUEUE = "wikidb.queue";
+    public static final String CONFIG_HTTP_EXPORT_WINDOW = "export.window";
+    public static final String CONFIG_HTTP_IMPORT_BATCH_SIZE = "import.batch.size";
+    public static final String CONFIG_HTTP_IMPORT_MAX_LINE_SIZE = "import.max.line.size";
+    public static final String CONFIG_HTTP_RENDER_ENGINE = "render.engine";
+    public static final String CONFIG_HTTP_RENDER_CACHE_MAX_CHARS = "render.cache.max.chars";
+    public static final String CONFIG_HTTP_RENDER_SNAPSHOT_FILE = "render.snapshot.file";
+    public static final String CONFIG_HTTP_RENDER_OFFLOAD_THRESHOLD = "render.offload.threshold";
+    public static final String CONFIG_HTTP_RENDER_WORKER_POOL_SIZE = "render.worker.pool.size";
+    public static final String CONFIG_HTTP_RENDER_QUEUE_MAX_SIZE = "render.queue.max.size";
+    public static final String CONFIG_HTTP_EVENTLOOP_MONITOR_INTERVAL = "eventloop.monitor.interval";
+    public static final String CONFIG_HTTP_EVENTLOOP_STALL_THRESHOLD = "eventloop.stall.threshold";
+    public static final String CONFIG_HTTP_EVENTS_SILENCE_TIMEOUT = "events.silence.timeout";
+    public static final String CONFIG_HTTP_LIVE_MAX_SUBSCRIBERS = "live.max.subscribers";
+    public static final String CONFIG_HTTP_LIVE_WRITE_QUEUE_MAX_SIZE = "live.write.queue.max.size";
+    public static final String CONFIG_HTTP_LIVE_HEARTBEAT_INTERVAL = "live.heartbeat.interval";
+    public static final String CONFIG_HTTP_SUGGEST_MAX_LIMIT = "suggest.max.limit";
+    public static final String CONFIG_HTTP_HOT_SKETCH_WIDTH = "hot.sketch.width";
+    public static final String CONFIG_HTTP_HOT_SKETCH_DEPTH = "hot.sketch.depth";
+    public static final String CONFIG_HTTP_HOT_TOP_SIZE = "hot.top.size";
+    public static final String CONFIG_HTTP_HOT_DECAY_INTERVAL = "hot.decay.interval";
+    public static final String CONFIG_HTTP_HOT_PERSIST_FILE = "hot.persist.file";
+    public static final String CONFIG_HTTP_HOT_PERSIST_INTERVAL = "hot.persist.interval";
+    public static final String CONFIG_HTTP_HOT_PREWARM_PAGES = "hot.prewarm.pages";
+    public static final String CONFIG_HTTP_RATELIMIT_READ_RATE = "ratelimit.read.rate";
+    public static final String CONFIG_HTTP_RATELIMIT_READ_BURST = "ratelimit.read.burst";
+    public static final String CONFIG_HTTP_RATELIMIT_WRITE_RATE = "ratelimit.write.rate";
+    public static final String CONFIG_HTTP_RATELIMIT_WRITE_BURST = "ratelimit.write.burst";
+    public static final String CONFIG_HTTP_RATELIMIT_EVICTION_INTERVAL = "ratelimit.eviction.interval";
+    public static final String CONFIG_HTTP_STARTUP_PRECOMPILE_TEMPLATES = "startup.precompile.templates";
+    public static final String CONFIG_HTTP_STARTUP_DATABASE_TIMEOUT = "startup.database.timeout";
+    public static final String CONFIG_HTTP_STARTUP_WARMUP_REQUESTS = "startup.warmup.requests";
+    public static final String CONFIG_HTTP_STARTUP_WARMUP_CONCURRENCY = "startup.warmup.concurrency";
+    public static final String CONFIG_HTTP_DEADLINE_READ = "deadline.read";
+    public static final String CONFIG_HTTP_DEADLINE_WRITE = "deadline.write";
+    public static final String CONFIG_HTTP_BREAKER_WINDOW_SIZE = "breaker.window.size";
+    public static final String CONFIG_HTTP_BREAKER_MINIMUM_CALLS = "breaker.minimum.calls";
+    public static final String CONFIG_HTTP_BREAKER_FAILURE_RATE = "breaker.failure.rate";
+    public static final String CONFIG_HTTP_BREAKER_SLOW_CALL_DURATION = "breaker.slow.call.duration";
+    public static final String CONFIG_HTTP_BREAKER_SLOW_CALL_RATE = "breaker.slow.call.rate";
+    public static final String CONFIG_HTTP_BREAKER_OPEN_DURATION = "breaker.open.duration";
+    public static final String CONFIG_HTTP_BREAKER_FALLBACK_ENTRIES = "breaker.fallback.entries";
+    public static final String CONFIG_HTTP_PAGE_BATCH_MAX_SIZE = "page.batch.max.size";
+    public static final String CONFIG_HTTP_BODY_CACHE_MAX_BYTES = "body.cache.max.bytes";
+    public static final String CONFIG_HTTP_BODY_LIMIT_PAGE = "body.limit.page";
+    public static final String CONFIG_HTTP_BODY_LIMIT_FORM = "body.limit.form";
+    public static final String CONFIG_HTTP_ATTACHMENTS_DIRECTORY = "attachments.directory";
+    public static final String CONFIG_HTTP_ATTACHMENTS_MAX_SIZE = "attachments.max.size";
+    public static final String CONFIG_HTTP_ASSETS_DIRECTORY = "assets.directory";
+    public static final String CONFIG_HTTP_SHUTDOWN_DRAIN_TIMEOUT = "shutdown.drain.timeout";
 
     private static final String EMPTY_PAGE_MARKDOWN =
         "# A new page\n" +
@@ -34,44 +123,575 @@ public class HttpServerVerticle extends AbstractVerticle {
 
     private FreeMarkerTemplateEngine templateEngine;
     private WikiDatabaseService dbService;
+    private GuardedDatabase database;
+    private PageBatcher pageBatcher;
+    private BodyCache bodies;
+    private AttachmentStore attachments;
+    private StaticAssets assets;
+    private IncrementalRenderer renderCache;
+    private RenderService renderer;
+    private EventLoopMonitor eventLoops;
+    private LiveUpdates liveUpdates;
+    private HotPages hotPages;
+    private boolean persistsHotPages;
+    private TokenBuckets readBudget;
+    private TokenBuckets writeBudget;
+    private final PageNameIndex pageNames = new PageNameIndex();
+    private PageEventTracker pageEvents;
+    private List<JsonObject> pendingPageEvents = new ArrayList<>();
+    private boolean warmingUp;
+    private HttpServer server;
+    private int inFlight;
+    private boolean draining;
 
     @Override
     public void start(Promise<Void> promise) {
+        StartupTimings timings = new StartupTimings("HTTP server");
         String wikiDbQueue = config().getString(CONFIG_WIKIDB_QUEUE, CONFIG_WIKIDB_QUEUE);
         dbService = WikiDatabaseService.createProxy(vertx.getDelegate(), wikiDbQueue);
+        database = new GuardedDatabase(vertx.getDelegate(), wikiDbQueue, new CircuitBreaker(
+            config().getInteger(CONFIG_HTTP_BREAKER_WINDOW_SIZE, 20),
+            config().getInteger(CONFIG_HTTP_BREAKER_MINIMUM_CALLS, 10),
+            config().getDouble(CONFIG_HTTP_BREAKER_FAILURE_RATE, 0.5),
+            TimeUnit.MILLISECONDS.toNanos(config().getLong(CONFIG_HTTP_BREAKER_SLOW_CALL_DURATION, 1_000L)),
+            config().getDouble(CONFIG_HTTP_BREAKER_SLOW_CALL_RATE, 0.8),
+            TimeUnit.MILLISECONDS.toNanos(config().getLong(CONFIG_HTTP_BREAKER_OPEN_DURATION, 5_000L))),
+            config().getLong(CONFIG_HTTP_DEADLINE_READ, 2_000L),
+            config().getLong(CONFIG_HTTP_DEADLINE_WRITE, 5_000L),
+            config().getInteger(CONFIG_HTTP_BREAKER_FALLBACK_ENTRIES, 1_000));
+        pageBatcher = new PageBatcher(vertx.getDelegate(), wikiDbQueue,
+            config().getLong(CONFIG_HTTP_DEADLINE_READ, 2_000L),
+            config().getInteger(CONFIG_HTTP_PAGE_BATCH_MAX_SIZE, 100));
+        bodies = BodyCache.shared(vertx.getDelegate(),
+            config().getLong(CONFIG_HTTP_BODY_CACHE_MAX_BYTES, 64L * 1024 * 1024));
+        attachments = new AttachmentStore(vertx,
+            config().getString(CONFIG_HTTP_ATTACHMENTS_DIRECTORY, "db/attachments"),
+            config().getLong(CONFIG_HTTP_ATTACHMENTS_MAX_SIZE, 50L * 1024 * 1024));
+        assets = new StaticAssets(vertx, config().getString(CONFIG_HTTP_ASSETS_DIRECTORY, "db/assets"));
+        renderCache = IncrementalRenderer.shared(vertx.getDelegate(),
+            MarkdownRenderer.forEngine(config().getString(CONFIG_HTTP_RENDER_ENGINE, MarkdownRenderer.TXTMARK)),
+            config().getLong(CONFIG_HTTP_RENDER_CACHE_MAX_CHARS, 16L * 1024 * 1024));
+        renderer = RenderService.shared(vertx.getDelegate(), renderCache,
+            config().getInteger(CONFIG_HTTP_RENDER_OFFLOAD_THRESHOLD, 64 * 1024),
+            config().getInteger(CONFIG_HTTP_RENDER_WORKER_POOL_SIZE, 2),
+            config().getInteger(CONFIG_HTTP_RENDER_QUEUE_MAX_SIZE, 32));
+        eventLoops = EventLoopMonitor.shared(vertx.getDelegate(),
+            config().getLong(CONFIG_HTTP_EVENTLOOP_MONITOR_INTERVAL, 100L),
+            config().getLong(CONFIG_HTTP_EVENTLOOP_STALL_THRESHOLD, 50L));
+        eventLoops.monitor(vertx.getDelegate());
 
-        HttpServer server = vertx.createHttpServer();
+        liveUpdates = new LiveUpdates(vertx,
+            config().getInteger(CONFIG_HTTP_LIVE_MAX_SUBSCRIBERS, 10_000),
+            config().getInteger(CONFIG_HTTP_LIVE_WRITE_QUEUE_MAX_SIZE, 64 * 1024),
+            config().getLong(CONFIG_HTTP_LIVE_HEARTBEAT_INTERVAL, 15_000L));
+        liveUpdates.start();
 
         Router router = Router.router(vertx);
+        router.route().handler(this::trackRequest);
+        startRateLimits(router);
         router.get("/").handler(this::indexHandler);
         router.get("/wiki/:page").handler(this::pageRenderingHandler);
-        router.post().handler(BodyHandler.create());
+        router.get("/attachments/:hash/:name").handler(this::attachmentHandler);
+        router.head("/attachments/:hash/:name").handler(this::attachmentHandler);
+        router.get(StaticAssets.PATH + ":file").handler(assets::send);
+        long pageBodyLimit = config().getLong(CONFIG_HTTP_BODY_LIMIT_PAGE, 4L * 1024 * 1024);
+        long formBodyLimit = config().getLong(CONFIG_HTTP_BODY_LIMIT_FORM, 16L * 1024);
+        router.post("/save").handler(StreamingBodyHandler.form(pageBodyLimit));
+        router.postWithRegex("^/(create|delete)$").handler(StreamingBodyHandler.form(formBodyLimit));
         router.post("/save").handler(this::pageUpdateHandler);
         router.post("/create").handler(this::pageCreateHandler);
         router.post("/delete").handler(this::pageDeletionHandler);
-        router.mountSubRouter("/api", apiRouter());
+        router.mountSubRouter("/api", apiRouter(pageBodyLimit));
+        router.route().failureHandler(this::unavailableHandler);
 
         templateEngine = FreeMarkerTemplateEngine.create(vertx);
 
+        // The templates refer to the fingerprinted assets
+        Future<Void> templates = timings.time("assets", assets::prepare);
+        if (config().getBoolean(CONFIG_HTTP_STARTUP_PRECOMPILE_TEMPLATES, false)) {
+            templates = templates.compose(v -> timings.time("templates", this::precompileTemplates));
+        }
+        long databaseTimeout = config().getLong(CONFIG_HTTP_STARTUP_DATABASE_TIMEOUT, 30_000L);
+        Future<Void> database = timings.time("database", () -> awaitDatabase(System.currentTimeMillis() + databaseTimeout));
+        Future<Void> renderCacheRestored = timings.time("render cache", this::restoreRenderCache);
+
+        CompositeFuture.all(templates, database, renderCacheRestored)
+            .compose(v -> {
+                startHotPages();
+                return timings.time("page names", this::startPageNameIndex);
+            })
+            .compose(v -> {
+                int warmUpRequests = config().getInteger(CONFIG_HTTP_STARTUP_WARMUP_REQUESTS, 0);
+                return warmUpRequests > 0 ? timings.time("warm-up", () -> warmUp(router, warmUpRequests)) : Future.<Void>succeededFuture();
+            })
+            .compose(v -> timings.time("listen", () -> listen(router)))
+            .onComplete(ar -> {
+                if (ar.succeeded()) {
+                    LOGGER.info(timings.summary());
+                    promise.complete();
+                } else {
+                    promise.fail(ar.cause());
+                }
+            });
+    }
+
+    /**
+     * Drains this verticle before it goes away: new requests are turned away while those in flight complete, for up
+     * to {@code shutdown.drain.timeout}, the live update streams are ended and the server is closed. The instance that
+     * persists the hot page list then saves it along with the render cache, for the next process to restore at
+     * startup.
+     */
+    @Override
+    public void stop(Promise<Void> promise) {
+        draining = true;
+        liveUpdates.close();
+        long drainTimeout = config().getLong(CONFIG_HTTP_SHUTDOWN_DRAIN_TIMEOUT, 10_000L);
+        GracefulShutdown.await(vertx.getDelegate(), () -> inFlight == 0, drainTimeout)
+            .compose(drained -> {
+                if (!drained) {
+                    LOGGER.warn("Closing the HTTP server with " + inFlight + " requests in flight");
+                }
+                GracefulShutdown.drained(vertx.getDelegate());
+                Promise<Void> closed = Promise.promise();
+                server.close(closed);
+                return closed.future();
+            })
+            .compose(v -> {
+                if (!persistsHotPages) {
+                    return Future.<Void>succeededFuture();
+                }
+                Promise<Void> saved = Promise.promise();
+                Completable.mergeArray(
+                    saveHotPages(config().getString(CONFIG_HTTP_HOT_PERSIST_FILE, "db/hot-pages.json")),
+                    saveRenderCache(config().getString(CONFIG_HTTP_RENDER_SNAPSHOT_FILE, "db/render-cache.json")))
+                    .subscribe(saved::complete, saved::fail);
+                return saved.future();
+            })
+            .onComplete(promise);
+    }
+
+    /**
+     * Counts the requests in flight for {@link #stop(Promise)}. Once the verticle is draining, new requests are
+     * turned away and HTTP/1.x clients are asked to close the connections of the responses still being written.
+     */
+    private void trackRequest(RoutingContext context) {
+        HttpServerResponse response = context.response();
+        boolean http1 = context.request().version() != HttpVersion.HTTP_2;
+        if (draining) {
+            response.setStatusCode(503).putHeader("Retry-After", "1");
+            if (http1) {
+                response.putHeader("Connection", "close");
+            }
+            response.end();
+            return;
+        }
+        inFlight++;
+        boolean[] ended = new boolean[1];
+        Handler<Void> completed = v -> {
+            if (!ended[0]) {
+                ended[0] = true;
+                inFlight--;
+            }
+        };
+        // The body end handlers also run once a file has been sent, which the end handler does not; the end handler
+        // covers the connections closed before the response ends, and unlike the close handler no route replaces it
+        context.addBodyEndHandler(completed);
+        response.endHandler(completed);
+        if (http1) {
+            context.addHeadersEndHandler(v -> {
+                if (draining) {
+                    response.putHeader("Connection", "close");
+                }
+            });
+        }
+        context.next();
+    }
+
+    /**
+     * Limits each client on the API reads and on every write, through budgets shared by all the HTTP verticles.
+     * Browsing the wiki pages is not limited.
+     */
+    private void startRateLimits(Router router) {
+        readBudget = TokenBuckets.shared(vertx.getDelegate(), "read",
+            config().getDouble(CONFIG_HTTP_RATELIMIT_READ_RATE, 50.0),
+            config().getInteger(CONFIG_HTTP_RATELIMIT_READ_BURST, 100));
+        writeBudget = TokenBuckets.shared(vertx.getDelegate(), "write",
+            config().getDouble(CONFIG_HTTP_RATELIMIT_WRITE_RATE, 5.0),
+            config().getInteger(CONFIG_HTTP_RATELIMIT_WRITE_BURST, 20));
+        long evictionInterval = config().getLong(CONFIG_HTTP_RATELIMIT_EVICTION_INTERVAL, 30_000L);
+        for (TokenBuckets budget : Arrays.asList(readBudget, writeBudget)) {
+            if (budget.claim()) {
+                vertx.setPeriodic(evictionInterval, id -> budget.evictIdle(System.nanoTime()));
+            }
+        }
+
+        RateLimitHandler readLimit = new RateLimitHandler(readBudget, () -> warmingUp);
+        RateLimitHandler writeLimit = new RateLimitHandler(writeBudget, () -> warmingUp);
+        router.get("/api/*").handler(readLimit);
+        router.post().handler(writeLimit);
+        router.put().handler(writeLimit);
+        router.patch().handler(writeLimit);
+        router.delete().handler(writeLimit);
+    }
+
+    private Future<Void> listen(Router router) {
+        Promise<Void> promise = Promise.promise();
         int portNumber = config().getInteger(CONFIG_HTTP_SERVER_PORT, 8080);
-        server
+        HttpServerOptions options;
+        try {
+            options = serverOptions();
+        } catch (IllegalArgumentException e) {
+            LOGGER.error("Invalid TLS configuration", e);
+            return Future.failedFuture(e);
+        }
+        vertx.createHttpServer(options)
             .requestHandler(router)
             .listen(portNumber, ar -> {
                 if (ar.succeeded()) {
-                    LOGGER.info("HTTP server running on port " + portNumber);
+                    server = ar.result();
+                    GracefulShutdown.serving(vertx.getDelegate());
+                    LOGGER.info("HTTP server running on port " + portNumber + (options.isSsl() ? " with TLS" : ""));
                     promise.complete();
                 } else {
                     LOGGER.error("Could not start a HTTP server", ar.cause());
                     promise.fail(ar.cause());
                 }
             });
+        return promise.future();
+    }
+
+    /**
+     * Serves HTTP/1.1 and HTTP/2 on the same port. In cleartext, HTTP/2 is accepted both with prior knowledge and
+     * through an {@code h2c} upgrade; with TLS, which is enabled by configuring either a key store or a PEM key and
+     * certificate, the protocol is negotiated with ALPN.
+     */
+    private HttpServerOptions serverOptions() {
+        HttpServerOptions options = new HttpServerOptions()
+            .setInitialSettings(new Http2Settings()
+                .setMaxConcurrentStreams(config().getLong(CONFIG_HTTP_HTTP2_MAX_CONCURRENT_STREAMS,
+                    HttpServerOptions.DEFAULT_INITIAL_SETTINGS_MAX_CONCURRENT_STREAMS))
+                .setInitialWindowSize(config().getInteger(CONFIG_HTTP_HTTP2_INITIAL_WINDOW_SIZE,
+                    Http2Settings.DEFAULT_INITIAL_WINDOW_SIZE)))
+            .setHttp2ConnectionWindowSize(config().getInteger(CONFIG_HTTP_HTTP2_CONNECTION_WINDOW_SIZE,
+                HttpServerOptions.DEFAULT_HTTP2_CONNECTION_WINDOW_SIZE));
+
+        String keyStore = config().getString(CONFIG_HTTP_TLS_KEYSTORE_PATH);
+        String key = config().getString(CONFIG_HTTP_TLS_KEY_PATH);
+        String cert = config().getString(CONFIG_HTTP_TLS_CERT_PATH);
+        if (keyStore != null) {
+            String password = config().getString(CONFIG_HTTP_TLS_KEYSTORE_PASSWORD);
+            if (keyStore.endsWith(".p12") || keyStore.endsWith(".pfx")) {
+                options.setPfxKeyCertOptions(new PfxOptions().setPath(keyStore).setPassword(password));
+            } else {
+                options.setKeyStoreOptions(new JksOptions().setPath(keyStore).setPassword(password));
+            }
+        } else if (key != null && cert != null) {
+            options.setPemKeyCertOptions(new PemKeyCertOptions().setKeyPath(key).setCertPath(cert));
+        } else if (key != null || cert != null) {
+            throw new IllegalArgumentException("Both " + CONFIG_HTTP_TLS_KEY_PATH + " and " + CONFIG_HTTP_TLS_CERT_PATH
+                + " are needed");
+        } else {
+            return options;
+        }
+        return options
+            .setSsl(true)
+            .setUseAlpn(true)
+            .setAlpnVersions(Arrays.asList(HttpVersion.HTTP_2, HttpVersion.HTTP_1_1));
+    }
+
+    /**
+     * Parses and caches the templates by rendering them once with placeholder data.
+     */
+    private Future<Void> precompileTemplates() {
+        Map<String, Object> index = new HashMap<>();
+        index.put("title", "Wiki home");
+        index.put("pages", Collections.singletonList("Page"));
+        index.put("assets", assets.urls());
+        Promise<Buffer> indexRendered = Promise.promise();
+        templateEngine.render(index, "templates/index.ftl", indexRendered);
+
+        Future<Buffer> pageRendered = renderer.render(EMPTY_PAGE_MARKDOWN).compose(content -> {
+            Map<String, Object> page = new HashMap<>();
+            page.put("title", "Page");
+            page.put("id", 0);
+            page.put("newPage", "no");
+            page.put("rawContent", EMPTY_PAGE_MARKDOWN);
+            page.put("content", content);
+            page.put("backlinks", Collections.singletonList("Page"));
+            page.put("timestamp", new Date().toString());
+            page.put("cached", true);
+            page.put("assets", assets.urls());
+            Promise<Buffer> promise = Promise.promise();
+            templateEngine.render(page, "templates/page.ftl", promise);
+            return promise.future();
+        });
+        return CompositeFuture.all(indexRendered.future(), pageRendered).mapEmpty();
+    }
+
+    /**
+     * Completes once the database service answers, so that this verticle can be deployed before or alongside the
+     * database verticle.
+     */
+    private Future<Void> awaitDatabase(long deadline) {
+        Promise<Void> promise = Promise.promise();
+        dbService.fetchMetrics(reply -> {
+            if (reply.failed() && reply.cause() instanceof ReplyException
+                && ((ReplyException) reply.cause()).failureType() == ReplyFailure.NO_HANDLERS) {
+                if (System.currentTimeMillis() > deadline) {
+                    LOGGER.error("The database service did not come up", reply.cause());
+                    promise.fail(reply.cause());
+                } else {
+                    vertx.setTimer(50, id -> awaitDatabase(deadline).onComplete(promise));
+                }
+            } else {
+                promise.complete();
+            }
+        });
+        return promise.future();
+    }
+
+    /**
+     * Serves a synthetic mix of read-only requests through the router, on a private ephemeral port, to load the
+     * handlers, templates, caches and database statements and give the JIT compiler a head start. The views are not
+     * counted as page hits, and a failed warm-up does not prevent the server from starting.
+     */
+    private Future<Void> warmUp(Router router, int requests) {
+        List<String> paths = new ArrayList<>(Arrays.asList("/", "/api/pages"));
+        List<String> names = hotPages.hottest(20).stream()
+            .map(page -> ((JsonObject) page).getString("name"))
+            .collect(Collectors.toList());
+        names.addAll(pageNames.suggest("", 20));
+        if (names.isEmpty()) {
+            names.add("Warm-up");
+        }
+        for (String name : names) {
+            paths.add("/wiki/" + encode(name));
+            paths.add("/api/pages/suggest?prefix=" + encode(name.substring(0, 1)));
+        }
+        int concurrency = config().getInteger(CONFIG_HTTP_STARTUP_WARMUP_CONCURRENCY, 8);
+
+        Promise<Void> promise = Promise.promise();
+        warmingUp = true;
+        HttpServer warmUpServer = vertx.createHttpServer().requestHandler(router);
+        warmUpServer.rxListen(0, "localhost")
+            .flatMapCompletable(server -> {
+                WebClient client = WebClient.create(vertx, new WebClientOptions()
+                    .setDefaultHost("localhost")
+                    .setDefaultPort(server.actualPort())
+                    .setMaxPoolSize(concurrency));
+                return Flowable.range(0, requests)
+                    .flatMapSingle(i -> client.get(paths.get(i % paths.size())).rxSend(), false, concurrency)
+                    .ignoreElements()
+                    .doFinally(client::close);
+            })
+            .doFinally(() -> {
+                warmingUp = false;
+                warmUpServer.close();
+            })
+            .subscribe(promise::complete, e -> {
+                LOGGER.warn("The warm-up did not complete", e);
+                promise.complete();
+            });
+        return promise.future();
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Loads every page name once, then follows page events to keep the autocomplete index current. Events that
+     * arrive while the list is loading are replayed on top of it.
+     * <p>
+     * In a cluster the events come from the database service on another node, and some may be missed across a network
+     * partition or a restart of that service: the list is then loaded again and the fallback results dropped.
+     */
+    private Future<Void> startPageNameIndex() {
+        long silenceTimeout = config().getLong(CONFIG_HTTP_EVENTS_SILENCE_TIMEOUT, 15_000L);
+        pageEvents = new PageEventTracker(silenceTimeout, System.currentTimeMillis());
+        vertx.eventBus().<JsonObject>consumer(PageEvents.ADDRESS, message -> {
+            if (pageEvents.missedBefore(message.body(), System.currentTimeMillis())) {
+                resyncPageEvents();
+            }
+            if (pendingPageEvents == null) {
+                applyPageEvent(message.body());
+            } else {
+                pendingPageEvents.add(message.body());
+            }
+        });
+        vertx.eventBus().<JsonObject>consumer(PageEvents.HEARTBEAT_ADDRESS, message -> {
+            if (pageEvents.missedBeforeHeartbeat(message.body(), System.currentTimeMillis())) {
+                resyncPageEvents();
+            }
+        });
+        vertx.setPeriodic(silenceTimeout, id -> {
+            if (pageEvents.fellSilent(System.currentTimeMillis())) {
+                LOGGER.warn("The database service has not been heard from for " + silenceTimeout + " ms");
+            }
+        });
+        return loadPageNames();
+    }
+
+    private void resyncPageEvents() {
+        if (pendingPageEvents != null) {
+            return;
+        }
+        LOGGER.info("Page events were missed, reloading the page names and dropping the fallback results");
+        pendingPageEvents = new ArrayList<>();
+        database.invalidateAll();
+        bodies.invalidateAll();
+        loadPageNames();
+    }
+
+    private Future<Void> loadPageNames() {
+        Promise<Void> promise = Promise.promise();
+        database.<JsonArray>read("pages", WikiDatabaseService::fetchAllPages).onComplete(reply -> {
+            if (reply.succeeded()) {
+                pageNames.reset(reply.result().stream().map(String.class::cast).collect(Collectors.toList()));
+            } else {
+                LOGGER.error("Could not load the page names", reply.cause());
+            }
+            pendingPageEvents.forEach(this::applyPageEvent);
+            pendingPageEvents = null;
+            promise.complete();
+        });
+        return promise.future();
+    }
+
+    private void applyPageEvent(JsonObject event) {
+        database.invalidate(event.getString("name"), event.getInteger("id"));
+        JsonArray links = event.getJsonArray("links");
+        bodies.invalidate(event.getString("name"), links != null ? links.getList() : null);
+        if (PageEvents.DELETED.equals(event.getString("type"))) {
+            pageNames.remove(event.getString("name"));
+            hotPages.forget(event.getString("name"));
+        } else {
+            pageNames.add(event.getString("name"));
+        }
+    }
+
+    /**
+     * The first HTTP verticle instance restores the persisted hot list, pre-warms the hottest pages, then saves the
+     * list and decays the counts periodically. The other instances only record views.
+     */
+    private void startHotPages() {
+        hotPages = HotPages.shared(vertx.getDelegate(),
+            config().getInteger(CONFIG_HTTP_HOT_SKETCH_WIDTH, 4096),
+            config().getInteger(CONFIG_HTTP_HOT_SKETCH_DEPTH, 4),
+            config().getInteger(CONFIG_HTTP_HOT_TOP_SIZE, 100));
+        persistsHotPages = hotPages.claim();
+        if (!persistsHotPages) {
+            return;
+        }
+        String file = config().getString(CONFIG_HTTP_HOT_PERSIST_FILE, "db/hot-pages.json");
+        vertx.setPeriodic(config().getLong(CONFIG_HTTP_HOT_PERSIST_INTERVAL, 60_000L), id -> saveHotPages(file).subscribe());
+        vertx.setPeriodic(config().getLong(CONFIG_HTTP_HOT_DECAY_INTERVAL, 3_600_000L), id -> hotPages.decay());
+
+        vertx.fileSystem().readFile(file, ar -> {
+            if (ar.failed()) {
+                LOGGER.info("No hot page list to restore from " + file);
+                return;
+            }
+            try {
+                JsonArray pages = new JsonObject(ar.result().getDelegate()).getJsonArray("pages");
+                for (int i = pages.size() - 1; i >= 0; i--) {
+                    JsonObject page = pages.getJsonObject(i);
+                    hotPages.add(page.getString("name"), page.getInteger("views"));
+                }
+                int count = config().getInteger(CONFIG_HTTP_HOT_PREWARM_PAGES, 20);
+                prewarm(hotPages.hottest(count).stream()
+                    .map(page -> ((JsonObject) page).getString("name"))
+                    .collect(Collectors.toList()), 0);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Ignoring an unreadable hot page list in " + file, e);
+            }
+        });
+    }
+
+    /**
+     * Fetches and renders the hot pages one after the other, so that warming the caches does not compete with the
+     * first requests for database connections.
+     */
+    private void prewarm(List<String> names, int index) {
+        if (index == names.size()) {
+            LOGGER.info("Pre-warmed " + names.size() + " hot pages");
+            return;
+        }
+        String name = names.get(index);
+        database.<JsonObject>read("page:" + name, (db, handler) -> db.fetchPage(name, handler)).onComplete(reply -> {
+            if (reply.succeeded() && reply.result().getBoolean("found")) {
+                renderer.render(reply.result().getString("rawContent")).onComplete(rendered -> prewarm(names, index + 1));
+            } else {
+                prewarm(names, index + 1);
+            }
+        });
+    }
+
+    private Completable saveHotPages(String file) {
+        Buffer content = Buffer.buffer(new JsonObject()
+            .put("savedAt", System.currentTimeMillis())
+            .put("pages", hotPages.hottest(Integer.MAX_VALUE))
+            .encode());
+        return write(file, content)
+            .doOnComplete(() -> LOGGER.debug("Saved the hot page list to " + file))
+            .doOnError(e -> LOGGER.warn("Could not save the hot page list to " + file, e))
+            .onErrorComplete();
+    }
+
+    /**
+     * Restores the rendered blocks saved by the previous process. They are only a head start, so a missing or
+     * unreadable snapshot is ignored.
+     */
+    private Future<Void> restoreRenderCache() {
+        if (!renderCache.claimRestore()) {
+            return Future.succeededFuture();
+        }
+        String file = config().getString(CONFIG_HTTP_RENDER_SNAPSHOT_FILE, "db/render-cache.json");
+        Promise<Void> promise = Promise.promise();
+        vertx.fileSystem().readFile(file, ar -> {
+            if (ar.failed()) {
+                LOGGER.info("No render cache to restore from " + file);
+            } else {
+                try {
+                    int blocks = renderCache.restore(new JsonObject(ar.result().getDelegate()));
+                    LOGGER.info("Restored " + blocks + " rendered blocks from " + file);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Ignoring an unreadable render cache in " + file, e);
+                }
+            }
+            promise.complete();
+        });
+        return promise.future();
+    }
+
+    private Completable saveRenderCache(String file) {
+        return vertx.<Buffer>rxExecuteBlocking(promise -> promise.complete(Buffer.buffer(renderCache.snapshot().encode())), false)
+            .flatMapCompletable(content -> write(file, content))
+            .doOnComplete(() -> LOGGER.info("Saved the render cache to " + file))
+            .doOnError(e -> LOGGER.warn("Could not save the render cache to " + file, e))
+            .onErrorComplete();
+    }
+
+    /**
+     * Writes through a temporary file and a move, so that a process stopped halfway leaves the previous file intact.
+     */
+    private Completable write(String file, Buffer content) {
+        String parent = new File(file).getAbsoluteFile().getParent();
+        return vertx.fileSystem().rxMkdirs(parent)
+            .andThen(vertx.fileSystem().rxWriteFile(file + ".tmp", content))
+            .andThen(vertx.fileSystem().rxMove(file + ".tmp", file, new CopyOptions().setReplaceExisting(true)));
     }
 
     private void indexHandler(RoutingContext context) {
-        dbService.fetchAllPages(reply -> {
+        database.<JsonArray>read("pages", WikiDatabaseService::fetchAllPages).onComplete(reply -> {
             if (reply.succeeded()) {
                 context.put("title", "Wiki home");
                 context.put("pages", reply.result().getList());
+                context.put("assets", assets.urls());
                 templateEngine.render(context.data(), "templates/index.ftl", ar -> {
                     if (ar.succeeded()) {
                         context.response().putHeader("Content-Type", "text/html");
@@ -88,27 +708,61 @@ public class HttpServerVerticle extends AbstractVerticle {
 
     private void pageRenderingHandler(RoutingContext context) {
         String requestedPage = context.request().getParam("page");
+        String cacheKey = "wiki:" + requestedPage;
+        if (bodies.send(cacheKey, context.response().getDelegate()) != null) {
+            if (!warmingUp) {
+                hotPages.record(requestedPage);
+            }
+            return;
+        }
+        long generation = bodies.generation();
+
+        Future<JsonObject> page = database.read("page:" + requestedPage,
+            (db, handler) -> db.fetchPage(requestedPage, handler));
+        Future<JsonArray> backlinks = database.read("backlinks:" + requestedPage,
+            (db, handler) -> db.fetchBacklinks(requestedPage, handler));
 
-        dbService.fetchPage(requestedPage, reply -> {
+        CompositeFuture.all(page, backlinks).onComplete(reply -> {
             if (reply.succeeded()) {
-                JsonObject body = reply.result();
+                JsonObject body = page.result();
 
                 boolean found = body.getBoolean("found");
+                if (found && !warmingUp) {
+                    hotPages.record(requestedPage);
+                }
                 String rawContent = body.getString("rawContent", EMPTY_PAGE_MARKDOWN);
-                context.put("title", requestedPage);
-                context.put("id", body.getInteger("id", -1));
-                context.put("newPage", found ? "no" : "yes");
-                context.put("rawContent", rawContent);
-                context.put("content", Processor.process(rawContent));
-                context.put("timestamp", new Date().toString());
-
-                templateEngine.render(context.data(), "templates/page.ftl", ar -> {
-                    if (ar.succeeded()) {
-                        context.response().putHeader("Content-Type", "text/html");
-                        context.response().end(ar.result());
-                    } else {
-                        context.fail(ar.cause());
+                renderer.render(rawContent).onComplete(rendered -> {
+                    if (rendered.failed()) {
+                        context.fail(rendered.cause());
+                        return;
                     }
+                    context.put("title", requestedPage);
+                    context.put("id", body.getInteger("id", -1));
+                    context.put("newPage", found ? "no" : "yes");
+                    context.put("rawContent", rawContent);
+                    context.put("content", rendered.result());
+                    context.put("backlinks", backlinks.result().getList());
+                    // Found pages are served from the body cache until they change, so the time shown is when the
+                    // cached body was rendered rather than when it is served
+                    context.put("timestamp", new Date().toString());
+                    context.put("cached", found);
+                    context.put("assets", assets.urls());
+
+                    templateEngine.render(context.data(), "templates/page.ftl", ar -> {
+                        if (ar.succeeded()) {
+                            if (found) {
+                                List<String> linkedFrom = backlinks.result().stream()
+                                    .map(String.class::cast)
+                                    .collect(Collectors.toList());
+                                bodies.put(cacheKey, requestedPage, linkedFrom, "text/html", ar.result().getDelegate(),
+                                    generation);
+                            }
+                            context.response().putHeader("Content-Type", "text/html");
+                            context.response().end(ar.result());
+                        } else {
+                            context.fail(ar.cause());
+                        }
+                    });
                 });
 
             } else {
@@ -133,9 +787,9 @@ public class HttpServerVerticle extends AbstractVerticle {
         };
 
         if ("yes".equals(context.request().getParam("newPage"))) {
-            dbService.createPage(title, body, handler);
+            database.<Void>write((db, h) -> db.createPage(title, body, h)).onComplete(handler);
         } else {
-            dbService.savePage(id, body, handler);
+            database.<Void>write((db, h) -> db.savePage(id, body, h)).onComplete(handler);
         }
     }
 
@@ -153,7 +807,7 @@ public class HttpServerVerticle extends AbstractVerticle {
     private void pageDeletionHandler(RoutingContext context) {
         int id = Integer.parseInt(context.request().getParam("id"));
 
-        dbService.deletePage(id, reply -> {
+        database.<Void>write((db, handler) -> db.deletePage(id, handler)).onComplete(reply -> {
             if (reply.succeeded()) {
                 context.response().setStatusCode(303);
                 context.response().putHeader("Location", "/");
@@ -164,110 +818,403 @@ public class HttpServerVerticle extends AbstractVerticle {
         });
     }
 
-    private Router apiRouter() {
+    private void attachmentHandler(RoutingContext context) {
+        String hash = context.request().getParam("hash");
+        if (!AttachmentStore.isHash(hash)) {
+            context.fail(404);
+            return;
+        }
+        if (attachments.notModified(context, hash)) {
+            return;
+        }
+        database.<JsonObject>read("attachment:" + hash, (db, handler) -> db.fetchAttachment(hash, handler)).onComplete(reply -> {
+            if (reply.failed()) {
+                context.fail(reply.cause());
+            } else if (!reply.result().getBoolean("found")) {
+                context.fail(404);
+            } else {
+                attachments.send(context, hash, reply.result().getString("mediaType"), reply.result().getLong("size"));
+            }
+        });
+    }
+
+    private Router apiRouter(long pageBodyLimit) {
         Router apiRouter = Router.router(vertx);
         apiRouter.get("/pages").handler(this::apiRoot);
+        apiRouter.get("/pages/suggest").handler(this::apiSuggest);
         apiRouter.get("/pages/:id").handler(this::apiGetPage);
-        apiRouter.post().handler(BodyHandler.create());
+        apiRouter.get("/export").handler(this::apiExport);
+        apiRouter.get("/events").handler(liveUpdates::subscribe);
+        apiRouter.post("/import").handler(this::apiImport);
+        apiRouter.post("/pages/:id/attachments").handler(this::apiUploadAttachment);
+        apiRouter.get("/pages/:id/attachments").handler(this::apiAttachments);
+        apiRouter.delete("/attachments/:id").handler(this::apiDeleteAttachment);
+        apiRouter.post().handler(StreamingBodyHandler.json(pageBodyLimit));
         apiRouter.post("/pages").handler(this::apiCreatePage);
-        apiRouter.put().handler(BodyHandler.create());
+        apiRouter.put().handler(StreamingBodyHandler.json(pageBodyLimit));
         apiRouter.put("/pages/:id").handler(this::apiUpdatePage);
+        apiRouter.patch().handler(StreamingBodyHandler.json(pageBodyLimit));
+        apiRouter.patch("/pages/:id").handler(this::apiPatchPage);
         apiRouter.delete("/pages/:id").handler(this::apiDeletePage);
+        apiRouter.get("/metrics").handler(this::apiMetrics);
+        apiRouter.get("/stats/hot").handler(this::apiHotPages);
         return apiRouter;
     }
 
     private void apiRoot(RoutingContext context) {
-        dbService.fetchAllPagesData(reply -> {
-            JsonObject response = new JsonObject();
+        database.<String>read("pages-json", WikiDatabaseService::fetchAllPagesJson).onComplete(reply -> {
             if (reply.succeeded()) {
-                List<JsonObject> pages = reply.result()
-                    .stream()
-                    .map(obj -> new JsonObject()
-                        .put("id", obj.getInteger("ID"))
-                        .put("name", obj.getString("NAME")))
-                    .collect(Collectors.toList());
-                response
-                    .put("success", true)
-                    .put("pages", pages);
+                String pages = reply.result();
+                JsonWriter json = JsonWriter.toBuffer(pages.length() + 32)
+                    .beginObject()
+                    .name("success").value(true)
+                    .name("pages").rawValue(pages)
+                    .endObject();
                 context.response().setStatusCode(200);
                 context.response().putHeader("Content-Type", "application/json");
-                context.response().end(response.encode());
+                context.response().end(Buffer.newInstance(json.toBuffer()));
             } else {
-                response
-                    .put("success", false)
-                    .put("error", reply.cause().getMessage());
-                context.response().setStatusCode(500);
-                context.response().putHeader("Content-Type", "application/json");
-                context.response().end(response.encode());
+                apiFailure(context, reply.cause());
             }
         });
     }
 
+    private void apiSuggest(RoutingContext context) {
+        String prefix = context.request().getParam("prefix");
+        int maxLimit = config().getInteger(CONFIG_HTTP_SUGGEST_MAX_LIMIT, 50);
+        int limit = 10;
+        try {
+            if (context.request().getParam("limit") != null) {
+                limit = Math.max(1, Math.min(maxLimit, Integer.parseInt(context.request().getParam("limit"))));
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        JsonArray suggestions = new JsonArray(pageNames.suggest(prefix == null ? "" : prefix, limit));
+        context.response().setStatusCode(200);
+        context.response().putHeader("Content-Type", "application/json");
+        context.response().end(new JsonObject()
+            .put("success", true)
+            .put("suggestions", suggestions).encode());
+    }
+
     private void apiGetPage(RoutingContext context) {
         int id = Integer.parseInt(context.request().getParam("id"));
-        dbService.fetchPageById(id, reply -> {
-            JsonObject response = new JsonObject();
+        String cacheKey = "api-page:" + id;
+        String cachedPage = bodies.send(cacheKey, context.response().getDelegate());
+        if (cachedPage != null) {
+            if (!warmingUp) {
+                hotPages.record(cachedPage);
+            }
+            return;
+        }
+        long generation = bodies.generation();
+        database.<JsonObject>read("page-id:" + id, (db, handler) -> pageBatcher.load(id, handler)).onComplete(reply -> {
             if (reply.succeeded()) {
                 JsonObject dbObject = reply.result();
                 if (dbObject.getBoolean("found")) {
-                    JsonObject payload = new JsonObject()
-                        .put("name", dbObject.getString("name"))
-                        .put("id", dbObject.getInteger("id"))
-                        .put("markdown", dbObject.getString("content"))
-                        .put("html", Processor.process(dbObject.getString("content")));
-                    response
-                        .put("success", true)
-                        .put("page", payload);
-                    context.response().setStatusCode(200);
-                } else {
-                    context.response().setStatusCode(404);
-                    response
-                        .put("success", false)
-                        .put("error", "There is no page with ID " + id);
+                    String name = dbObject.getString("name");
+                    String markdown = dbObject.getString("content");
+                    if (!warmingUp) {
+                        hotPages.record(name);
+                    }
+                    renderer.render(markdown).onComplete(rendered -> {
+                        if (rendered.failed()) {
+                            apiFailure(context, rendered.cause());
+                            return;
+                        }
+                        String html = rendered.result();
+                        // Hashed here rather than by the database, so only this route pays for it, once per cached body
+                        String version = TextPatch.version(markdown);
+                        JsonWriter json = JsonWriter.toBuffer(name.length() + markdown.length() + html.length() + 128)
+                            .beginObject()
+                            .name("success").value(true)
+                            .name("page").beginObject()
+                            .name("name").value(name)
+                            .name("id").value(dbObject.getInteger("id"))
+                            .name("version").value(version)
+                            .name("markdown").value(markdown)
+                            .name("html").value(html)
+                            .endObject()
+                            .endObject();
+                        bodies.put(cacheKey, name, Collections.emptyList(), "application/json", json.toBuffer(), generation);
+                        context.response().setStatusCode(200);
+                        context.response().putHeader("Content-Type", "application/json");
+                        context.response().end(Buffer.newInstance(json.toBuffer()));
+                    });
+                    return;
                 }
-            } else {
-                response
+                context.response().setStatusCode(404);
+                context.response().putHeader("Content-Type", "application/json");
+                context.response().end(new JsonObject()
                     .put("success", false)
-                    .put("error", reply.cause().getMessage());
-                context.response().setStatusCode(500);
+                    .put("error", "There is no page with ID " + id).encode());
+            } else {
+                apiFailure(context, reply.cause());
             }
-            context.response().putHeader("Content-Type", "application/json");
-            context.response().end(response.encode());
         });
     }
 
     private void apiCreatePage(RoutingContext context) {
-        JsonObject page = context.getBodyAsJson();
+        JsonObject page = StreamingBodyHandler.json(context);
         if (!validateJsonPageDocument(context, page, "name", "markdown")) {
             return;
         }
-        dbService.createPage(page.getString("name"), page.getString("markdown"), reply -> {
+        String name = page.getString("name");
+        String markdown = page.getString("markdown");
+        database.<Void>write((db, handler) -> db.createPage(name, markdown, handler)).onComplete(reply -> {
             if (reply.succeeded()) {
                 context.response().setStatusCode(201);
                 context.response().putHeader("Content-Type", "application/json");
                 context.response().end(new JsonObject().put("success", true).encode());
             } else {
-                context.response().setStatusCode(500);
-                context.response().putHeader("Content-Type", "application/json");
-                context.response().end(new JsonObject()
-                    .put("success", false)
-                    .put("error", reply.cause().getMessage()).encode());
+                apiFailure(context, reply.cause());
             }
         });
     }
 
     private void apiUpdatePage(RoutingContext context) {
         int id = Integer.parseInt(context.request().getParam("id"));
-        JsonObject page = context.getBodyAsJson();
+        JsonObject page = StreamingBodyHandler.json(context);
         if (!validateJsonPageDocument(context, page, "markdown")) {
             return;
         }
-        dbService.savePage(id, page.getString("markdown"), reply -> handleSimpleDbReply(context, reply));
+        String markdown = page.getString("markdown");
+        database.<Void>write((db, handler) -> db.savePage(id, markdown, handler))
+            .onComplete(reply -> handleSimpleDbReply(context, reply));
+    }
+
+    /**
+     * Applies a {@link io.vertx.guides.wiki.database.TextPatch} to a page, so that a small edit to a large page sends
+     * only the changed text. Answers {@code 409 Conflict} with the current version when the page has changed since the
+     * base version of the patch.
+     */
+    private void apiPatchPage(RoutingContext context) {
+        int id = Integer.parseInt(context.request().getParam("id"));
+        JsonObject patch = StreamingBodyHandler.json(context);
+        if (!validateJsonPageDocument(context, patch, "base", "edits")) {
+            return;
+        }
+        Object base = patch.getValue("base");
+        Object edits = patch.getValue("edits");
+        if (!(base instanceof String) || !(edits instanceof JsonArray)) {
+            apiBadRequest(context, "The base must be a version and the edits an array");
+            return;
+        }
+        database.<JsonObject>write((db, handler) -> db.patchPage(id, (String) base, (JsonArray) edits, handler)).onComplete(reply -> {
+            if (reply.failed()) {
+                apiFailure(context, reply.cause());
+                return;
+            }
+            JsonObject result = reply.result();
+            JsonObject response = new JsonObject();
+            if (!result.getBoolean("found")) {
+                context.response().setStatusCode(404);
+                response.put("success", false).put("error", "There is no page with ID " + id);
+            } else if (result.containsKey("error")) {
+                context.response().setStatusCode(400);
+                response.put("success", false).put("error", result.getString("error"));
+            } else if (result.getBoolean("conflict")) {
+                context.response().setStatusCode(409);
+                response
+                    .put("success", false)
+                    .put("error", "The page has changed since version " + base)
+                    .put("version", result.getString("version"));
+            } else {
+                context.response().setStatusCode(200);
+                response.put("success", true).put("version", result.getString("version"));
+            }
+            context.response().putHeader("Content-Type", "application/json");
+            context.response().end(response.encode());
+        });
+    }
+
+    private void apiBadRequest(RoutingContext context, String message) {
+        context.response().setStatusCode(400);
+        context.response().putHeader("Content-Type", "application/json");
+        context.response().end(new JsonObject()
+            .put("success", false)
+            .put("error", message).encode());
     }
 
     private void apiDeletePage(RoutingContext context) {
         int id = Integer.parseInt(context.request().getParam("id"));
-        dbService.deletePage(id, reply -> handleSimpleDbReply(context, reply));
+        database.<Void>write((db, handler) -> db.deletePage(id, handler))
+            .onComplete(reply -> handleSimpleDbReply(context, reply));
+    }
+
+    private void apiExport(RoutingContext context) {
+        int window = config().getInteger(CONFIG_HTTP_EXPORT_WINDOW, 64);
+        new PageExportSession(vertx, context.response(), window).start(dbService);
+    }
+
+    private void apiImport(RoutingContext context) {
+        int batchSize = config().getInteger(CONFIG_HTTP_IMPORT_BATCH_SIZE, 100);
+        int maxLineSize = config().getInteger(CONFIG_HTTP_IMPORT_MAX_LINE_SIZE, 4 * 1024 * 1024);
+        new PageImportSession(context.request(), dbService, batchSize, maxLineSize).start();
+    }
+
+    /**
+     * Streams the request body to the attachment store, the attachment name being given by the {@code name} query
+     * parameter and its media type by the {@code Content-Type} header.
+     */
+    private void apiUploadAttachment(RoutingContext context) {
+        int pageId = Integer.parseInt(context.request().getParam("id"));
+        String name = context.request().getParam("name");
+        if (name == null || name.isEmpty() || name.length() > 255) {
+            context.response().setStatusCode(400);
+            context.response().putHeader("Content-Type", "application/json");
+            context.response().end(new JsonObject()
+                .put("success", false)
+                .put("error", "An attachment name of at most 255 characters is required").encode());
+            return;
+        }
+        String contentLength = context.request().getHeader("Content-Length");
+        if (contentLength != null) {
+            long declared;
+            try {
+                declared = Long.parseLong(contentLength);
+            } catch (NumberFormatException e) {
+                apiBadRequest(context, "Invalid Content-Length: " + contentLength);
+                return;
+            }
+            if (declared > attachments.maxSize()) {
+                attachmentTooLarge(context, new AttachmentStore.TooLargeException(attachments.maxSize()));
+                return;
+            }
+        }
+        String contentType = context.request().getHeader("Content-Type");
+        String mediaType = contentType == null ? "application/octet-stream" : contentType;
+
+        attachments.store(context.request())
+            .compose(stored -> database.<JsonObject>write((db, handler) -> db.saveAttachment(pageId, name,
+                stored.getString("hash"), mediaType, stored.getLong("size"), handler)))
+            .onComplete(reply -> {
+                if (reply.succeeded() && reply.result().getBoolean("found")) {
+                    JsonObject attachment = reply.result();
+                    attachment.remove("found");
+                    context.response().setStatusCode(201);
+                    context.response().putHeader("Content-Type", "application/json");
+                    context.response().end(new JsonObject()
+                        .put("success", true)
+                        .put("attachment", withUrl(attachment)).encode());
+                } else if (reply.succeeded()) {
+                    context.response().setStatusCode(404);
+                    context.response().putHeader("Content-Type", "application/json");
+                    context.response().end(new JsonObject()
+                        .put("success", false)
+                        .put("error", "There is no page with ID " + pageId).encode());
+                } else if (reply.cause() instanceof AttachmentStore.TooLargeException) {
+                    attachmentTooLarge(context, reply.cause());
+                } else {
+                    apiFailure(context, reply.cause());
+                }
+            });
+    }
+
+    private void attachmentTooLarge(RoutingContext context, Throwable cause) {
+        StreamingBodyHandler.discardBody(context.request());
+        context.response().setStatusCode(413);
+        context.response().putHeader("Content-Type", "application/json");
+        context.response().end(new JsonObject()
+            .put("success", false)
+            .put("error", cause.getMessage()).encode());
+    }
+
+    private void apiAttachments(RoutingContext context) {
+        int pageId = Integer.parseInt(context.request().getParam("id"));
+        database.<JsonArray>read("attachments:" + pageId, (db, handler) -> db.fetchAttachments(pageId, handler)).onComplete(reply -> {
+            if (reply.succeeded()) {
+                JsonArray list = new JsonArray();
+                reply.result().forEach(attachment -> list.add(withUrl(((JsonObject) attachment).copy())));
+                context.response().setStatusCode(200);
+                context.response().putHeader("Content-Type", "application/json");
+                context.response().end(new JsonObject()
+                    .put("success", true)
+                    .put("attachments", list).encode());
+            } else {
+                apiFailure(context, reply.cause());
+            }
+        });
+    }
+
+    private void apiDeleteAttachment(RoutingContext context) {
+        int id = Integer.parseInt(context.request().getParam("id"));
+        database.<JsonObject>write((db, handler) -> db.deleteAttachment(id, handler)).onComplete(reply -> {
+            if (reply.failed()) {
+                apiFailure(context, reply.cause());
+                return;
+            }
+            JsonObject deleted = reply.result();
+            if (!deleted.getBoolean("found")) {
+                context.response().setStatusCode(404);
+                context.response().putHeader("Content-Type", "application/json");
+                context.response().end(new JsonObject()
+                    .put("success", false)
+                    .put("error", "There is no attachment with ID " + id).encode());
+                return;
+            }
+            if (deleted.getLong("references") == 0) {
+                String hash = deleted.getString("hash");
+                attachments.delete(hash).subscribe(
+                    () -> LOGGER.debug("Deleted the unreferenced attachment content " + hash),
+                    e -> LOGGER.warn("Could not delete the attachment content " + hash, e));
+            }
+            context.response().setStatusCode(200);
+            context.response().putHeader("Content-Type", "application/json");
+            context.response().end(new JsonObject().put("success", true).encode());
+        });
+    }
+
+    private static JsonObject withUrl(JsonObject attachment) {
+        return attachment.put("url", "/attachments/" + attachment.getString("hash") + "/"
+            + encode(attachment.getString("name")).replace("+", "%20"));
+    }
+
+    private void apiHotPages(RoutingContext context) {
+        int limit = 20;
+        try {
+            if (context.request().getParam("limit") != null) {
+                limit = Math.max(1, Integer.parseInt(context.request().getParam("limit")));
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        context.response().setStatusCode(200);
+        context.response().putHeader("Content-Type", "application/json");
+        context.response().end(new JsonObject()
+            .put("success", true)
+            .put("pages", hotPages.hottest(limit)).encode());
+    }
+
+    private void apiMetrics(RoutingContext context) {
+        dbService.fetchMetrics(reply -> {
+            JsonObject response = new JsonObject();
+            if (reply.succeeded()) {
+                response
+                    .put("success", true)
+                    .put("database", reply.result())
+                    .put("render", renderer.metrics())
+                    .put("eventLoops", eventLoops.metrics())
+                    .put("pageEvents", pageEvents.metrics(System.currentTimeMillis())
+                        .put("clustered", vertx.isClustered()))
+                    .put("live", liveUpdates.metrics())
+                    .put("suggest", new JsonObject().put("pages", pageNames.size()))
+                    .put("hot", hotPages.metrics())
+                    .put("breaker", database.metrics())
+                    .put("pageBatches", pageBatcher.metrics())
+                    .put("bodyCache", bodies.metrics())
+                    .put("rateLimit", new JsonObject()
+                        .put("read", readBudget.metrics())
+                        .put("write", writeBudget.metrics()));
+                context.response().setStatusCode(200);
+            } else {
+                response
+                    .put("success", false)
+                    .put("error", reply.cause().getMessage());
+                context.response().setStatusCode(500);
+            }
+            context.response().putHeader("Content-Type", "application/json");
+            context.response().end(response.encode());
+        });
     }
 
     private boolean validateJsonPageDocument(RoutingContext context, JsonObject page, String... expectedKeys) {
@@ -283,17 +1230,54 @@ public class HttpServerVerticle extends AbstractVerticle {
         return true;
     }
 
+    /**
+     * Replies {@code 503} with a {@code Retry-After} header when the database is unavailable, {@code 500} otherwise.
+     */
+    private void apiFailure(RoutingContext context, Throwable cause) {
+        if (isUnavailable(cause)) {
+            context.response().setStatusCode(503);
+            context.response().putHeader("Retry-After", Long.toString(retryAfterSeconds(cause)));
+        } else if (cause instanceof ReplyException
+            && ((ReplyException) cause).failureCode() == ErrorCodes.PAGE_NOT_FOUND.ordinal()) {
+            context.response().setStatusCode(404);
+        } else {
+            context.response().setStatusCode(500);
+        }
+        context.response().putHeader("Content-Type", "application/json");
+        context.response().end(new JsonObject()
+            .put("success", false)
+            .put("error", cause.getMessage()).encode());
+    }
+
+    /**
+     * Turns the failures of the HTML pages caused by an unavailable database or a saturated renderer into a
+     * {@code 503}.
+     */
+    private void unavailableHandler(RoutingContext context) {
+        if (context.failure() != null && isUnavailable(context.failure())) {
+            context.response().setStatusCode(503);
+            context.response().putHeader("Retry-After", Long.toString(retryAfterSeconds(context.failure())));
+            context.response().end("The wiki is temporarily unavailable, please retry shortly");
+        } else {
+            context.next();
+        }
+    }
+
+    private static boolean isUnavailable(Throwable cause) {
+        return GuardedDatabase.isUnavailable(cause) || cause instanceof RenderService.QueueFullException;
+    }
+
+    private long retryAfterSeconds(Throwable cause) {
+        return cause instanceof RenderService.QueueFullException ? 1 : database.retryAfterSeconds();
+    }
+
     private void handleSimpleDbReply(RoutingContext context, AsyncResult<Void> reply) {
         if (reply.succeeded()) {
             context.response().setStatusCode(200);
             context.response().putHeader("Content-Type", "application/json");
             context.response().end(new JsonObject().put("success", true).encode());
         } else {
-            context.response().setStatusCode(500);
-            context.response().putHeader("Content-Type", "application/json");
-            context.response().end(new JsonObject()
-                .put("success", false)
-                .put("error", reply.cause().getMessage()).encode());
+            apiFailure(context, reply.cause());
         }
     }
 
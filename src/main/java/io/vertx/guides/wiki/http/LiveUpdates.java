@@ -0,0 +1,143 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.guides.wiki.database.PageEvents;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.buffer.Buffer;
+import io.vertx.reactivex.core.eventbus.Message;
+import io.vertx.reactivex.core.http.HttpServerResponse;
+import io.vertx.reactivex.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pushes {@link PageEvents} to browsers over server-sent events.
+ * <p>
+ * Every HTTP verticle instance consumes the published page events once and fans them out to its own connections,
+ * either to the subscribers of one page or to those watching the whole wiki. Each connection has a bounded write
+ * queue: a client that cannot keep up with the events is disconnected rather than buffered for, and can reconnect
+ * through the browser's {@code EventSource} retry.
+ */
+class LiveUpdates {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LiveUpdates.class);
+
+    private static final String ALL_PAGES = "";
+    private static final Buffer HEARTBEAT = Buffer.buffer(":\n\n");
+
+    private final Vertx vertx;
+    private final int maxSubscribers;
+    private final int writeQueueMaxSize;
+    private final long heartbeatInterval;
+
+    private final Map<String, Set<HttpServerResponse>> subscribers = new HashMap<>();
+    private int subscriberCount;
+    private long rejected;
+    private long evicted;
+    private long delivered;
+
+    LiveUpdates(Vertx vertx, int maxSubscribers, int writeQueueMaxSize, long heartbeatInterval) {
+        this.vertx = vertx;
+        this.maxSubscribers = maxSubscribers;
+        this.writeQueueMaxSize = writeQueueMaxSize;
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    void start() {
+        vertx.eventBus().consumer(PageEvents.ADDRESS, this::broadcast);
+        vertx.setPeriodic(heartbeatInterval, id -> heartbeat());
+    }
+
+    void subscribe(RoutingContext context) {
+        HttpServerResponse response = context.response();
+        if (subscriberCount >= maxSubscribers) {
+            rejected++;
+            response.setStatusCode(503);
+            response.putHeader("Retry-After", "30");
+            response.end();
+            return;
+        }
+        String page = context.request().getParam("page");
+        String topic = page == null ? ALL_PAGES : page;
+
+        response.setChunked(true);
+        response.setWriteQueueMaxSize(writeQueueMaxSize);
+        response.putHeader("Content-Type", "text/event-stream");
+        response.putHeader("Cache-Control", "no-cache");
+        response.write("retry: 5000\n\n");
+
+        subscribers.computeIfAbsent(topic, k -> new LinkedHashSet<>()).add(response);
+        subscriberCount++;
+        response.closeHandler(v -> remove(topic, response));
+    }
+
+    /**
+     * Ends every stream, which the browsers reopen against whichever server answers next.
+     */
+    void close() {
+        for (Set<HttpServerResponse> responses : new ArrayList<>(subscribers.values())) {
+            for (HttpServerResponse response : responses.toArray(new HttpServerResponse[0])) {
+                response.end();
+            }
+        }
+        subscribers.clear();
+        subscriberCount = 0;
+    }
+
+    JsonObject metrics() {
+        return new JsonObject()
+            .put("subscribers", subscriberCount)
+            .put("topics", subscribers.size())
+            .put("maxSubscribers", maxSubscribers)
+            .put("delivered", delivered)
+            .put("evicted", evicted)
+            .put("rejected", rejected);
+    }
+
+    private void broadcast(Message<JsonObject> message) {
+        JsonObject event = message.body();
+        Buffer frame = Buffer.buffer("event: " + event.getString("type") + "\ndata: " + event.encode() + "\n\n");
+        delivered += send(subscribers.get(event.getString("name")), frame);
+        delivered += send(subscribers.get(ALL_PAGES), frame);
+    }
+
+    private void heartbeat() {
+        for (Set<HttpServerResponse> responses : new ArrayList<>(subscribers.values())) {
+            send(responses, HEARTBEAT);
+        }
+    }
+
+    private int send(Set<HttpServerResponse> responses, Buffer frame) {
+        if (responses == null) {
+            return 0;
+        }
+        int sent = 0;
+        for (HttpServerResponse response : responses.toArray(new HttpServerResponse[0])) {
+            if (response.writeQueueFull()) {
+                evicted++;
+                LOGGER.debug("Evicting a slow live update subscriber");
+                response.close();
+            } else {
+                response.write(frame);
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    private void remove(String topic, HttpServerResponse response) {
+        Set<HttpServerResponse> responses = subscribers.get(topic);
+        if (responses != null && responses.remove(response)) {
+            subscriberCount--;
+            if (responses.isEmpty()) {
+                subscribers.remove(topic);
+            }
+        }
+    }
+}
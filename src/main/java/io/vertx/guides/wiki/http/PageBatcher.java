@@ -0,0 +1,98 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.guides.wiki.database.Deadlines;
+import io.vertx.guides.wiki.database.WikiDatabaseService;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coalesces the page lookups by id made during one event loop tick into a single
+ * {@link WikiDatabaseService#fetchPagesByIds} call, so that many concurrent lookups cost one event bus message and one
+ * query instead of one each.
+ * <p>
+ * The first lookup of a tick schedules the batch on the context; the lookups made before it runs join the batch, up to
+ * the maximum batch size, which sends it right away. The results are then dispatched to every caller, including those
+ * that asked for the same page.
+ * <p>
+ * Instances are confined to the event loop of one HTTP verticle.
+ */
+class PageBatcher {
+
+    private final Vertx vertx;
+    private final DeliveryOptions options = new DeliveryOptions();
+    private final WikiDatabaseService service;
+    private final long deadline;
+    private final int maxBatchSize;
+
+    private Map<Integer, List<Handler<AsyncResult<JsonObject>>>> pending = new LinkedHashMap<>();
+    private long loads;
+    private long batches;
+    private int largestBatch;
+
+    PageBatcher(Vertx vertx, String address, long deadline, int maxBatchSize) {
+        this.vertx = vertx;
+        this.service = WikiDatabaseService.createProxy(vertx, address, options);
+        this.deadline = deadline;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Looks page {@code id} up, with the result of {@link WikiDatabaseService#fetchPageById}.
+     */
+    void load(int id, Handler<AsyncResult<JsonObject>> handler) {
+        loads++;
+        if (pending.isEmpty()) {
+            Map<Integer, List<Handler<AsyncResult<JsonObject>>>> batch = pending;
+            vertx.runOnContext(v -> {
+                if (batch == pending) {
+                    flush();
+                }
+            });
+        }
+        pending.computeIfAbsent(id, key -> new ArrayList<>(1)).add(handler);
+        if (pending.size() >= maxBatchSize) {
+            flush();
+        }
+    }
+
+    JsonObject metrics() {
+        return new JsonObject()
+            .put("maxBatchSize", maxBatchSize)
+            .put("loads", loads)
+            .put("batches", batches)
+            .put("largestBatch", largestBatch)
+            .put("meanBatchSize", batches == 0 ? 0.0 : (double) loads / batches);
+    }
+
+    private void flush() {
+        Map<Integer, List<Handler<AsyncResult<JsonObject>>>> batch = pending;
+        pending = new LinkedHashMap<>();
+        batches++;
+        largestBatch = Math.max(largestBatch, batch.size());
+
+        JsonArray ids = new JsonArray(new ArrayList<>(batch.keySet()));
+        Deadlines.renew(options, deadline);
+        service.fetchPagesByIds(ids, reply -> {
+            int index = 0;
+            for (List<Handler<AsyncResult<JsonObject>>> handlers : batch.values()) {
+                JsonObject page = reply.succeeded() ? reply.result().getJsonObject(index++) : null;
+                for (int i = 0; i < handlers.size(); i++) {
+                    // Callers asking for the same page each get their own copy
+                    handlers.get(i).handle(reply.succeeded()
+                        ? Future.succeededFuture(i == 0 ? page : page.copy())
+                        : Future.failedFuture(reply.cause()));
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,87 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Follows the numbering of the page events and heartbeats published by the database service, to tell when some
+ * events were missed and the caches built from them must be rebuilt.
+ * <p>
+ * Events are missed when this node was cut from the cluster for a while, or when the database service restarted or
+ * moved to another node, which shows as a new origin. A database service that has not been heard from within the
+ * timeout is considered gone, and the caches are rebuilt once it is back.
+ * <p>
+ * Confined to the event loop of one HTTP verticle.
+ */
+class PageEventTracker {
+
+    private final long silenceTimeout;
+
+    private String origin;
+    private long sequence;
+    private long lastHeardAt;
+    private boolean silent;
+    private long resyncs;
+
+    PageEventTracker(long silenceTimeout, long now) {
+        this.silenceTimeout = silenceTimeout;
+        this.lastHeardAt = now;
+    }
+
+    /**
+     * Records a page event, returning {@code true} when events were missed before it.
+     */
+    boolean missedBefore(JsonObject event, long now) {
+        return advance(event, 1, now);
+    }
+
+    /**
+     * Records a heartbeat, returning {@code true} when events were missed before it.
+     */
+    boolean missedBeforeHeartbeat(JsonObject heartbeat, long now) {
+        return advance(heartbeat, 0, now);
+    }
+
+    /**
+     * Returns {@code true} once when the database service has not been heard from within the timeout.
+     */
+    boolean fellSilent(long now) {
+        if (silent || now - lastHeardAt <= silenceTimeout) {
+            return false;
+        }
+        silent = true;
+        return true;
+    }
+
+    JsonObject metrics(long now) {
+        return new JsonObject()
+            .put("origin", origin)
+            .put("sequence", sequence)
+            .put("silent", silent)
+            .put("lastHeardMillisAgo", now - lastHeardAt)
+            .put("resyncs", resyncs);
+    }
+
+    private boolean advance(JsonObject message, int step, long now) {
+        lastHeardAt = now;
+        String from = message.getString("origin");
+        Long number = message.getLong("sequence");
+        boolean wasSilent = silent;
+        silent = false;
+        if (from == null || number == null) {
+            return false;
+        }
+        boolean missed;
+        if (origin == null || !origin.equals(from)) {
+            missed = origin != null || wasSilent;
+            origin = from;
+            sequence = number;
+        } else {
+            missed = wasSilent || number > sequence + step;
+            sequence = Math.max(sequence, number);
+        }
+        if (missed) {
+            resyncs++;
+        }
+        return missed;
+    }
+}
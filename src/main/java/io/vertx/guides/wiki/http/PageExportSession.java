@@ -0,0 +1,125 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.guides.wiki.database.PageStreams;
+import io.vertx.guides.wiki.database.WikiDatabaseService;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.buffer.Buffer;
+import io.vertx.reactivex.core.eventbus.Message;
+import io.vertx.reactivex.core.eventbus.MessageConsumer;
+import io.vertx.reactivex.core.http.HttpServerResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.UUID;
+
+/**
+ * Relays a {@link PageStreams} page stream to an HTTP response as NDJSON.
+ * <p>
+ * Credits are only handed back to the database service while the response write queue has room, so a slow client
+ * throttles the underlying row stream instead of piling pages up in memory.
+ */
+class PageExportSession {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PageExportSession.class);
+
+    private static final String ADDRESS_PREFIX = "wiki.export.";
+    private static final Buffer NEWLINE = Buffer.buffer("\n");
+
+    private final Vertx vertx;
+    private final HttpServerResponse response;
+    private final int window;
+    private final String address = ADDRESS_PREFIX + UUID.randomUUID();
+
+    private MessageConsumer<JsonObject> consumer;
+    private int outstanding;
+    private boolean awaitingDrain;
+    private boolean done;
+
+    PageExportSession(Vertx vertx, HttpServerResponse response, int window) {
+        this.vertx = vertx;
+        this.response = response;
+        this.window = window;
+    }
+
+    void start(WikiDatabaseService dbService) {
+        response.setChunked(true);
+        response.putHeader("Content-Type", "application/x-ndjson");
+        response.closeHandler(v -> cancel());
+
+        consumer = vertx.eventBus().consumer(address, this::handle);
+        consumer.completionHandler(registered -> {
+            if (registered.failed()) {
+                fail(registered.cause());
+                return;
+            }
+            outstanding = window;
+            dbService.exportPages(address, window, ar -> {
+                if (ar.failed()) {
+                    fail(ar.cause());
+                }
+            });
+        });
+    }
+
+    private void handle(Message<JsonObject> message) {
+        if (done) {
+            return;
+        }
+        String event = message.headers().get(PageStreams.HEADER_EVENT);
+        if (PageStreams.EVENT_END.equals(event)) {
+            done = true;
+            consumer.unregister();
+            response.end();
+        } else if (PageStreams.EVENT_ERROR.equals(event)) {
+            fail(new IllegalStateException("The page export stream failed"));
+        } else {
+            response.write(Buffer.buffer(message.body().encode()).appendBuffer(NEWLINE));
+            outstanding--;
+            replenish();
+        }
+    }
+
+    private void replenish() {
+        if (outstanding > window / 2 || awaitingDrain) {
+            return;
+        }
+        if (response.writeQueueFull()) {
+            awaitingDrain = true;
+            response.drainHandler(v -> {
+                awaitingDrain = false;
+                replenish();
+            });
+        } else {
+            int granted = window - outstanding;
+            outstanding = window;
+            vertx.eventBus().send(address + PageStreams.CREDITS_SUFFIX, granted);
+        }
+    }
+
+    private void cancel() {
+        if (done) {
+            return;
+        }
+        done = true;
+        LOGGER.debug("Export client went away, cancelling {}", address);
+        vertx.eventBus().send(address + PageStreams.CREDITS_SUFFIX, PageStreams.CANCEL);
+        consumer.unregister();
+    }
+
+    private void fail(Throwable cause) {
+        done = true;
+        consumer.unregister();
+        LOGGER.error("Export failed", cause);
+        if (!response.headWritten()) {
+            response.setChunked(false);
+            response.setStatusCode(500);
+            response.putHeader("Content-Type", "application/json");
+            response.end(new JsonObject()
+                .put("success", false)
+                .put("error", cause.getMessage()).encode());
+        } else {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.guides.wiki.database.WikiDatabaseService;
+import io.vertx.reactivex.core.buffer.Buffer;
+import io.vertx.reactivex.core.http.HttpServerRequest;
+import io.vertx.reactivex.core.http.HttpServerResponse;
+import io.vertx.reactivex.core.parsetools.RecordParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parses an NDJSON upload line by line and hands the pages to the database service in batches.
+ * <p>
+ * The request is paused while a batch is being written, so at most one batch and one partial line are held in
+ * memory whatever the size of the upload.
+ */
+class PageImportSession {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PageImportSession.class);
+
+    private final HttpServerRequest request;
+    private final HttpServerResponse response;
+    private final WikiDatabaseService dbService;
+    private final int batchSize;
+    private final int maxLineSize;
+
+    private RecordParser parser;
+    private JsonArray batch = new JsonArray();
+    private int imported;
+    private long lineNumber;
+    private boolean done;
+
+    PageImportSession(HttpServerRequest request, WikiDatabaseService dbService, int batchSize, int maxLineSize) {
+        this.request = request;
+        this.response = request.response();
+        this.dbService = dbService;
+        this.batchSize = batchSize;
+        this.maxLineSize = maxLineSize;
+    }
+
+    void start() {
+        parser = RecordParser.newDelimited("\n", request).maxRecordSize(maxLineSize);
+        parser.exceptionHandler(e -> reply(400, e.getMessage()));
+        parser.handler(this::handleLine);
+        parser.endHandler(v -> flush(() -> {
+            if (!done) {
+                done = true;
+                response.setStatusCode(200);
+                response.putHeader("Content-Type", "application/json");
+                response.end(new JsonObject()
+                    .put("success", true)
+                    .put("imported", imported).encode());
+            }
+        }));
+    }
+
+    private void handleLine(Buffer line) {
+        lineNumber++;
+        if (done) {
+            return;
+        }
+        String text = line.toString().trim();
+        if (text.isEmpty()) {
+            return;
+        }
+        JsonObject page;
+        try {
+            page = new JsonObject(text);
+        } catch (DecodeException e) {
+            reply(400, "Malformed JSON on line " + lineNumber);
+            return;
+        }
+        if (page.getString("name") == null || page.getString("markdown") == null) {
+            reply(400, "Missing name or markdown on line " + lineNumber);
+            return;
+        }
+        batch.add(new JsonObject()
+            .put("name", page.getString("name"))
+            .put("markdown", page.getString("markdown")));
+        if (batch.size() >= batchSize) {
+            parser.pause();
+            flush(parser::resume);
+        }
+    }
+
+    private void flush(Runnable next) {
+        if (done || batch.isEmpty()) {
+            next.run();
+            return;
+        }
+        JsonArray pages = batch;
+        batch = new JsonArray();
+        dbService.importPages(pages, ar -> {
+            if (ar.succeeded()) {
+                imported += ar.result();
+                next.run();
+            } else {
+                LOGGER.error("Import batch failed after {} pages", imported, ar.cause());
+                reply(500, ar.cause().getMessage());
+            }
+        });
+    }
+
+    private void reply(int status, String error) {
+        if (done) {
+            return;
+        }
+        done = true;
+        response.setStatusCode(status);
+        response.putHeader("Content-Type", "application/json");
+        response.putHeader("Connection", "close");
+        response.end(new JsonObject()
+            .put("success", false)
+            .put("imported", imported)
+            .put("error", error).encode());
+    }
+}
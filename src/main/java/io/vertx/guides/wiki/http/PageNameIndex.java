@@ -0,0 +1,84 @@
+package io.vertx.guides.wiki.http;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Page names kept in a case-insensitively sorted array, answering prefix queries with a binary search.
+ * <p>
+ * Names that share a prefix are contiguous in that order, so a lookup costs {@code O(log n + limit)} and the whole
+ * index is a single array of references to the page names.
+ */
+class PageNameIndex {
+
+    private String[] names = new String[0];
+
+    void reset(Collection<String> pageNames) {
+        String[] sorted = pageNames.toArray(new String[0]);
+        Arrays.sort(sorted, String.CASE_INSENSITIVE_ORDER);
+        names = sorted;
+    }
+
+    void add(String name) {
+        if (indexOf(name) >= 0) {
+            return;
+        }
+        int insertion = lowerBound(name);
+        String[] grown = new String[names.length + 1];
+        System.arraycopy(names, 0, grown, 0, insertion);
+        grown[insertion] = name;
+        System.arraycopy(names, insertion, grown, insertion + 1, names.length - insertion);
+        names = grown;
+    }
+
+    void remove(String name) {
+        int index = indexOf(name);
+        if (index < 0) {
+            return;
+        }
+        String[] shrunk = new String[names.length - 1];
+        System.arraycopy(names, 0, shrunk, 0, index);
+        System.arraycopy(names, index + 1, shrunk, index, names.length - index - 1);
+        names = shrunk;
+    }
+
+    List<String> suggest(String prefix, int limit) {
+        List<String> suggestions = new ArrayList<>(Math.min(limit, 16));
+        for (int i = lowerBound(prefix); i < names.length && suggestions.size() < limit; i++) {
+            if (!names[i].regionMatches(true, 0, prefix, 0, prefix.length())) {
+                break;
+            }
+            suggestions.add(names[i]);
+        }
+        return suggestions;
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    private int indexOf(String name) {
+        for (int i = lowerBound(name); i < names.length && names[i].equalsIgnoreCase(name); i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = names.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (String.CASE_INSENSITIVE_ORDER.compare(names[middle], key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
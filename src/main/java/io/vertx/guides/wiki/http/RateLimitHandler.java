@@ -0,0 +1,55 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.http.HttpServerRequest;
+import io.vertx.reactivex.ext.web.RoutingContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Lets a request through when its client still has a token in the {@link TokenBuckets} of the route, and answers
+ * {@code 429 Too Many Requests} with a {@code Retry-After} otherwise.
+ * <p>
+ * Clients are told apart by their {@code Authorization} header when they send one, and by their remote address
+ * otherwise.
+ */
+class RateLimitHandler implements Handler<RoutingContext> {
+
+    private final TokenBuckets buckets;
+    private final BooleanSupplier bypass;
+
+    RateLimitHandler(TokenBuckets buckets, BooleanSupplier bypass) {
+        this.buckets = buckets;
+        this.bypass = bypass;
+    }
+
+    @Override
+    public void handle(RoutingContext context) {
+        if (bypass.getAsBoolean()) {
+            context.next();
+            return;
+        }
+        long wait = buckets.tryAcquire(clientKey(context.request()), System.nanoTime());
+        if (wait == 0) {
+            context.next();
+            return;
+        }
+        long retryAfter = Math.max(1, (wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        context.response().setStatusCode(429);
+        context.response().putHeader("Retry-After", Long.toString(retryAfter));
+        context.response().putHeader("Content-Type", "application/json");
+        context.response().end(new JsonObject()
+            .put("success", false)
+            .put("error", "Too many requests").encode());
+    }
+
+    private static String clientKey(HttpServerRequest request) {
+        String authorization = request.getHeader("Authorization");
+        if (authorization != null) {
+            return "token:" + authorization;
+        }
+        return "address:" + request.remoteAddress().host();
+    }
+}
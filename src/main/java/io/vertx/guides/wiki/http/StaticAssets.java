@@ -0,0 +1,256 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.http.HttpServerResponse;
+import io.vertx.reactivex.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The stylesheets and scripts of the pages, served by the wiki itself rather than by CDNs.
+ * <p>
+ * The assets are listed in {@code assets/manifest.json}. At startup, each one bundled on the class path is written to
+ * {@code directory} under a name carrying a hash of its content, along with a gzip variant and, when one is bundled
+ * next to it as a {@code .br} resource, a Brotli variant, since the JDK has no Brotli encoder. A new content gets a
+ * new name, so responses are cacheable forever; the variant matching the {@code Accept-Encoding} of the request is
+ * sent with {@link HttpServerResponse#sendFile}, from the file to the socket.
+ * <p>
+ * Templates refer to each asset through {@link #urls()}, as in {@code ${assets.jquery.url}}, along with its
+ * subresource {@code integrity}. An asset missing from the class path is referred to by its CDN address instead, so
+ * that the pages keep working until it is bundled.
+ */
+class StaticAssets {
+
+    static final String PATH = "/assets/";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StaticAssets.class);
+
+    private static final String MANIFEST = "assets/manifest.json";
+    private static final int FINGERPRINT_LENGTH = 16;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Vertx vertx;
+    private final String manifest;
+    private final String directory;
+
+    private final Map<String, Asset> files = new HashMap<>();
+    private final Map<String, Map<String, String>> urls = new HashMap<>();
+
+    StaticAssets(Vertx vertx, String directory) {
+        this(vertx, MANIFEST, directory);
+    }
+
+    StaticAssets(Vertx vertx, String manifest, String directory) {
+        this.vertx = vertx;
+        this.manifest = manifest;
+        this.directory = directory;
+    }
+
+    /**
+     * Writes the fingerprinted assets and their compressed variants, unless an earlier start already did.
+     */
+    Future<Void> prepare() {
+        Promise<Void> promise = Promise.promise();
+        vertx.getDelegate().<Void>executeBlocking(blocking -> {
+            try {
+                prepareBlocking();
+                blocking.complete();
+            } catch (IOException e) {
+                blocking.fail(e);
+            }
+        }, false, promise);
+        return promise.future();
+    }
+
+    /**
+     * The {@code url} and {@code integrity} of each asset, by manifest name.
+     */
+    Map<String, Map<String, String>> urls() {
+        return Collections.unmodifiableMap(urls);
+    }
+
+    void send(RoutingContext context) {
+        Asset asset = files.get(context.request().getParam("file"));
+        if (asset == null) {
+            context.fail(404);
+            return;
+        }
+        HttpServerResponse response = context.response();
+        response.putHeader("Content-Type", asset.type);
+        response.putHeader("Cache-Control", "public, max-age=31536000, immutable");
+        response.putHeader("Vary", "Accept-Encoding");
+        String acceptEncoding = context.request().getHeader("Accept-Encoding");
+        String path = asset.path;
+        if (asset.brotliPath != null && accepts(acceptEncoding, "br")) {
+            response.putHeader("Content-Encoding", "br");
+            path = asset.brotliPath;
+        } else if (asset.gzipPath != null && accepts(acceptEncoding, "gzip")) {
+            response.putHeader("Content-Encoding", "gzip");
+            path = asset.gzipPath;
+        }
+        response.sendFile(path, ar -> {
+            if (ar.failed() && !response.headWritten()) {
+                context.fail(ar.cause());
+            }
+        });
+    }
+
+    /**
+     * Whether {@code acceptEncoding} lists {@code coding} without ruling it out with a zero quality.
+     */
+    static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String item : acceptEncoding.split(",")) {
+            String[] parameters = item.split(";");
+            if (parameters[0].trim().equalsIgnoreCase(coding)) {
+                for (int i = 1; i < parameters.length; i++) {
+                    if (parameters[i].replace(" ", "").matches("q=0(\\.0*)?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void prepareBlocking() throws IOException {
+        byte[] listing = read(manifest);
+        if (listing == null) {
+            throw new IOException("No asset manifest at " + manifest);
+        }
+        JsonObject entries = new JsonObject(new String(listing, StandardCharsets.UTF_8));
+        for (String name : entries.fieldNames()) {
+            JsonObject entry = entries.getJsonObject(name);
+            String resource = entry.getString("resource");
+            byte[] content = read(resource);
+            Map<String, String> url = new HashMap<>();
+            if (content == null) {
+                LOGGER.warn("The " + resource + " asset is not bundled, the pages load it from " + entry.getString("cdn"));
+                url.put("url", entry.getString("cdn"));
+                url.put("integrity", entry.getString("integrity"));
+                urls.put(name, url);
+                continue;
+            }
+            String file = fingerprinted(resource.substring(resource.lastIndexOf('/') + 1), content);
+            Path path = write(file, content);
+            byte[] gzipped = gzip(content);
+            Path gzipPath = gzipped.length < content.length ? write(file + ".gz", gzipped) : null;
+            byte[] brotli = read(resource + ".br");
+            Path brotliPath = brotli != null ? write(file + ".br", brotli) : null;
+            files.put(file, new Asset(entry.getString("type"), path.toString(),
+                gzipPath != null ? gzipPath.toString() : null,
+                brotliPath != null ? brotliPath.toString() : null));
+            url.put("url", PATH + file);
+            url.put("integrity", "sha384-" + Base64.getEncoder().encodeToString(digest("SHA-384", content)));
+            urls.put(name, url);
+        }
+        LOGGER.info("Serving " + files.size() + " of " + entries.size() + " assets from " + directory);
+    }
+
+    /**
+     * {@code jquery.min.js} becomes {@code jquery.min.<hash>.js}.
+     */
+    private static String fingerprinted(String name, byte[] content) {
+        String hash = hex(digest("SHA-256", content)).substring(0, FINGERPRINT_LENGTH);
+        int extension = name.lastIndexOf('.');
+        return extension < 0 ? name + "." + hash : name.substring(0, extension) + "." + hash + name.substring(extension);
+    }
+
+    /**
+     * Writes {@code file} through a temporary file and an atomic move, so that the HTTP verticle instances starting
+     * together never serve a partly written file. Since names carry the hash of the content, an existing file of the
+     * right size is already in place.
+     */
+    private Path write(String file, byte[] content) throws IOException {
+        Path path = Paths.get(directory, file).toAbsolutePath();
+        if (Files.exists(path) && Files.size(path) == content.length) {
+            return path;
+        }
+        Files.createDirectories(path.getParent());
+        Path temporary = Files.createTempFile(path.getParent(), file, ".tmp");
+        Files.write(temporary, content);
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return path;
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 2);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(content);
+        }
+        return compressed.toByteArray();
+    }
+
+    private byte[] read(String resource) throws IOException {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                return null;
+            }
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            for (int n = in.read(chunk); n != -1; n = in.read(chunk)) {
+                content.write(chunk, 0, n);
+            }
+            return content.toByteArray();
+        }
+    }
+
+    private static byte[] digest(String algorithm, byte[] content) {
+        try {
+            return MessageDigest.getInstance(algorithm).digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[2 * i + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    private static final class Asset {
+
+        private final String type;
+        private final String path;
+        private final String gzipPath;
+        private final String brotliPath;
+
+        private Asset(String type, String path, String gzipPath, String brotliPath) {
+            this.type = type;
+            this.path = path;
+            this.gzipPath = gzipPath;
+            this.brotliPath = brotliPath;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.Handler;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.parsetools.JsonEvent;
+import io.vertx.core.parsetools.JsonParser;
+import io.vertx.reactivex.core.http.HttpServerRequest;
+import io.vertx.reactivex.ext.web.RoutingContext;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A replacement for {@code BodyHandler} that decodes the request body as it arrives, within a size limit.
+ * <p>
+ * A request announcing a {@code Content-Length} above the limit is answered {@code 413 Payload Too Large} before any
+ * of its body is read; one that goes over the limit while streaming is answered the same way as soon as it does. In
+ * both cases the rest of the body is discarded as it arrives, without being buffered.
+ * <p>
+ * Form bodies are decoded incrementally by the HTTP server into the request parameters, and JSON bodies by a streaming
+ * parser into the object returned by {@link #json(RoutingContext)}: the raw body is never accumulated, so a large page
+ * is held once, as decoded text, rather than twice.
+ */
+class StreamingBodyHandler implements Handler<RoutingContext> {
+
+    private static final String JSON_BODY = "wiki.json.body";
+
+    private final long limit;
+    private final boolean json;
+
+    private StreamingBodyHandler(long limit, boolean json) {
+        this.limit = limit;
+        this.json = json;
+    }
+
+    static StreamingBodyHandler form(long limit) {
+        return new StreamingBodyHandler(limit, false);
+    }
+
+    static StreamingBodyHandler json(long limit) {
+        return new StreamingBodyHandler(limit, true);
+    }
+
+    /**
+     * The JSON object decoded by a {@link #json(long)} handler earlier on the route.
+     */
+    static JsonObject json(RoutingContext context) {
+        return context.get(JSON_BODY);
+    }
+
+    @Override
+    public void handle(RoutingContext context) {
+        HttpServerRequest request = context.request();
+        String contentLength = request.getHeader("Content-Length");
+        try {
+            if (contentLength != null && Long.parseLong(contentLength) > limit) {
+                tooLarge(context);
+                return;
+            }
+        } catch (NumberFormatException e) {
+            badRequest(context, "Invalid Content-Length");
+            return;
+        }
+
+        JsonTreeBuilder tree = json ? new JsonTreeBuilder() : null;
+        JsonParser parser = json ? JsonParser.newParser().handler(tree) : null;
+        if (!json) {
+            request.setExpectMultipart(true);
+        }
+        long[] received = {0};
+        boolean[] failed = {false};
+        Handler<Runnable> parse = step -> {
+            try {
+                step.run();
+            } catch (DecodeException e) {
+                failed[0] = true;
+                badRequest(context, "Bad request payload");
+            }
+        };
+        request.handler(chunk -> {
+            if (failed[0]) {
+                return;
+            }
+            received[0] += chunk.length();
+            if (received[0] > limit) {
+                failed[0] = true;
+                tooLarge(context);
+            } else if (parser != null) {
+                parse.handle(() -> parser.handle(chunk.getDelegate()));
+            }
+        });
+        request.endHandler(v -> {
+            if (failed[0]) {
+                return;
+            }
+            if (parser != null) {
+                parse.handle(parser::end);
+                if (failed[0]) {
+                    return;
+                }
+                if (tree.root == null) {
+                    badRequest(context, "Bad request payload");
+                    return;
+                }
+                context.put(JSON_BODY, tree.root);
+            } else {
+                request.params().addAll(request.formAttributes());
+            }
+            context.next();
+        });
+    }
+
+    /**
+     * Drops the rest of a body that will not be used. Closing the connection instead would make most clients lose the
+     * response, since they are still sending when it arrives.
+     */
+    static void discardBody(HttpServerRequest request) {
+        request.handler(chunk -> {
+        });
+        request.resume();
+    }
+
+    private void tooLarge(RoutingContext context) {
+        discardBody(context.request());
+        fail(context, 413, "The request body exceeds " + limit + " bytes");
+    }
+
+    private void badRequest(RoutingContext context, String message) {
+        fail(context, 400, message);
+    }
+
+    private void fail(RoutingContext context, int status, String message) {
+        context.response().setStatusCode(status);
+        if (json) {
+            context.response().putHeader("Content-Type", "application/json");
+            context.response().end(new JsonObject()
+                .put("success", false)
+                .put("error", message).encode());
+        } else {
+            context.response().end(message);
+        }
+    }
+
+    /**
+     * Assembles the events of the streaming parser into a JSON object.
+     */
+    private static final class JsonTreeBuilder implements Handler<JsonEvent> {
+
+        private final Deque<Object> containers = new ArrayDeque<>();
+        private JsonObject root;
+
+        @Override
+        public void handle(JsonEvent event) {
+            switch (event.type()) {
+                case START_OBJECT:
+                    open(event.fieldName(), new JsonObject());
+                    break;
+                case START_ARRAY:
+                    open(event.fieldName(), new JsonArray());
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    containers.pop();
+                    break;
+                case VALUE:
+                    add(event.fieldName(), event.value());
+                    break;
+            }
+        }
+
+        private void open(String field, Object container) {
+            if (containers.isEmpty()) {
+                if (!(container instanceof JsonObject) || root != null) {
+                    throw new DecodeException("A single JSON object is expected");
+                }
+                root = (JsonObject) container;
+            } else {
+                add(field, container);
+            }
+            containers.push(container);
+        }
+
+        private void add(String field, Object value) {
+            Object parent = containers.peek();
+            if (parent instanceof JsonObject) {
+                ((JsonObject) parent).put(field, value);
+            } else if (parent instanceof JsonArray) {
+                ((JsonArray) parent).add(value);
+            } else {
+                throw new DecodeException("A JSON object is expected");
+            }
+        }
+    }
+}
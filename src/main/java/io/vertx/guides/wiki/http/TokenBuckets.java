@@ -0,0 +1,110 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One rate limiting budget: a token bucket per client, refilled at {@code rate} tokens per second up to {@code burst}.
+ * <p>
+ * Each bucket is a single {@code AtomicLong} updated with compare-and-set, following the generic cell rate algorithm:
+ * it holds the theoretical time at which the bucket will be full again, so a request is let through when that time is
+ * at most {@code burst - 1} emission intervals ahead. A bucket whose time has passed is full, carries no state and
+ * can be evicted without changing any outcome, which keeps memory proportional to the recently active clients.
+ * <p>
+ * One instance per budget is shared by all the HTTP verticles of a Vert.x instance through
+ * {@link #shared(Vertx, String, double, int)}.
+ */
+class TokenBuckets implements Shareable {
+
+    private static final String SHARED_MAP = "wiki.ratelimit";
+
+    private final double rate;
+    private final int burst;
+    private final long interval;
+    private final long tolerance;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder limited = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final AtomicBoolean owned = new AtomicBoolean();
+
+    TokenBuckets(double rate, int burst) {
+        this.rate = rate;
+        this.burst = burst;
+        this.interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        this.tolerance = (burst - 1) * interval;
+    }
+
+    static TokenBuckets shared(Vertx vertx, String budget, double rate, int burst) {
+        LocalMap<String, TokenBuckets> budgets = vertx.sharedData().getLocalMap(SHARED_MAP);
+        TokenBuckets buckets = new TokenBuckets(rate, burst);
+        TokenBuckets existing = budgets.putIfAbsent(budget, buckets);
+        return existing != null ? existing : buckets;
+    }
+
+    /**
+     * Returns {@code true} to the first caller only, which then takes care of evicting the idle buckets.
+     */
+    boolean claim() {
+        return owned.compareAndSet(false, true);
+    }
+
+    /**
+     * Takes a token from the bucket of {@code client}, returning {@code 0} on success or else the number of
+     * nanoseconds until a token will be available.
+     */
+    long tryAcquire(String client, long now) {
+        AtomicLong bucket = buckets.get(client);
+        if (bucket == null) {
+            AtomicLong created = new AtomicLong(now);
+            bucket = buckets.putIfAbsent(client, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+        while (true) {
+            long full = bucket.get();
+            long wait = full - tolerance - now;
+            if (wait > 0) {
+                limited.increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(full, Math.max(full, now) + interval)) {
+                allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drops the buckets that have refilled completely. A bucket used concurrently with its eviction may lose that one
+     * token, which only ever errs on the side of the client.
+     */
+    void evictIdle(long now) {
+        buckets.forEach((client, bucket) -> {
+            if (bucket.get() <= now && buckets.remove(client, bucket)) {
+                evicted.increment();
+            }
+        });
+    }
+
+    JsonObject metrics() {
+        return new JsonObject()
+            .put("rate", rate)
+            .put("burst", burst)
+            .put("clients", buckets.size())
+            .put("allowed", allowed.sum())
+            .put("limited", limited.sum())
+            .put("evicted", evicted.sum());
+    }
+}
@@ -0,0 +1,307 @@
+package io.vertx.guides.wiki.json;
+
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+
+import java.util.Arrays;
+
+/**
+ * A minimal forward-only JSON writer that serializes values straight into their final destination.
+ * <p>
+ * Unlike building a {@code JsonObject} and calling {@code encode()}, no intermediate maps, lists or strings are
+ * created: text is appended to a {@code StringBuilder}, or UTF-8 encoded in a single pass into a byte array that is
+ * wrapped, without another copy, as the response {@link Buffer}. Nesting is limited to 64 levels.
+ */
+public final class JsonWriter {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final StringBuilder text;
+    private byte[] bytes;
+    private int position;
+
+    private long hasElements;
+    private int depth;
+    private boolean afterName;
+
+    private JsonWriter(StringBuilder text, byte[] bytes) {
+        this.text = text;
+        this.bytes = bytes;
+    }
+
+    public static JsonWriter toText(int capacity) {
+        return new JsonWriter(new StringBuilder(capacity), null);
+    }
+
+    public static JsonWriter toBuffer(int capacity) {
+        return new JsonWriter(null, new byte[Math.max(capacity, 16)]);
+    }
+
+    public JsonWriter beginObject() {
+        return open('{');
+    }
+
+    public JsonWriter endObject() {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() {
+        return open('[');
+    }
+
+    public JsonWriter endArray() {
+        return close(']');
+    }
+
+    public JsonWriter name(String name) {
+        separate();
+        quoted(name);
+        ascii(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            ascii("null");
+        } else {
+            quoted(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        separate();
+        if (text != null) {
+            text.append(value);
+        } else if (value == Long.MIN_VALUE) {
+            ascii(Long.toString(value));
+        } else {
+            number(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        separate();
+        ascii(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Writes an already encoded JSON value as is.
+     */
+    public JsonWriter rawValue(String json) {
+        separate();
+        if (text != null) {
+            text.append(json);
+        } else {
+            utf8(json);
+        }
+        return this;
+    }
+
+    public String toText() {
+        return text.toString();
+    }
+
+    public Buffer toBuffer() {
+        return Buffer.buffer(Unpooled.wrappedBuffer(bytes, 0, position));
+    }
+
+    private JsonWriter open(char bracket) {
+        separate();
+        ascii(bracket);
+        depth++;
+        hasElements &= ~(1L << depth);
+        return this;
+    }
+
+    private JsonWriter close(char bracket) {
+        depth--;
+        ascii(bracket);
+        return this;
+    }
+
+    private void separate() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        long mask = 1L << depth;
+        if ((hasElements & mask) != 0) {
+            ascii(',');
+        }
+        hasElements |= mask;
+    }
+
+    private void quoted(String value) {
+        ascii('"');
+        if (text != null) {
+            quotedText(value);
+        } else {
+            quotedBytes(value);
+        }
+        ascii('"');
+    }
+
+    private void quotedText(String value) {
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            text.append(value, start, i);
+            start = i + 1;
+            escape(c);
+        }
+        text.append(value, start, length);
+    }
+
+    private void quotedBytes(String value) {
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                continue;
+            }
+            copyAscii(value, start, i);
+            if (c < 0x80) {
+                escape(c);
+            } else {
+                i = nonAscii(value, i);
+            }
+            start = i + 1;
+        }
+        copyAscii(value, start, length);
+    }
+
+    private void escape(char c) {
+        switch (c) {
+            case '"':
+                ascii("\\\"");
+                break;
+            case '\\':
+                ascii("\\\\");
+                break;
+            case '\n':
+                ascii("\\n");
+                break;
+            case '\r':
+                ascii("\\r");
+                break;
+            case '\t':
+                ascii("\\t");
+                break;
+            default:
+                ascii("\\u00");
+                ascii((char) HEX[c >> 4]);
+                ascii((char) HEX[c & 0xf]);
+        }
+    }
+
+    private void utf8(String value) {
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) < 0x80) {
+                continue;
+            }
+            copyAscii(value, start, i);
+            i = nonAscii(value, i);
+            start = i + 1;
+        }
+        copyAscii(value, start, length);
+    }
+
+    /**
+     * Bulk copies a run of ASCII characters, which on compact strings is a plain array copy.
+     */
+    @SuppressWarnings("deprecation")
+    private void copyAscii(String value, int start, int end) {
+        if (start < end) {
+            ensureCapacity(end - start);
+            value.getBytes(start, end, bytes, position);
+            position += end - start;
+        }
+    }
+
+    /**
+     * Encodes the non-ASCII character at {@code index}, and its low surrogate if any; returns the last index used.
+     */
+    private int nonAscii(String value, int index) {
+        ensureCapacity(4);
+        char c = value.charAt(index);
+        if (c < 0x800) {
+            bytes[position++] = (byte) (0xc0 | (c >> 6));
+            bytes[position++] = (byte) (0x80 | (c & 0x3f));
+            return index;
+        }
+        if (Character.isHighSurrogate(c) && index + 1 < value.length()
+            && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+            bytes[position++] = (byte) (0xf0 | (codePoint >> 18));
+            bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+            bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+            bytes[position++] = (byte) (0x80 | (codePoint & 0x3f));
+            return index + 1;
+        }
+        if (Character.isSurrogate(c)) {
+            c = '?';
+            bytes[position++] = (byte) c;
+            return index;
+        }
+        bytes[position++] = (byte) (0xe0 | (c >> 12));
+        bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+        bytes[position++] = (byte) (0x80 | (c & 0x3f));
+        return index;
+    }
+
+    private void number(long value) {
+        ensureCapacity(20);
+        if (value < 0) {
+            bytes[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    private void ascii(char c) {
+        if (text != null) {
+            text.append(c);
+        } else {
+            ensureCapacity(1);
+            bytes[position++] = (byte) c;
+        }
+    }
+
+    private void ascii(String value) {
+        if (text != null) {
+            text.append(value);
+        } else {
+            int length = value.length();
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                bytes[position++] = (byte) value.charAt(i);
+            }
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length + (bytes.length >> 1), position + extra));
+        }
+    }
+}
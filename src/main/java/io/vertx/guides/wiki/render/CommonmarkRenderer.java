@@ -0,0 +1,24 @@
+package io.vertx.guides.wiki.render;
+
+import org.commonmark.parser.Parser;
+import org.commonmark.renderer.html.HtmlRenderer;
+
+/**
+ * The commonmark-java engine, which follows the CommonMark specification. Its parser and HTML renderer are built once
+ * and are thread-safe. Like txtmark, it passes raw HTML through.
+ */
+public class CommonmarkRenderer implements MarkdownRenderer {
+
+    private final Parser parser = Parser.builder().build();
+    private final HtmlRenderer renderer = HtmlRenderer.builder().build();
+
+    @Override
+    public String render(String markdown) {
+        return renderer.render(parser.parse(markdown));
+    }
+
+    @Override
+    public String name() {
+        return COMMONMARK;
+    }
+}
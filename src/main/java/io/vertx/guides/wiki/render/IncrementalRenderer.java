@@ -0,0 +1,239 @@
+package io.vertx.guides.wiki.render;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Renders markdown one top-level block at a time, caching the HTML of every block by content hash.
+ * <p>
+ * A small edit to a large page only re-renders the blocks it touched. Documents whose blocks cannot be rendered in
+ * isolation (link reference definitions, raw HTML blocks) are rendered and cached as a whole. Blocks are rendered by
+ * the underlying {@link MarkdownRenderer} engine.
+ * <p>
+ * One instance is shared by all the verticles of a Vert.x instance through
+ * {@link #shared(Vertx, MarkdownRenderer, long)}. Since blocks are keyed by content, a {@link #snapshot()} of the cache
+ * taken by a process can be {@linkplain #restore(JsonObject) restored} by the next one without ever serving stale
+ * HTML.
+ */
+public class IncrementalRenderer implements MarkdownRenderer, Shareable {
+
+    private static final String SHARED_MAP = "wiki.renderers";
+    private static final String SHARED_KEY = "incremental";
+
+    private static final Pattern FENCE = Pattern.compile("^ {0,3}(`{3,}|~{3,}).*");
+    private static final Pattern LIST_ITEM = Pattern.compile("^ {0,3}([*+-]|\\d+\\.)\\s.*");
+    private static final Pattern BLOCKQUOTE = Pattern.compile("^ {0,3}>.*");
+    private static final Pattern INDENTED = Pattern.compile("^( {4}|\\t).*");
+    private static final Pattern NOT_SPLITTABLE = Pattern.compile("(?m)^ {0,3}(\\[[^\\]]+\\]:|<[a-zA-Z/!])");
+
+    private final MarkdownRenderer engine;
+    private final long maxCachedChars;
+    private final Map<String, String> cache = new LinkedHashMap<>(1024, 0.75f, true);
+    private long cachedChars;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicBoolean restoreClaimed = new AtomicBoolean();
+
+    public IncrementalRenderer(long maxCachedChars) {
+        this(TxtmarkRenderer.standard(), maxCachedChars);
+    }
+
+    public IncrementalRenderer(MarkdownRenderer engine, long maxCachedChars) {
+        this.engine = engine;
+        this.maxCachedChars = maxCachedChars;
+    }
+
+    public static IncrementalRenderer shared(Vertx vertx, MarkdownRenderer engine, long maxCachedChars) {
+        LocalMap<String, IncrementalRenderer> renderers = vertx.sharedData().getLocalMap(SHARED_MAP);
+        IncrementalRenderer renderer = new IncrementalRenderer(engine, maxCachedChars);
+        IncrementalRenderer existing = renderers.putIfAbsent(SHARED_KEY, renderer);
+        return existing != null ? existing : renderer;
+    }
+
+    @Override
+    public String render(String markdown) {
+        String normalized = markdown.replace("\r\n", "\n");
+        if (NOT_SPLITTABLE.matcher(normalized).find()) {
+            return renderBlock(normalized);
+        }
+        StringBuilder html = new StringBuilder(normalized.length() + normalized.length() / 4);
+        for (String block : split(normalized)) {
+            html.append(renderBlock(block));
+        }
+        return html.toString();
+    }
+
+    @Override
+    public String name() {
+        return engine.name();
+    }
+
+    public JsonObject metrics() {
+        synchronized (cache) {
+            return new JsonObject()
+                .put("engine", engine.name())
+                .put("hits", hits.get())
+                .put("misses", misses.get())
+                .put("cachedBlocks", cache.size())
+                .put("cachedChars", cachedChars)
+                .put("maxCachedChars", maxCachedChars);
+        }
+    }
+
+    /**
+     * The cached blocks, least recently used first.
+     */
+    public JsonObject snapshot() {
+        JsonArray blocks = new JsonArray();
+        synchronized (cache) {
+            cache.forEach((key, html) -> blocks.add(new JsonArray().add(key).add(html)));
+        }
+        return new JsonObject()
+            .put("engine", engine.name())
+            .put("blocks", blocks);
+    }
+
+    /**
+     * Caches the blocks of a {@link #snapshot()} and returns how many, none if it was taken with another engine.
+     */
+    public int restore(JsonObject snapshot) {
+        if (!engine.name().equals(snapshot.getString("engine"))) {
+            return 0;
+        }
+        JsonArray blocks = snapshot.getJsonArray("blocks", new JsonArray());
+        for (int i = 0; i < blocks.size(); i++) {
+            JsonArray block = blocks.getJsonArray(i);
+            store(block.getString(0), block.getString(1));
+        }
+        return blocks.size();
+    }
+
+    /**
+     * Returns {@code true} to the first caller only, which then restores the snapshot of the previous process.
+     */
+    public boolean claimRestore() {
+        return restoreClaimed.compareAndSet(false, true);
+    }
+
+    /**
+     * Splits a document on blank lines, keeping together what markdown treats as a single block across blank lines:
+     * fenced code, loose lists and their indented continuations, and consecutive blockquotes.
+     */
+    static List<String> split(String markdown) {
+        List<String> blocks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        String firstLine = null;
+        String fence = null;
+        int pendingBlankLines = 0;
+
+        for (String line : markdown.split("\n", -1)) {
+            if (fence != null) {
+                current.append(line).append('\n');
+                if (line.trim().startsWith(fence)) {
+                    fence = null;
+                }
+                continue;
+            }
+            if (line.trim().isEmpty()) {
+                pendingBlankLines++;
+                continue;
+            }
+            if (firstLine != null && pendingBlankLines > 0 && !continues(firstLine, line)) {
+                blocks.add(current.toString());
+                current.setLength(0);
+                firstLine = null;
+            }
+            if (firstLine == null) {
+                firstLine = line;
+            } else {
+                for (; pendingBlankLines > 0; pendingBlankLines--) {
+                    current.append('\n');
+                }
+            }
+            pendingBlankLines = 0;
+            current.append(line).append('\n');
+            Matcher opening = FENCE.matcher(line);
+            if (opening.matches()) {
+                fence = opening.group(1);
+            }
+        }
+        if (firstLine != null) {
+            blocks.add(current.toString());
+        }
+        return blocks;
+    }
+
+    private static boolean continues(String firstLine, String line) {
+        if (LIST_ITEM.matcher(firstLine).matches()) {
+            return LIST_ITEM.matcher(line).matches() || INDENTED.matcher(line).matches();
+        }
+        if (BLOCKQUOTE.matcher(firstLine).matches()) {
+            return BLOCKQUOTE.matcher(line).matches();
+        }
+        return INDENTED.matcher(firstLine).matches() && INDENTED.matcher(line).matches();
+    }
+
+    private String renderBlock(String block) {
+        String key = digest(block);
+        String html;
+        synchronized (cache) {
+            html = cache.get(key);
+        }
+        if (html != null) {
+            hits.incrementAndGet();
+            return html;
+        }
+        misses.incrementAndGet();
+        html = engine.render(block);
+        store(key, html);
+        return html;
+    }
+
+    private void store(String key, String html) {
+        if (html.length() > maxCachedChars) {
+            return;
+        }
+        synchronized (cache) {
+            String previous = cache.put(key, html);
+            if (previous != null) {
+                cachedChars -= previous.length();
+            }
+            cachedChars += html.length();
+            Iterator<String> eldest = cache.values().iterator();
+            while (cachedChars > maxCachedChars && eldest.hasNext()) {
+                cachedChars -= eldest.next().length();
+                eldest.remove();
+            }
+        }
+    }
+
+    private static String digest(String block) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(block.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package io.vertx.guides.wiki.render;
+
+/**
+ * A markdown engine. Implementations are thread-safe: one instance serves every verticle.
+ */
+public interface MarkdownRenderer {
+
+    String TXTMARK = "txtmark";
+    String TXTMARK_EXTENDED = "txtmark-extended";
+    String COMMONMARK = "commonmark";
+
+    String render(String markdown);
+
+    String name();
+
+    /**
+     * Returns the engine called {@code engine}: {@code txtmark}, {@code txtmark-extended}, {@code commonmark}, or the
+     * name of a class implementing this interface with a public no-argument constructor, which lets another engine be
+     * plugged in from the classpath.
+     */
+    static MarkdownRenderer forEngine(String engine) {
+        switch (engine) {
+            case TXTMARK:
+                return TxtmarkRenderer.standard();
+            case TXTMARK_EXTENDED:
+                return TxtmarkRenderer.extended();
+            case COMMONMARK:
+                return new CommonmarkRenderer();
+            default:
+                try {
+                    return Class.forName(engine).asSubclass(MarkdownRenderer.class).getConstructor().newInstance();
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    throw new IllegalArgumentException("Unknown markdown engine " + engine, e);
+                }
+        }
+    }
+}
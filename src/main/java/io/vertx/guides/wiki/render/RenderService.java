@@ -0,0 +1,111 @@
+package io.vertx.guides.wiki.render;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Renders markdown without holding the event loop on large documents.
+ * <p>
+ * Documents shorter than the offload threshold are rendered inline, where they take less time than a hop to another
+ * thread would. Longer ones are rendered on a dedicated worker pool, so a multi-megabyte page does not stall every
+ * other connection served by the same event loop. The number of renderings waiting for a worker is bounded: beyond
+ * it, {@link #render(String)} fails with a {@link QueueFullException} instead of piling up work that clients will have
+ * given up on.
+ * <p>
+ * One instance, and one worker pool, is shared by all the verticles of a Vert.x instance through
+ * {@link #shared(Vertx, IncrementalRenderer, int, int, int)}.
+ */
+public class RenderService implements Shareable {
+
+    private static final String SHARED_MAP = "wiki.renderers";
+    private static final String SHARED_KEY = "service";
+    private static final String WORKER_POOL = "wiki-render";
+
+    private final IncrementalRenderer renderer;
+    private final WorkerExecutor workers;
+    private final int offloadThreshold;
+    private final int workerPoolSize;
+    private final int maxQueueSize;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder inline = new LongAdder();
+    private final LongAdder offloaded = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicLong maxInlineNanos = new AtomicLong();
+    private final AtomicLong maxOffloadedNanos = new AtomicLong();
+
+    RenderService(IncrementalRenderer renderer, WorkerExecutor workers, int offloadThreshold, int workerPoolSize,
+                  int maxQueueSize) {
+        this.renderer = renderer;
+        this.workers = workers;
+        this.offloadThreshold = offloadThreshold;
+        this.workerPoolSize = workerPoolSize;
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    public static RenderService shared(Vertx vertx, IncrementalRenderer renderer, int offloadThreshold,
+                                       int workerPoolSize, int maxQueueSize) {
+        LocalMap<String, RenderService> services = vertx.sharedData().getLocalMap(SHARED_MAP);
+        return services.computeIfAbsent(SHARED_KEY, key -> new RenderService(renderer,
+            vertx.createSharedWorkerExecutor(WORKER_POOL, workerPoolSize), offloadThreshold, workerPoolSize,
+            maxQueueSize));
+    }
+
+    /**
+     * Renders {@code markdown} to HTML, completing on the calling context.
+     */
+    public Future<String> render(String markdown) {
+        if (markdown.length() < offloadThreshold) {
+            long started = System.nanoTime();
+            String html = renderer.render(markdown);
+            maxInlineNanos.accumulateAndGet(System.nanoTime() - started, Math::max);
+            inline.increment();
+            return Future.succeededFuture(html);
+        }
+        if (queued.incrementAndGet() > maxQueueSize) {
+            queued.decrementAndGet();
+            rejected.increment();
+            return Future.failedFuture(new QueueFullException(maxQueueSize));
+        }
+        Promise<String> promise = Promise.promise();
+        workers.<String>executeBlocking(rendered -> {
+            queued.decrementAndGet();
+            long started = System.nanoTime();
+            String html = renderer.render(markdown);
+            maxOffloadedNanos.accumulateAndGet(System.nanoTime() - started, Math::max);
+            offloaded.increment();
+            rendered.complete(html);
+        }, false, promise);
+        return promise.future();
+    }
+
+    public JsonObject metrics() {
+        return renderer.metrics()
+            .put("offloadThreshold", offloadThreshold)
+            .put("workers", workerPoolSize)
+            .put("inline", inline.sum())
+            .put("offloaded", offloaded.sum())
+            .put("rejected", rejected.sum())
+            .put("queued", queued.get())
+            .put("maxQueueSize", maxQueueSize)
+            .put("maxInlineMillis", TimeUnit.NANOSECONDS.toMillis(maxInlineNanos.get()))
+            .put("maxOffloadedMillis", TimeUnit.NANOSECONDS.toMillis(maxOffloadedNanos.get()));
+    }
+
+    public static final class QueueFullException extends RuntimeException {
+
+        QueueFullException(int maxQueueSize) {
+            super("More than " + maxQueueSize + " pages are waiting to be rendered");
+        }
+    }
+}
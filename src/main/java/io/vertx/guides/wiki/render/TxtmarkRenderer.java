@@ -0,0 +1,44 @@
+package io.vertx.guides.wiki.render;
+
+import com.github.rjeschke.txtmark.Configuration;
+import com.github.rjeschke.txtmark.Processor;
+
+/**
+ * The txtmark engine, with a configuration built once. The extended profile adds fenced code blocks, tables of
+ * contents friendly heading ids and the other txtmark extensions to the original markdown syntax.
+ */
+public class TxtmarkRenderer implements MarkdownRenderer {
+
+    private final String name;
+    private final Configuration configuration;
+
+    public TxtmarkRenderer() {
+        this(TXTMARK, Configuration.DEFAULT);
+    }
+
+    TxtmarkRenderer(String name, Configuration configuration) {
+        this.name = name;
+        this.configuration = configuration;
+    }
+
+    public static TxtmarkRenderer standard() {
+        return new TxtmarkRenderer();
+    }
+
+    public static TxtmarkRenderer extended() {
+        return new TxtmarkRenderer(TXTMARK_EXTENDED, Configuration.builder()
+            .forceExtentedProfile()
+            .setAllowSpacesInFencedCodeBlockDelimiters(true)
+            .build());
+    }
+
+    @Override
+    public String render(String markdown) {
+        return Processor.process(markdown, configuration);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+}
@@ -2,6 +2,15 @@
 
 <div class="row">
 
+    <#if id != -1>
+        <div class="col-md-12 mt-1 d-none" id="updated">
+            <div class="alert alert-info" role="alert">
+                This page has been <span id="updated-type">updated</span> by someone else.
+                <a href="/wiki/${title}" class="alert-link">Reload</a>
+            </div>
+        </div>
+    </#if>
+
     <div class="col-md-12 mt-1">
       <span class="float-right">
         <a class="btn btn-outline-primary" href="/" role="button" aria-pressed="true">Home</a>
@@ -19,6 +28,17 @@
         ${content}
     </div>
 
+    <#if backlinks?has_content>
+        <div class="col-md-12 mt-1">
+            <h6 class="text-muted">What links here</h6>
+            <ul class="list-inline">
+                <#list backlinks as backlink>
+                    <li class="list-inline-item"><a href="/wiki/${backlink}">${backlink}</a></li>
+                </#list>
+            </ul>
+        </div>
+    </#if>
+
     <div class="col-md-12 collapsable collapse clearfix" id="editor">
         <form action="/save" method="post">
             <div class="form-group">
@@ -36,9 +56,27 @@
 
     <div class="col-md-12 mt-1">
         <hr class="mt-1">
-        <p class="small">Rendered: ${timestamp}</p>
+        <#if cached>
+            <p class="small">Rendered and cached: ${timestamp}</p>
+        <#else>
+            <p class="small">Rendered: ${timestamp}</p>
+        </#if>
     </div>
 
 </div>
 
+<#if id != -1>
+    <script>
+        if (window.EventSource) {
+            var updates = new EventSource("/api/events?page=" + encodeURIComponent("${title?js_string}"));
+            var notify = function (event) {
+                document.getElementById("updated-type").textContent = event.type;
+                document.getElementById("updated").classList.remove("d-none");
+            };
+            updates.addEventListener("saved", notify);
+            updates.addEventListener("deleted", notify);
+        }
+    </script>
+</#if>
+
 <#include "footer.ftl">
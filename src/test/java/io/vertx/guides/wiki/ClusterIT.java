@@ -0,0 +1,125 @@
+package io.vertx.guides.wiki;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Promise;
+import io.vertx.core.Verticle;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.codec.BodyCodec;
+import io.vertx.guides.wiki.database.WikiDatabaseVerticle;
+import io.vertx.guides.wiki.http.HttpServerVerticle;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs a database node and two HTTP-only nodes as clustered Vert.x instances on loopback. Needs a cluster manager on
+ * the classpath: run with {@code mvn verify -Pcluster}.
+ */
+class ClusterIT {
+
+    private final List<Vertx> nodes = new ArrayList<>();
+
+    @Test
+    void http_nodes_share_the_database_node_and_follow_its_page_events() throws Throwable {
+        Vertx databaseNode = node();
+        Vertx httpNode = node();
+        Vertx otherHttpNode = node();
+        deploy(databaseNode, new WikiDatabaseVerticle(), new JsonObject()
+            .put("jdbc", new JsonObject()
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, "jdbc:hsqldb:mem:cluster;shutdown=true")
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_DRIVER_CLASS, "org.hsqldb.jdbcDriver")));
+        deploy(httpNode, new HttpServerVerticle(), new JsonObject()
+            .put(HttpServerVerticle.CONFIG_HTTP_SERVER_PORT, 8091));
+        deploy(otherHttpNode, new HttpServerVerticle(), new JsonObject()
+            .put(HttpServerVerticle.CONFIG_HTTP_SERVER_PORT, 8092));
+
+        VertxTestContext context = new VertxTestContext();
+        WebClient client = WebClient.create(httpNode);
+        Promise<HttpResponse<JsonObject>> created = Promise.promise();
+        client.post(8091, "localhost", "/api/pages")
+            .as(BodyCodec.jsonObject())
+            .sendJsonObject(new JsonObject().put("name", "Clustered").put("markdown", "# Clustered"), created);
+
+        created.future()
+            .compose(resp -> {
+                assertThat(resp.statusCode()).isEqualTo(200);
+                // The page name index of the other node is updated by the clustered page event
+                Promise<HttpResponse<JsonObject>> promise = Promise.promise();
+                httpNode.setTimer(500, id -> client.get(8092, "localhost", "/api/pages/suggest?prefix=Clu")
+                    .as(BodyCodec.jsonObject())
+                    .send(promise));
+                return promise.future();
+            })
+            .compose(resp -> {
+                assertThat(resp.body().getJsonArray("suggestions").getList()).containsExactly("Clustered");
+                Promise<Void> promise = Promise.promise();
+                databaseNode.close(promise);
+                return promise.future();
+            })
+            .compose(v -> {
+                Promise<HttpResponse<JsonObject>> promise = Promise.promise();
+                client.get(8092, "localhost", "/api/pages/0")
+                    .as(BodyCodec.jsonObject())
+                    .send(promise);
+                return promise.future();
+            })
+            .onComplete(context.succeeding(resp -> context.verify(() -> {
+                // The database node left: either the fallback result or a 503, never a hang
+                assertThat(resp.statusCode()).isIn(200, 503);
+                context.completeNow();
+            })));
+
+        assertThat(context.awaitCompletion(30, TimeUnit.SECONDS)).isTrue();
+        if (context.failed()) {
+            throw context.causeOfFailure();
+        }
+    }
+
+    @AfterEach
+    void closeNodes() throws Exception {
+        for (Vertx node : nodes) {
+            CompletableFuture<Void> closed = new CompletableFuture<>();
+            node.close(ar -> closed.complete(null));
+            closed.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private Vertx node() throws Exception {
+        VertxOptions options = new VertxOptions();
+        options.getEventBusOptions().setHost("127.0.0.1");
+        CompletableFuture<Vertx> started = new CompletableFuture<>();
+        Vertx.clusteredVertx(options, ar -> {
+            if (ar.succeeded()) {
+                started.complete(ar.result());
+            } else {
+                started.completeExceptionally(ar.cause());
+            }
+        });
+        Vertx node = started.get(60, TimeUnit.SECONDS);
+        nodes.add(node);
+        return node;
+    }
+
+    private static void deploy(Vertx node, Verticle verticle, JsonObject config) throws Exception {
+        CompletableFuture<String> deployed = new CompletableFuture<>();
+        node.deployVerticle(verticle, new DeploymentOptions().setConfig(config), ar -> {
+            if (ar.succeeded()) {
+                deployed.complete(ar.result());
+            } else {
+                deployed.completeExceptionally(ar.cause());
+            }
+        });
+        deployed.get(60, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,263 @@
+package io.vertx.guides.wiki;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Verticle;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.json.JsonObject;
+import io.vertx.guides.wiki.database.WikiDatabaseService;
+import io.vertx.guides.wiki.database.WikiDatabaseVerticle;
+import io.vertx.guides.wiki.http.HttpServerVerticle;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Loads synthetic wikis of growing sizes into a scratch HSQLDB and checks the latency, heap high-water mark and
+ * allocations of the routes whose cost grows with the number of pages against the budgets of
+ * {@code data-scale-budgets.properties}.
+ * <p>
+ * Run with {@code mvn verify -Pdata-scale}. The corpus sizes and every budget can be overridden with system
+ * properties, as in {@code -Ddata-scale.corpora=10000,100000,1000000 -Ddata-scale.index.p99.millis=500}. A budget
+ * followed by a corpus size, such as {@code index.p99.millis.1000000}, only applies to that size.
+ */
+class DataScaleIT {
+
+    private static final String PREFIX = "data-scale.";
+    private static final int PORT = 8095;
+    private static final long TIMEOUT_MILLIS = 300_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Properties budgets = new Properties();
+
+    @TestFactory
+    Stream<DynamicTest> routes_stay_within_budgets_as_the_wiki_grows() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/data-scale-budgets.properties")) {
+            budgets.load(in);
+        }
+        return Arrays.stream(setting("corpora").split(","))
+            .map(String::trim)
+            .map(Integer::parseInt)
+            .map(pages -> DynamicTest.dynamicTest(pages + " pages", () -> run(pages)));
+    }
+
+    private void run(int pages) throws Exception {
+        SyntheticCorpus corpus = new SyntheticCorpus(pages, 42);
+        File directory = new File("target/data-scale/" + pages);
+        delete(directory);
+        String url = "jdbc:hsqldb:file:" + directory.getPath()
+            + "/wiki;hsqldb.default_table_type=cached;hsqldb.lob_file_scale=1;shutdown=true";
+
+        Vertx vertx = Vertx.vertx();
+        try {
+            deploy(vertx, new WikiDatabaseVerticle(), new JsonObject()
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_STARTUP_EAGER, true)
+                .put("jdbc", new JsonObject()
+                    .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, url)
+                    .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_DRIVER_CLASS, "org.hsqldb.jdbcDriver")));
+            long started = System.nanoTime();
+            try (Connection connection = DriverManager.getConnection(url)) {
+                corpus.load(connection);
+            }
+            System.out.printf("Loaded %d pages in %d s%n", pages, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+            deploy(vertx, new HttpServerVerticle(), new JsonObject()
+                .put(HttpServerVerticle.CONFIG_HTTP_SERVER_PORT, PORT)
+                .put(HttpServerVerticle.CONFIG_HTTP_RATELIMIT_READ_RATE, 1e9)
+                .put(HttpServerVerticle.CONFIG_HTTP_RATELIMIT_READ_BURST, 1_000_000)
+                .put(HttpServerVerticle.CONFIG_HTTP_DEADLINE_READ, TIMEOUT_MILLIS)
+                .put(HttpServerVerticle.CONFIG_HTTP_BREAKER_SLOW_CALL_DURATION, TIMEOUT_MILLIS)
+                .put(HttpServerVerticle.CONFIG_HTTP_HOT_PERSIST_FILE, directory.getPath() + "/hot-pages.json")
+                .put(HttpServerVerticle.CONFIG_HTTP_ATTACHMENTS_DIRECTORY, directory.getPath() + "/attachments"));
+
+            List<String> violations = new ArrayList<>();
+            System.out.printf("%-14s %10s %10s %10s %12s %12s %10s%n",
+                "route", "p50 ms", "p99 ms", "max ms", "alloc MB/op", "alloc MB/s", "heap MB");
+            for (Map.Entry<String, IntFunction<CompletableFuture<?>>> route : routes(vertx, corpus).entrySet()) {
+                String maxPages = budget(route.getKey(), "max.pages", pages);
+                if (maxPages != null && pages > Long.parseLong(maxPages)) {
+                    System.out.printf("%-14s skipped above %s pages%n", route.getKey(), maxPages);
+                    continue;
+                }
+                Sample sample = measure(route.getValue());
+                System.out.printf("%-14s %10.1f %10.1f %10.1f %12.2f %12.1f %10d%n", route.getKey(),
+                    sample.percentile(50), sample.percentile(99), sample.percentile(100),
+                    sample.allocatedMegabytesPerOperation(), sample.allocatedMegabytesPerSecond(), sample.heapMegabytes);
+                check(violations, route.getKey(), "p99.millis", pages, sample.percentile(99));
+                check(violations, route.getKey(), "allocated.mb", pages, sample.allocatedMegabytesPerOperation());
+                check(violations, route.getKey(), "heap.mb", pages, sample.heapMegabytes);
+            }
+            assertThat(violations).as("Budgets exceeded with %d pages", pages).isEmpty();
+        } finally {
+            CompletableFuture<Void> closed = new CompletableFuture<>();
+            vertx.close(ar -> closed.complete(null));
+            closed.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * The routes whose cost grows with the wiki, each as a function issuing its {@code i}th request.
+     */
+    private Map<String, IntFunction<CompletableFuture<?>>> routes(Vertx vertx, SyntheticCorpus corpus) {
+        HttpClient client = vertx.createHttpClient();
+        WikiDatabaseService database = WikiDatabaseService.createProxy(vertx, WikiDatabaseVerticle.CONFIG_WIKIDB_QUEUE,
+            new DeliveryOptions().setSendTimeout(TIMEOUT_MILLIS));
+        Map<String, IntFunction<CompletableFuture<?>>> routes = new LinkedHashMap<>();
+        routes.put("index", i -> get(client, "/"));
+        routes.put("api-pages", i -> get(client, "/api/pages"));
+        // The most linked pages, which have the most backlinks
+        routes.put("page", i -> get(client, "/wiki/" + corpus.name(i % 10)));
+        routes.put("suggest", i -> get(client, "/api/pages/suggest?prefix=" + corpus.name(i).substring(0, 1)));
+        routes.put("export", i -> get(client, "/api/export"));
+        routes.put("all-pages-data", i -> {
+            CompletableFuture<Object> done = new CompletableFuture<>();
+            database.fetchAllPagesData(ar -> complete(done, ar.result(), ar.cause()));
+            return done;
+        });
+        return routes;
+    }
+
+    private Sample measure(IntFunction<CompletableFuture<?>> route) throws Exception {
+        int warmup = Integer.parseInt(setting("warmup.requests"));
+        int requests = Integer.parseInt(setting("requests"));
+        for (int i = 0; i < warmup; i++) {
+            route.apply(i).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        System.gc();
+        List<MemoryPoolMXBean> heap = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heap.add(pool);
+            }
+        }
+        long allocatedBefore = allocatedBytes();
+        long[] latencies = new long[requests];
+        long started = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            long requestStarted = System.nanoTime();
+            route.apply(i).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            latencies[i] = System.nanoTime() - requestStarted;
+        }
+        long elapsed = System.nanoTime() - started;
+        long allocated = allocatedBytes() - allocatedBefore;
+        // The pools peak at different times, so this is an upper bound of the heap used at once
+        long peak = heap.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        Arrays.sort(latencies);
+        return new Sample(latencies, elapsed, allocated, peak >> 20);
+    }
+
+    private static long allocatedBytes() {
+        long total = 0;
+        for (long bytes : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+            total += Math.max(0, bytes);
+        }
+        return total;
+    }
+
+    private void check(List<String> violations, String route, String measure, int pages, double value) {
+        String budget = budget(route, measure, pages);
+        if (budget != null && value > Double.parseDouble(budget)) {
+            violations.add(String.format("%s %s is %.2f, over its budget of %s", route, measure, value, budget));
+        }
+    }
+
+    private String budget(String route, String measure, int pages) {
+        String key = route + "." + measure;
+        String budget = setting(key + "." + pages);
+        return budget != null ? budget : setting(key);
+    }
+
+    private String setting(String key) {
+        return System.getProperty(PREFIX + key, budgets.getProperty(key));
+    }
+
+    private static CompletableFuture<?> get(HttpClient client, String path) {
+        CompletableFuture<Object> done = new CompletableFuture<>();
+        client.get(PORT, "localhost", path, resp -> {
+            if (resp.statusCode() != 200) {
+                done.completeExceptionally(new IllegalStateException(path + " answered " + resp.statusCode()));
+            }
+            // Bodies are dropped as they arrive, so that only the server side is measured
+            resp.handler(chunk -> {
+            });
+            resp.exceptionHandler(done::completeExceptionally);
+            resp.endHandler(v -> done.complete(null));
+        }).exceptionHandler(done::completeExceptionally).end();
+        return done;
+    }
+
+    private static void deploy(Vertx vertx, Verticle verticle, JsonObject config) throws Exception {
+        CompletableFuture<String> deployed = new CompletableFuture<>();
+        vertx.deployVerticle(verticle, new DeploymentOptions().setConfig(config), ar -> complete(deployed, ar.result(), ar.cause()));
+        deployed.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, T result, Throwable failure) {
+        if (failure != null) {
+            future.completeExceptionally(failure);
+        } else {
+            future.complete(result);
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static final class Sample {
+
+        private final long[] latencies;
+        private final long elapsedNanos;
+        private final long allocatedBytes;
+        private final long heapMegabytes;
+
+        Sample(long[] latencies, long elapsedNanos, long allocatedBytes, long heapMegabytes) {
+            this.latencies = latencies;
+            this.elapsedNanos = elapsedNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.heapMegabytes = heapMegabytes;
+        }
+
+        double percentile(int percentile) {
+            int index = Math.min(latencies.length - 1, (int) Math.ceil(latencies.length * percentile / 100.0) - 1);
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+
+        double allocatedMegabytesPerOperation() {
+            return allocatedBytes / 1048576.0 / latencies.length;
+        }
+
+        double allocatedMegabytesPerSecond() {
+            return allocatedBytes / 1048576.0 / (elapsedNanos / 1e9);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package io.vertx.guides.wiki;
+
+import io.vertx.guides.wiki.database.WikiLinks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * A reproducible wiki of any size, shaped like real ones.
+ * <p>
+ * Page sizes follow a log-normal distribution: most pages are a few kilobytes, a long tail reaches hundreds. Pages
+ * link to each other about once per paragraph, with targets drawn from a Zipf distribution, so that a few pages
+ * collect most of the backlinks, as a home page or a glossary would. Page {@code i} is always the same for a given
+ * seed, so a corpus can be generated again rather than stored.
+ */
+class SyntheticCorpus {
+
+    private static final double MEDIAN_SIZE = 2_000;
+    private static final double SIZE_SIGMA = 1.0;
+    private static final int MAX_SIZE = 256 * 1024;
+    private static final double LINK_EXPONENT = 1.1;
+    private static final int BATCH_SIZE = 500;
+
+    private static final String[] NAME_WORDS = {"Event", "Loop", "Verticle", "Router", "Handler", "Cluster", "Codec",
+        "Future", "Promise", "Worker", "Pool", "Proxy", "Service", "Bus", "Timer", "Stream", "Buffer", "Client",
+        "Server", "Context", "Config", "Metrics", "Template", "Session", "Cookie", "Route", "Schema", "Query"};
+    private static final String[] WORDS = {"the", "a", "of", "and", "to", "is", "in", "with", "verticle", "event",
+        "loop", "handler", "deployed", "request", "response", "page", "database", "router", "**bold**", "*emphasis*",
+        "`code`", "instance", "thread", "asynchronous", "callback", "message", "address", "consumer", "configuration"};
+
+    private final int pages;
+    private final long seed;
+    private final double[] linkCumulative;
+
+    SyntheticCorpus(int pages, long seed) {
+        this.pages = pages;
+        this.seed = seed;
+        linkCumulative = new double[pages];
+        double sum = 0;
+        for (int rank = 0; rank < pages; rank++) {
+            sum += 1 / Math.pow(rank + 1, LINK_EXPONENT);
+            linkCumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < pages; rank++) {
+            linkCumulative[rank] /= sum;
+        }
+    }
+
+    int size() {
+        return pages;
+    }
+
+    /**
+     * The name of page {@code i}; the lower {@code i}, the more the page is linked to.
+     */
+    String name(int i) {
+        return NAME_WORDS[i % NAME_WORDS.length] + NAME_WORDS[(i / NAME_WORDS.length) % NAME_WORDS.length] + i;
+    }
+
+    String markdown(int i) {
+        Random random = new Random(seed * 31 + i);
+        int target = (int) Math.min(MAX_SIZE, MEDIAN_SIZE * Math.exp(SIZE_SIGMA * random.nextGaussian()));
+        StringBuilder markdown = new StringBuilder(target + 512).append("# ").append(name(i)).append("\n\n");
+        int section = 0;
+        while (markdown.length() < target) {
+            if (random.nextInt(5) == 0) {
+                markdown.append("## Section ").append(++section).append("\n\n");
+            }
+            switch (random.nextInt(6)) {
+                case 0:
+                    for (int item = 2 + random.nextInt(5); item > 0; item--) {
+                        markdown.append("* ").append(sentence(random)).append('\n');
+                    }
+                    markdown.append('\n');
+                    break;
+                case 1:
+                    markdown.append("```\nvertx.deployVerticle(new ").append(name(random.nextInt(pages)))
+                        .append("Verticle());\n```\n\n");
+                    break;
+                default:
+                    for (int s = 2 + random.nextInt(5); s > 0; s--) {
+                        markdown.append(sentence(random)).append(' ');
+                    }
+                    String link = name(linkTarget(random));
+                    markdown.append("See [").append(link).append("](/wiki/").append(link).append(").\n\n");
+                    break;
+            }
+        }
+        return markdown.toString();
+    }
+
+    /**
+     * Loads the corpus with the queries of the database verticle, into tables it has already created.
+     */
+    void load(Connection connection) throws SQLException, IOException {
+        Properties queries = new Properties();
+        try (InputStream in = getClass().getResourceAsStream("/db-queries.properties")) {
+            queries.load(in);
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insertPage = connection.prepareStatement(queries.getProperty("create-page"));
+             PreparedStatement insertLink = connection.prepareStatement(queries.getProperty("insert-link"))) {
+            for (int i = 0; i < pages; i++) {
+                String markdown = markdown(i);
+                insertPage.setString(1, name(i));
+                insertPage.setString(2, markdown);
+                insertPage.addBatch();
+                // Identity columns start at 0 in an empty table
+                for (String link : WikiLinks.extract(markdown)) {
+                    insertLink.setInt(1, i);
+                    insertLink.setString(2, link);
+                    insertLink.addBatch();
+                }
+                if ((i + 1) % BATCH_SIZE == 0 || i == pages - 1) {
+                    insertPage.executeBatch();
+                    insertLink.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+    }
+
+    private int linkTarget(Random random) {
+        int rank = Arrays.binarySearch(linkCumulative, random.nextDouble());
+        return Math.min(pages - 1, rank >= 0 ? rank : -rank - 1);
+    }
+
+    private static String sentence(Random random) {
+        StringBuilder sentence = new StringBuilder("The");
+        for (int w = 5 + random.nextInt(12); w > 0; w--) {
+            sentence.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.append('.').toString();
+    }
+}
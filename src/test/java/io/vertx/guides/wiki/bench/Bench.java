@@ -0,0 +1,37 @@
+package io.vertx.guides.wiki.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Minimal single-threaded micro-benchmark runner reporting time and heap allocation per operation.
+ * <p>
+ * Benchmarks are plain {@code main} classes in this package so that surefire leaves them alone; run one with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=<class>}.
+ */
+final class Bench {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static volatile Object sink;
+
+    private Bench() {
+    }
+
+    static void run(String name, int warmup, int iterations, Supplier<?> operation) {
+        for (int i = 0; i < warmup; i++) {
+            sink = operation.get();
+        }
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = operation.get();
+        }
+        long elapsed = System.nanoTime() - started;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%-40s %12.1f us/op %14d B/op%n",
+            name, elapsed / 1_000.0 / iterations, allocated / iterations);
+    }
+}
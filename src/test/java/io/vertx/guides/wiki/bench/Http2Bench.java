@@ -0,0 +1,136 @@
+package io.vertx.guides.wiki.bench;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.JsonObject;
+import io.vertx.guides.wiki.database.WikiDatabaseVerticle;
+import io.vertx.guides.wiki.http.HttpServerVerticle;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares HTTP/1.1 and cleartext HTTP/2 with prior knowledge on page lookups through the API, reporting the
+ * connections opened by the client, throughput and latency percentiles.
+ * <p>
+ * The HTTP/1.1 client may open one connection per concurrent request, as a browser or a reverse proxy would; the
+ * HTTP/2 client multiplexes all of them over a single connection.
+ */
+public class Http2Bench {
+
+    private static final int PORT = 9099;
+    private static final int PAGES = 100;
+    private static final int CONCURRENCY = 64;
+    private static final int REQUESTS = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        Vertx vertx = Vertx.vertx();
+        deploy(vertx);
+        populate(vertx);
+        for (HttpVersion version : new HttpVersion[]{HttpVersion.HTTP_1_1, HttpVersion.HTTP_2}) {
+            run(vertx, version, REQUESTS / 5, false);
+            run(vertx, version, REQUESTS, true);
+        }
+        vertx.close();
+    }
+
+    private static void deploy(Vertx vertx) throws Exception {
+        JsonObject dbConf = new JsonObject()
+            .put(WikiDatabaseVerticle.CONFIG_WIKIDB_STARTUP_EAGER, true)
+            .put("jdbc", new JsonObject()
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, "jdbc:hsqldb:mem:http2-bench")
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_DRIVER_CLASS, "org.hsqldb.jdbcDriver"));
+        JsonObject httpConf = new JsonObject()
+            .put(HttpServerVerticle.CONFIG_HTTP_SERVER_PORT, PORT)
+            .put(HttpServerVerticle.CONFIG_HTTP_RATELIMIT_READ_RATE, 1e9)
+            .put(HttpServerVerticle.CONFIG_HTTP_RATELIMIT_READ_BURST, 1_000_000)
+            .put(HttpServerVerticle.CONFIG_HTTP_RATELIMIT_WRITE_RATE, 1e9)
+            .put(HttpServerVerticle.CONFIG_HTTP_RATELIMIT_WRITE_BURST, 1_000_000);
+
+        CompletableFuture<String> database = new CompletableFuture<>();
+        vertx.deployVerticle(new WikiDatabaseVerticle(), new DeploymentOptions().setConfig(dbConf), ar -> complete(database, ar.result(), ar.cause()));
+        database.get();
+        CompletableFuture<String> http = new CompletableFuture<>();
+        vertx.deployVerticle(HttpServerVerticle.class.getName(), new DeploymentOptions().setConfig(httpConf).setInstances(2), ar -> complete(http, ar.result(), ar.cause()));
+        http.get();
+    }
+
+    private static void populate(Vertx vertx) throws Exception {
+        StringBuilder markdown = new StringBuilder();
+        while (markdown.length() < 4_000) {
+            markdown.append("Some *markdown* content for the benchmark.\n\n");
+        }
+        HttpClient client = vertx.createHttpClient(new HttpClientOptions().setDefaultPort(PORT));
+        for (int i = 0; i < PAGES; i++) {
+            CompletableFuture<Void> created = new CompletableFuture<>();
+            client.post("/api/pages", resp -> created.complete(null))
+                .exceptionHandler(created::completeExceptionally)
+                .putHeader("Content-Type", "application/json")
+                .end(new JsonObject().put("name", "Page " + i).put("markdown", markdown.toString()).encode());
+            created.get();
+        }
+        client.close();
+    }
+
+    private static void run(Vertx vertx, HttpVersion version, int requests, boolean report) throws Exception {
+        AtomicInteger connections = new AtomicInteger();
+        HttpClient client = vertx.createHttpClient(new HttpClientOptions()
+            .setDefaultPort(PORT)
+            .setProtocolVersion(version)
+            .setHttp2ClearTextUpgrade(false)
+            .setMaxPoolSize(CONCURRENCY)
+            .setHttp2MaxPoolSize(1)
+            .setHttp2MultiplexingLimit(-1));
+        client.connectionHandler(connection -> connections.incrementAndGet());
+
+        long[] latencies = new long[requests];
+        AtomicInteger sent = new AtomicInteger();
+        AtomicInteger received = new AtomicInteger();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        long started = System.nanoTime();
+        vertx.runOnContext(v -> {
+            for (int i = 0; i < CONCURRENCY; i++) {
+                send(client, requests, latencies, sent, received, done);
+            }
+        });
+        done.get();
+        double seconds = (System.nanoTime() - started) / 1e9;
+        client.close();
+
+        if (report) {
+            Arrays.sort(latencies);
+            System.out.printf("%-8s %3d connections %10.0f requests/s p50 %6.2f ms p99 %6.2f ms%n",
+                version, connections.get(), requests / seconds,
+                latencies[requests / 2] / 1e6, latencies[requests * 99 / 100] / 1e6);
+        }
+    }
+
+    private static void send(HttpClient client, int requests, long[] latencies, AtomicInteger sent,
+                             AtomicInteger received, CompletableFuture<Void> done) {
+        int index = sent.getAndIncrement();
+        if (index >= requests) {
+            return;
+        }
+        long started = System.nanoTime();
+        client.get("/api/pages/" + index % PAGES, resp -> resp.bodyHandler(body -> {
+            latencies[index] = System.nanoTime() - started;
+            if (received.incrementAndGet() == requests) {
+                done.complete(null);
+            } else {
+                send(client, requests, latencies, sent, received, done);
+            }
+        })).exceptionHandler(done::completeExceptionally).end();
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, T result, Throwable failure) {
+        if (failure != null) {
+            future.completeExceptionally(failure);
+        } else {
+            future.complete(result);
+        }
+    }
+}
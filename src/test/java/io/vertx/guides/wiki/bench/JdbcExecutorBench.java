@@ -0,0 +1,152 @@
+package io.vertx.guides.wiki.bench;
+
+import io.reactivex.Flowable;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.guides.wiki.database.JdbcPool;
+import io.vertx.guides.wiki.database.SqlQuery;
+import io.vertx.guides.wiki.database.WikiDatabaseVerticle;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the worker pool and virtual thread executors of {@link JdbcPool} on page lookups at high concurrency,
+ * reporting throughput, peak thread count, peak heap usage and the bytes allocated per query.
+ * <p>
+ * Allocations are summed over the threads alive at the end of the run, which the pool and event loop threads are; the
+ * virtual threads that ran and ended in between are not counted, so the figure is a lower bound in that mode.
+ * <p>
+ * Virtual threads need Java 21: on older JVMs the {@code virtual} executor falls back to platform threads.
+ */
+public class JdbcExecutorBench {
+
+    private static final int PAGES = 1_000;
+    private static final int CONNECTIONS = 20;
+    private static final int QUERIES = 50_000;
+
+    public static void main(String[] args) throws Exception {
+        Properties queries = new Properties();
+        try (InputStream in = JdbcExecutorBench.class.getResourceAsStream("/db-queries.properties")) {
+            queries.load(in);
+        }
+        String getPage = queries.getProperty("get-page");
+        System.out.println("Java " + System.getProperty("java.version"));
+
+        Vertx vertx = Vertx.vertx(new VertxOptions().setWorkerPoolSize(CONNECTIONS));
+        for (int concurrency : new int[]{100, 2_000}) {
+            for (String executor : new String[]{JdbcPool.EXECUTOR_WORKER, JdbcPool.EXECUTOR_VIRTUAL}) {
+                run(vertx, executor, concurrency, getPage);
+            }
+        }
+        vertx.close();
+    }
+
+    private static void run(Vertx vertx, String executor, int concurrency, String sql) throws Exception {
+        String url = "jdbc:hsqldb:mem:bench-" + executor + "-" + concurrency;
+        populate(url);
+        JsonObject config = new JsonObject()
+            .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, url)
+            .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_DRIVER_CLASS, "org.hsqldb.jdbcDriver")
+            .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE, CONNECTIONS)
+            .put(JdbcPool.CONFIG_MAX_QUEUE_SIZE, QUERIES)
+            .put(JdbcPool.CONFIG_EXECUTOR, executor);
+
+        CompletableFuture<JdbcPool> created = new CompletableFuture<>();
+        vertx.runOnContext(v -> {
+            try {
+                created.complete(JdbcPool.create(vertx, executor + concurrency, config));
+            } catch (Exception e) {
+                created.completeExceptionally(e);
+            }
+        });
+        JdbcPool pool = created.get();
+
+        lookups(vertx, pool, sql, QUERIES / 5, concurrency);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        threads.resetPeakThreadCount();
+        AtomicLong peakHeap = new AtomicLong();
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.start();
+
+        long allocatedBefore = allocatedBytes(threads);
+        long started = System.nanoTime();
+        lookups(vertx, pool, sql, QUERIES, concurrency);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        sampler.interrupt();
+        long allocated = allocatedBytes(threads) - allocatedBefore;
+
+        System.out.printf("%-8s concurrency %5d %10.0f queries/s %6d peak threads %8.1f MB peak heap %8.1f KB/query%n",
+            executor, concurrency, QUERIES / seconds, threads.getPeakThreadCount(), peakHeap.get() / 1e6,
+            allocated / 1e3 / QUERIES);
+
+        CompletableFuture<Void> closed = new CompletableFuture<>();
+        vertx.runOnContext(v -> pool.rxClose().subscribe(() -> closed.complete(null), closed::completeExceptionally));
+        closed.get();
+    }
+
+    /**
+     * Sums the bytes allocated so far by the live threads, or returns 0 when the JVM does not measure it.
+     */
+    private static long allocatedBytes(ThreadMXBean threads) {
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        long total = 0;
+        for (long bytes : ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            total += Math.max(bytes, 0);
+        }
+        return total;
+    }
+
+    private static void lookups(Vertx vertx, JdbcPool pool, String sql, int count, int concurrency) throws Exception {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        vertx.runOnContext(v -> Flowable.range(0, count)
+            .flatMapSingle(i -> pool.rxQuery(SqlQuery.GET_PAGE, sql, new JsonArray().add("Page " + i % PAGES)),
+                false, concurrency)
+            .ignoreElements()
+            .subscribe(() -> done.complete(null), done::completeExceptionally));
+        done.get();
+    }
+
+    private static void populate(String url) throws Exception {
+        StringBuilder content = new StringBuilder();
+        while (content.length() < 2_000) {
+            content.append("Some *markdown* content for the benchmark. ");
+        }
+        try (Connection connection = DriverManager.getConnection(url)) {
+            connection.createStatement().execute(
+                "create table Pages (Id integer identity primary key, Name varchar(255) unique, Content clob)");
+            try (PreparedStatement insert = connection.prepareStatement("insert into Pages values (NULL, ?, ?)")) {
+                for (int i = 0; i < PAGES; i++) {
+                    insert.setString(1, "Page " + i);
+                    insert.setString(2, content.toString());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+}
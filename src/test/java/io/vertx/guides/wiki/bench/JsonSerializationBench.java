@@ -0,0 +1,86 @@
+package io.vertx.guides.wiki.bench;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.guides.wiki.json.JsonWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the former {@code JsonObject} tree serialization of the REST API with {@link JsonWriter}.
+ */
+public class JsonSerializationBench {
+
+    public static void main(String[] args) {
+        for (int pages : new int[]{100, 10_000}) {
+            List<JsonObject> rows = new ArrayList<>();
+            List<JsonArray> rawRows = new ArrayList<>();
+            for (int i = 0; i < pages; i++) {
+                String name = "Page number " + i;
+                rows.add(new JsonObject().put("ID", i).put("NAME", name));
+                rawRows.add(new JsonArray().add(i).add(name));
+            }
+
+            Bench.run("listing/" + pages + "/json-object-tree", 200, 500, () -> {
+                List<JsonObject> list = rows.stream()
+                    .map(obj -> new JsonObject()
+                        .put("id", obj.getInteger("ID"))
+                        .put("name", obj.getString("NAME")))
+                    .collect(Collectors.toList());
+                return new JsonObject()
+                    .put("success", true)
+                    .put("pages", list)
+                    .toBuffer();
+            });
+
+            Bench.run("listing/" + pages + "/json-writer", 200, 500, () -> {
+                JsonWriter fragment = JsonWriter.toText(pages * 32).beginArray();
+                for (JsonArray row : rawRows) {
+                    fragment.beginObject()
+                        .name("id").value(row.getInteger(0))
+                        .name("name").value(row.getString(1))
+                        .endObject();
+                }
+                String encoded = fragment.endArray().toText();
+                return JsonWriter.toBuffer(encoded.length() + 32)
+                    .beginObject()
+                    .name("success").value(true)
+                    .name("pages").rawValue(encoded)
+                    .endObject()
+                    .toBuffer();
+            });
+        }
+
+        StringBuilder markdown = new StringBuilder();
+        for (int i = 0; i < 2_000; i++) {
+            markdown.append("Line ").append(i).append(" of a \"large\" page\n");
+        }
+        String content = markdown.toString();
+        String html = "<p>" + content + "</p>";
+        JsonObject dbObject = new JsonObject().put("found", true).put("id", 1).put("name", "Large").put("content", content);
+
+        Bench.run("page/json-object-tree", 200, 2_000, () -> new JsonObject()
+            .put("success", true)
+            .put("page", new JsonObject()
+                .put("name", dbObject.getString("name"))
+                .put("id", dbObject.getInteger("id"))
+                .put("markdown", dbObject.getString("content"))
+                .put("html", html))
+            .toBuffer());
+
+        Bench.run("page/json-writer", 200, 2_000, () -> JsonWriter
+            .toBuffer(content.length() + html.length() + 128)
+            .beginObject()
+            .name("success").value(true)
+            .name("page").beginObject()
+            .name("name").value(dbObject.getString("name"))
+            .name("id").value(dbObject.getInteger("id"))
+            .name("markdown").value(content)
+            .name("html").value(html)
+            .endObject()
+            .endObject()
+            .toBuffer());
+    }
+}
@@ -0,0 +1,103 @@
+package io.vertx.guides.wiki.bench;
+
+import com.github.rjeschke.txtmark.Processor;
+import io.vertx.guides.wiki.render.IncrementalRenderer;
+import io.vertx.guides.wiki.render.MarkdownRenderer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the markdown engines on a corpus shaped like wiki pages: headings, paragraphs with inline markup and links,
+ * lists, blockquotes and fenced code, from a few kilobytes to a few hundred.
+ * <p>
+ * Any {@link MarkdownRenderer} on the classpath can be added to the comparison by passing its class name as an
+ * argument.
+ */
+public class RenderBench {
+
+    private static final int PAGES = 200;
+
+    public static void main(String[] args) {
+        List<String> corpus = corpus(new Random(42));
+        long chars = corpus.stream().mapToLong(String::length).sum();
+        System.out.printf("%d pages, %d KiB%n", corpus.size(), chars / 1024);
+
+        run("txtmark static Processor.process", corpus, Processor::process);
+        List<String> engines = new ArrayList<>();
+        engines.add(MarkdownRenderer.TXTMARK);
+        engines.add(MarkdownRenderer.TXTMARK_EXTENDED);
+        engines.add(MarkdownRenderer.COMMONMARK);
+        for (String arg : args) {
+            engines.add(arg);
+        }
+        for (String name : engines) {
+            MarkdownRenderer engine = MarkdownRenderer.forEngine(name);
+            run(engine.name(), corpus, engine::render);
+            // A fresh cache for every pass: only blocks repeated across pages hit it
+            run(engine.name() + " incremental, cold", corpus,
+                markdown -> new IncrementalRenderer(engine, 64L * 1024 * 1024).render(markdown));
+            IncrementalRenderer warm = new IncrementalRenderer(engine, 64L * 1024 * 1024);
+            run(engine.name() + " incremental, warm", corpus, warm::render);
+        }
+    }
+
+    private static void run(String name, List<String> corpus, java.util.function.Function<String, String> engine) {
+        int[] next = {0};
+        Bench.run(name, corpus.size() * 5, corpus.size() * 20, () -> engine.apply(corpus.get(next[0]++ % corpus.size())));
+    }
+
+    private static List<String> corpus(Random random) {
+        List<String> pages = new ArrayList<>();
+        for (int i = 0; i < PAGES; i++) {
+            // Mostly small pages with a long tail of large ones
+            int sections = 2 + (int) Math.min(200, Math.abs(random.nextGaussian()) * (i % 10 == 0 ? 60 : 6));
+            StringBuilder page = new StringBuilder("# Page " + i + "\n\n");
+            for (int s = 0; s < sections; s++) {
+                page.append("## Section ").append(s).append("\n\n");
+                for (int p = random.nextInt(4); p >= 0; p--) {
+                    page.append(paragraph(random)).append("\n\n");
+                }
+                switch (random.nextInt(4)) {
+                    case 0:
+                        for (int item = 1 + random.nextInt(6); item > 0; item--) {
+                            page.append("* ").append(sentence(random)).append('\n');
+                        }
+                        page.append('\n');
+                        break;
+                    case 1:
+                        page.append("```\nvertx.createHttpServer().requestHandler(router).listen(")
+                            .append(8000 + random.nextInt(1000)).append(");\n```\n\n");
+                        break;
+                    case 2:
+                        page.append("> ").append(sentence(random)).append("\n\n");
+                        break;
+                    default:
+                        break;
+                }
+            }
+            pages.add(page.toString());
+        }
+        return pages;
+    }
+
+    private static String paragraph(Random random) {
+        StringBuilder paragraph = new StringBuilder();
+        for (int s = 2 + random.nextInt(5); s > 0; s--) {
+            paragraph.append(sentence(random)).append(' ');
+        }
+        return paragraph.toString().trim();
+    }
+
+    private static final String[] WORDS = {"verticle", "event", "loop", "the", "a", "handler", "is", "deployed",
+        "with", "**bold**", "*emphasis*", "`code`", "[link](/wiki/Home)", "database", "page", "and", "of", "router"};
+
+    private static String sentence(Random random) {
+        StringBuilder sentence = new StringBuilder("Wiki");
+        for (int w = 4 + random.nextInt(12); w > 0; w--) {
+            sentence.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.append('.').toString();
+    }
+}
@@ -0,0 +1,51 @@
+package io.vertx.guides.wiki.database;
+
+import io.reactivex.Single;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+class DatabaseMaintenanceTest {
+
+    private static final String LOG_SIZE = "select property_value from information_schema.system_properties "
+        + "where property_name = 'hsqldb.log_size'";
+
+    @Test
+    void giving_checkpoints_back_turns_the_automatic_ones_on_again(Vertx vertx, VertxTestContext context) {
+        String url = "jdbc:hsqldb:file:target/maintenance-" + System.nanoTime() + "/wiki";
+        JsonObject config = new JsonObject()
+            .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, url)
+            .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_DRIVER_CLASS, "org.hsqldb.jdbcDriver")
+            .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE, 2);
+
+        vertx.runOnContext(v -> logSize(vertx, url, config, true)
+            .flatMap(takenOver -> logSize(vertx, url, config, false).map(givenBack -> {
+                assertThat(takenOver).isEqualTo("0");
+                assertThat(givenBack).isEqualTo("50");
+                return givenBack;
+            }))
+            .subscribe(size -> context.completeNow(), context::failNow));
+    }
+
+    /**
+     * Starts the maintenance of the database at {@code url}, reads the log size it left, then shuts the database down.
+     */
+    private Single<String> logSize(Vertx vertx, String url, JsonObject config, boolean takeOver) {
+        return Single.defer(() -> {
+            JdbcPool pool = JdbcPool.create(vertx, "maintenance-" + takeOver, config);
+            DatabaseMaintenance maintenance = DatabaseMaintenance.create(vertx, pool, pool, url, new JsonObject()
+                .put(DatabaseMaintenance.CONFIG_TAKE_OVER_CHECKPOINTS, takeOver));
+            return maintenance.rxStart()
+                .andThen(pool.rxQuery(SqlQuery.GET_PAGE, LOG_SIZE, new JsonArray()))
+                .map(rs -> rs.getResults().get(0).getValue(0).toString())
+                .flatMap(size -> maintenance.rxStop().andThen(pool.rxClose()).toSingleDefault(size));
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package io.vertx.guides.wiki.database;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.guides.wiki.GracefulShutdown;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+class GracefulShutdownTest {
+
+    @Test
+    void the_database_answers_until_the_http_verticles_have_drained(Vertx vertx, VertxTestContext context) {
+        JsonObject dbConf = new JsonObject()
+            .put("jdbc", new JsonObject()
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, "jdbc:hsqldb:mem:shutdown-" + System.nanoTime() + ";shutdown=true")
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_DRIVER_CLASS, "org.hsqldb.jdbcDriver"));
+        WikiDatabaseService service = WikiDatabaseService.createProxy(vertx, WikiDatabaseVerticle.CONFIG_WIKIDB_QUEUE);
+        AtomicBoolean undeployed = new AtomicBoolean();
+
+        vertx.deployVerticle(new WikiDatabaseVerticle(), new DeploymentOptions().setConfig(dbConf),
+            context.succeeding(id -> service.createPage("Draining", "# Draining", context.succeeding(v -> {
+                // Stands for an HTTP verticle of the node that still has requests in flight
+                GracefulShutdown.serving(vertx);
+                vertx.undeploy(id, context.succeeding(w -> undeployed.set(true)));
+                vertx.setTimer(200, t -> service.fetchPage("Draining", context.succeeding(page -> context.verify(() -> {
+                    assertThat(page.getBoolean("found")).isTrue();
+                    assertThat(undeployed).isFalse();
+                    GracefulShutdown.drained(vertx);
+                    GracefulShutdown.await(vertx, undeployed::get, 5_000).onComplete(context.succeeding(done ->
+                        service.fetchPage("Draining", context.failing(e -> context.verify(() -> {
+                            assertThat(done).isTrue();
+                            context.completeNow();
+                        })))));
+                }))));
+            }))));
+    }
+}
@@ -0,0 +1,50 @@
+package io.vertx.guides.wiki.database;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.jdbc.JDBCClient;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+class JdbcClientAdapterTest {
+
+    @Test
+    void queries_like_the_jdbc_client(Vertx vertx, VertxTestContext context) throws SQLException {
+        JsonObject config = new JsonObject()
+            .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, "jdbc:hsqldb:mem:adapter-" + System.nanoTime() + ";shutdown=true")
+            .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_DRIVER_CLASS, "org.hsqldb.jdbcDriver")
+            .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE, 2);
+        JdbcClientAdapter adapter = new JdbcClientAdapter(config);
+        try (Connection connection = adapter.dataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table Samples (Id integer primary key, Name varchar(255), Content clob, "
+                + "Size bigint, Ratio double, Flag boolean, Created timestamp, Missing varchar(10))");
+            statement.execute("insert into Samples values (1, 'One', 'Some text', 9000000000, 0.5, true, "
+                + "timestamp '2020-05-04 03:02:01', null)");
+            statement.execute("insert into Samples values (2, 'Two', 'More text', 2, 1.5, false, "
+                + "timestamp '2020-05-05 03:02:01', null)");
+        }
+        String sql = "select * from Samples where Id >= ? and Name <> ? order by Id";
+        JsonArray params = new JsonArray().add(1).add("None");
+
+        io.vertx.ext.sql.ResultSet adapted = adapter.query(sql, params);
+        JDBCClient.create(vertx, adapter.dataSource()).queryWithParams(sql, params, context.succeeding(expected ->
+            context.verify(() -> {
+                assertThat(adapted.getNumRows()).isEqualTo(2);
+                assertThat(adapted.getColumnNames()).isEqualTo(expected.getColumnNames());
+                assertThat(adapted.getResults()).isEqualTo(expected.getResults());
+                adapter.close();
+                context.completeNow();
+            })));
+    }
+}
@@ -0,0 +1,76 @@
+package io.vertx.guides.wiki.database;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.Checkpoint;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.serviceproxy.ServiceException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+class JdbcPoolTest {
+
+    @Test
+    void the_virtual_executor_rejects_queries_beyond_the_queue_bound(Vertx vertx, VertxTestContext context) throws Exception {
+        String url = "jdbc:hsqldb:mem:pool-" + System.nanoTime() + ";shutdown=true";
+        JsonObject config = new JsonObject()
+            .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, url)
+            .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_DRIVER_CLASS, "org.hsqldb.jdbcDriver")
+            .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE, 2)
+            .put(JdbcPool.CONFIG_EXECUTOR, JdbcPool.EXECUTOR_VIRTUAL)
+            .put(JdbcPool.CONFIG_QUERY_LIMIT, 1)
+            .put(JdbcPool.CONFIG_MAX_QUEUE_SIZE, 1);
+        String sql = "select Id from Samples where Id = ?";
+        JsonArray params = new JsonArray().add(1);
+
+        // An uncommitted insert holds the table lock, so the first query blocks while holding the only permit
+        Connection lock = DriverManager.getConnection(url);
+        try (Statement statement = lock.createStatement()) {
+            statement.execute("create table Samples (Id integer primary key)");
+            lock.setAutoCommit(false);
+            statement.execute("insert into Samples values (1)");
+        }
+        Checkpoint answered = context.checkpoint(2);
+
+        vertx.runOnContext(v -> {
+            JdbcPool pool;
+            try {
+                pool = JdbcPool.create(vertx, "virtual", config);
+            } catch (Exception e) {
+                context.failNow(e);
+                return;
+            }
+            pool.rxQuery(SqlQuery.GET_PAGE, sql, params).subscribe(rs -> answered.flag(), context::failNow);
+            vertx.setPeriodic(10, timer -> {
+                JsonObject query = pool.metrics().getJsonObject("queries").getJsonObject(SqlQuery.GET_PAGE.name());
+                if (query.getInteger("inFlight") < 1) {
+                    return;
+                }
+                vertx.cancelTimer(timer);
+                // Waits for the permit, filling the queue
+                pool.rxQuery(SqlQuery.GET_PAGE, sql, params).subscribe(rs -> context.verify(() -> {
+                    assertThat(rs.getNumRows()).isEqualTo(1);
+                    assertThat(pool.metrics().getLong("rejected")).isEqualTo(1);
+                    lock.close();
+                    answered.flag();
+                }), context::failNow);
+                pool.rxQuery(SqlQuery.GET_PAGE, sql, params).subscribe(rs -> context.failNow(new AssertionError(
+                    "The query should have been rejected")), e -> context.verify(() -> {
+                    assertThat(e).isInstanceOf(ServiceException.class);
+                    assertThat(((ServiceException) e).failureCode()).isEqualTo(ErrorCodes.POOL_SATURATED.ordinal());
+                    assertThat(pool.metrics().getInteger("queued")).isEqualTo(1);
+                    lock.commit();
+                }));
+            });
+        });
+    }
+}
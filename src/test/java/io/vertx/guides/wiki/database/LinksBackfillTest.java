@@ -0,0 +1,78 @@
+package io.vertx.guides.wiki.database;
+
+import io.reactivex.Completable;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.reactivex.core.Vertx;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+class LinksBackfillTest {
+
+    private static final int PAGES = 250;
+
+    @Test
+    void links_are_backfilled_once(io.vertx.core.Vertx vertx, VertxTestContext context) {
+        String url = "jdbc:hsqldb:file:target/backfill-" + System.nanoTime() + "/wiki";
+        Vertx rxVertx = Vertx.newInstance(vertx);
+        io.vertx.guides.wiki.database.reactivex.WikiDatabaseService service =
+            io.vertx.guides.wiki.database.reactivex.WikiDatabaseService.newInstance(
+                WikiDatabaseService.createProxy(vertx, WikiDatabaseVerticle.CONFIG_WIKIDB_QUEUE));
+
+        // The first start creates the schema, then the pages of an older version are added behind its back
+        started(rxVertx, url)
+            .andThen(Completable.fromAction(() -> {
+                try (Connection connection = DriverManager.getConnection(url);
+                     Statement statement = connection.createStatement();
+                     PreparedStatement insert = connection.prepareStatement("insert into Pages values (NULL, ?, ?)")) {
+                    for (int i = 0; i < PAGES; i++) {
+                        insert.setString(1, "Page " + i);
+                        insert.setString(2, "See [Target](/wiki/Target)");
+                        insert.executeUpdate();
+                    }
+                    statement.execute("delete from Migrations");
+                }
+            }))
+            .andThen(started(rxVertx, url))
+            .andThen(service.rxFetchBacklinks("Target"))
+            .flatMap(backfilled -> Completable.fromAction(() -> {
+                try (Connection connection = DriverManager.getConnection(url);
+                     Statement statement = connection.createStatement()) {
+                    statement.execute("delete from Links");
+                }
+            }).andThen(started(rxVertx, url)).andThen(service.rxFetchBacklinks("Target")).map(rescanned -> {
+                assertThat(backfilled).hasSize(PAGES);
+                // An empty Links table alone does not trigger another scan
+                assertThat(rescanned).isEmpty();
+                return rescanned;
+            }))
+            .subscribe(links -> context.completeNow(), context::failNow);
+    }
+
+    /**
+     * Undeploys whatever runs, then deploys the database verticle on {@code url}.
+     */
+    private Completable started(Vertx vertx, String url) {
+        JsonObject dbConf = new JsonObject()
+            .put("jdbc", new JsonObject()
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, url)
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_DRIVER_CLASS, "org.hsqldb.jdbcDriver"));
+        return Completable.defer(() -> Completable.concat(vertx.deploymentIDs()
+                .stream()
+                .map(vertx::rxUndeploy)
+                .collect(Collectors.toList())))
+            .andThen(vertx.rxDeployVerticle(WikiDatabaseVerticle.class.getName(), new DeploymentOptions().setConfig(dbConf)))
+            .ignoreElement();
+    }
+}
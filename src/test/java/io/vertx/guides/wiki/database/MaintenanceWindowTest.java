@@ -0,0 +1,31 @@
+package io.vertx.guides.wiki.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MaintenanceWindowTest {
+
+    @Test
+    void contains_the_times_of_a_daytime_window() {
+        MaintenanceWindow window = MaintenanceWindow.parse("02:00", "05:00");
+        assertThat(window.contains(LocalDateTime.parse("2020-05-04T01:59"))).isFalse();
+        assertThat(window.contains(LocalDateTime.parse("2020-05-04T02:00"))).isTrue();
+        assertThat(window.contains(LocalDateTime.parse("2020-05-04T04:59"))).isTrue();
+        assertThat(window.contains(LocalDateTime.parse("2020-05-04T05:00"))).isFalse();
+        assertThat(window.occurrence(LocalDateTime.parse("2020-05-04T03:00"))).isEqualTo(LocalDate.parse("2020-05-04"));
+    }
+
+    @Test
+    void spans_midnight() {
+        MaintenanceWindow window = MaintenanceWindow.parse("23:00", "01:00");
+        assertThat(window.contains(LocalDateTime.parse("2020-05-04T23:30"))).isTrue();
+        assertThat(window.contains(LocalDateTime.parse("2020-05-05T00:30"))).isTrue();
+        assertThat(window.contains(LocalDateTime.parse("2020-05-05T12:00"))).isFalse();
+        assertThat(window.occurrence(LocalDateTime.parse("2020-05-04T23:30"))).isEqualTo(LocalDate.parse("2020-05-04"));
+        assertThat(window.occurrence(LocalDateTime.parse("2020-05-05T00:30"))).isEqualTo(LocalDate.parse("2020-05-04"));
+    }
+}
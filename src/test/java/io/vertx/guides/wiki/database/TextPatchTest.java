@@ -0,0 +1,38 @@
+package io.vertx.guides.wiki.database;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TextPatchTest {
+
+    @Test
+    void applies_edits_relative_to_the_base_text() {
+        JsonArray edits = new JsonArray()
+            .add(new JsonObject().put("offset", 0).put("insert", "# "))
+            .add(new JsonObject().put("offset", 6).put("delete", 5).put("insert", "there"))
+            .add(new JsonObject().put("offset", 12).put("insert", "!"));
+        assertThat(TextPatch.apply("Hello world.", edits)).isEqualTo("# Hello there.!");
+        assertThat(TextPatch.apply("Unchanged", new JsonArray())).isEqualTo("Unchanged");
+        assertThat(TextPatch.version("a")).hasSize(64).isNotEqualTo(TextPatch.version("b"));
+    }
+
+    @Test
+    void rejects_edits_out_of_the_base_text_or_out_of_order() {
+        assertThatThrownBy(() -> TextPatch.apply("short", new JsonArray()
+            .add(new JsonObject().put("offset", 3).put("delete", 3))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TextPatch.apply("some text", new JsonArray()
+            .add(new JsonObject().put("offset", 4).put("delete", 2))
+            .add(new JsonObject().put("offset", 5).put("insert", "x"))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TextPatch.apply("text", new JsonArray()
+            .add(new JsonObject().put("offset", -1))))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TextPatch.apply("text", new JsonArray().add("not an edit")))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,59 @@
+package io.vertx.guides.wiki.database;
+
+import io.reactivex.Single;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.reactivex.core.Vertx;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+class VirtualExecutorTest {
+
+    @Test
+    void the_service_reads_through_a_virtual_read_pool(io.vertx.core.Vertx vertx, VertxTestContext context) {
+        JsonObject dbConf = new JsonObject()
+            .put("jdbc", new JsonObject()
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, "jdbc:hsqldb:mem:virtual-" + System.nanoTime() + ";shutdown=true")
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_DRIVER_CLASS, "org.hsqldb.jdbcDriver")
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_READ_POOL, new JsonObject()
+                    .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE, 2)
+                    .put(JdbcPool.CONFIG_EXECUTOR, JdbcPool.EXECUTOR_VIRTUAL)));
+        io.vertx.guides.wiki.database.reactivex.WikiDatabaseService service =
+            io.vertx.guides.wiki.database.reactivex.WikiDatabaseService.newInstance(
+                WikiDatabaseService.createProxy(vertx, WikiDatabaseVerticle.CONFIG_WIKIDB_QUEUE));
+
+        Vertx.newInstance(vertx).rxDeployVerticle(WikiDatabaseVerticle.class.getName(), new DeploymentOptions().setConfig(dbConf))
+            .ignoreElement()
+            .andThen(service.rxCreatePage("Home", "See [Other](/wiki/Other)"))
+            .andThen(service.rxCreatePage("Other", "# Other"))
+            .andThen(service.rxFetchPage("Home"))
+            .flatMap(home -> Single.zip(
+                service.rxFetchPageById(home.getInteger("id")),
+                service.rxFetchBacklinks("Other"),
+                service.rxFetchAllPages(),
+                (byId, backlinks, names) -> {
+                    assertThat(home.getBoolean("found")).isTrue();
+                    assertThat(home.getString("rawContent")).isEqualTo("See [Other](/wiki/Other)");
+                    assertThat(byId.getString("name")).isEqualTo("Home");
+                    assertThat(backlinks).containsExactly("Home");
+                    assertThat(names).containsExactly("Home", "Other");
+                    return byId;
+                }))
+            .flatMap(page -> service.rxFetchMetrics())
+            .map(metrics -> metrics.getJsonObject("pools").getJsonObject(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_READ_POOL))
+            .subscribe(read -> context.verify(() -> {
+                assertThat(read.getString("executor")).isEqualTo(JdbcPool.EXECUTOR_VIRTUAL);
+                JsonObject queries = read.getJsonObject("queries");
+                for (SqlQuery query : new SqlQuery[]{SqlQuery.GET_PAGE, SqlQuery.GET_PAGE_BY_ID, SqlQuery.GET_BACKLINKS, SqlQuery.ALL_PAGES}) {
+                    assertThat(queries.getJsonObject(query.name()).getLong("completed")).isPositive();
+                    assertThat(queries.getJsonObject(query.name()).getLong("failed")).isZero();
+                }
+                context.completeNow();
+            }), context::failNow);
+    }
+}
@@ -1,16 +1,25 @@
 package io.vertx.guides.wiki.http;
 
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.DeploymentOptions;
+import io.vertx.core.MultiMap;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpVersion;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.ext.web.codec.BodyCodec;
+import io.vertx.guides.wiki.database.PageStreams;
+import io.vertx.guides.wiki.database.WikiDatabaseService;
 import io.vertx.guides.wiki.database.WikiDatabaseVerticle;
+import io.vertx.junit5.Checkpoint;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
 import org.junit.jupiter.api.AfterEach;
@@ -18,7 +27,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -26,6 +38,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 class ApiTest {
 
     private WebClient webClient;
+    private String scratch;
 
     @Test
     public void play_with_api(VertxTestContext context) throws InterruptedException {
@@ -124,17 +137,498 @@ class ApiTest {
         context.awaitCompletion(5000, TimeUnit.MILLISECONDS);
     }
 
+    @Test
+    public void export_and_import(VertxTestContext context) throws InterruptedException {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 250; i++) {
+            ndjson.append(new JsonObject()
+                .put("name", "Page " + i)
+                .put("markdown", "# Page " + i).encode()).append('\n');
+        }
+
+        Promise<HttpResponse<JsonObject>> importPromise = Promise.promise();
+        webClient.post("/api/import")
+            .as(BodyCodec.jsonObject())
+            .sendBuffer(Buffer.buffer(ndjson.toString()), importPromise);
+
+        Future<HttpResponse<Buffer>> exportFuture = importPromise.future().compose(resp -> {
+            assertThat(resp.statusCode()).isEqualTo(200);
+            assertThat(resp.body().getInteger("imported")).isEqualTo(250);
+
+            Promise<HttpResponse<Buffer>> promise = Promise.promise();
+            webClient.get("/api/export").send(promise);
+            return promise.future();
+        });
+
+        exportFuture.onComplete(context.succeeding(resp -> context.verify(() -> {
+            assertThat(resp.getHeader("Content-Type")).isEqualTo("application/x-ndjson");
+            String[] lines = resp.bodyAsString().split("\n");
+            assertThat(lines).hasSize(250);
+            JsonObject last = new JsonObject(lines[249]);
+            assertThat(last.getString("name")).isEqualTo("Page 249");
+            assertThat(last.getString("markdown")).isEqualTo("# Page 249");
+            context.completeNow();
+        })));
+
+        context.awaitCompletion(5000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void export_reads_batch_after_batch_on_small_credits(Vertx vertx, VertxTestContext context) throws InterruptedException {
+        // Three batches of the export, read while the consumer hands back one credit at a time
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 250; i++) {
+            ndjson.append(new JsonObject()
+                .put("name", "Page " + i)
+                .put("markdown", "# Page " + i).encode()).append('\n');
+        }
+        WikiDatabaseService service = WikiDatabaseService.createProxy(vertx, WikiDatabaseVerticle.CONFIG_WIKIDB_QUEUE);
+        String address = "test.export";
+        List<String> names = new ArrayList<>();
+
+        vertx.eventBus().<JsonObject>consumer(address, message -> {
+            String event = message.headers().get(PageStreams.HEADER_EVENT);
+            if (event == null) {
+                names.add(message.body().getString("name"));
+                vertx.setTimer(1, id -> vertx.eventBus().send(address + PageStreams.CREDITS_SUFFIX, 1));
+                return;
+            }
+            context.verify(() -> {
+                assertThat(event).isEqualTo(PageStreams.EVENT_END);
+                assertThat(names).hasSize(250);
+                assertThat(names.get(249)).isEqualTo("Page 249");
+            });
+            service.fetchMetrics(context.succeeding(metrics -> context.verify(() -> {
+                // Nothing is left running on the read pool once the export has ended
+                JsonObject read = metrics.getJsonObject("pools").getJsonObject(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_READ_POOL);
+                assertThat(read.getInteger("inFlight")).isZero();
+                assertThat(read.getInteger("queued")).isZero();
+                context.completeNow();
+            })));
+        }).completionHandler(registered -> webClient.post("/api/import")
+            .sendBuffer(Buffer.buffer(ndjson.toString()), context.succeeding(imported ->
+                service.exportPages(address, 1, context.succeeding(v -> {
+                })))));
+
+        context.awaitCompletion(5000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void backlinks_follow_page_edits(VertxTestContext context) throws InterruptedException {
+        JsonObject page = new JsonObject()
+            .put("name", "Source")
+            .put("markdown", "See [the target](/wiki/Target) and [another](/wiki/Other).");
+
+        Promise<HttpResponse<JsonObject>> createPromise = Promise.promise();
+        webClient.post("/api/pages")
+            .as(BodyCodec.jsonObject())
+            .sendJsonObject(page, createPromise);
+
+        Future<HttpResponse<Buffer>> linkedFuture = createPromise.future().compose(resp -> {
+            Promise<HttpResponse<Buffer>> promise = Promise.promise();
+            webClient.get("/wiki/Target").send(promise);
+            return promise.future();
+        });
+
+        Future<HttpResponse<JsonObject>> updateFuture = linkedFuture.compose(resp -> {
+            assertThat(resp.bodyAsString()).contains("What links here", "<a href=\"/wiki/Source\">Source</a>");
+            // Missing pages are not cached, so they show when they were rendered
+            assertThat(resp.bodyAsString()).contains("Rendered: ").doesNotContain("Rendered and cached: ");
+
+            Promise<HttpResponse<JsonObject>> promise = Promise.promise();
+            webClient.put("/api/pages/0")
+                .as(BodyCodec.jsonObject())
+                .sendJsonObject(new JsonObject().put("markdown", "Only [another](/wiki/Other) now."), promise);
+            return promise.future();
+        });
+
+        Future<HttpResponse<Buffer>> unlinkedFuture = updateFuture.compose(resp -> {
+            Promise<HttpResponse<Buffer>> promise = Promise.promise();
+            webClient.get("/wiki/Target").send(promise);
+            return promise.future();
+        });
+
+        Future<HttpResponse<Buffer>> otherFuture = unlinkedFuture.compose(resp -> {
+            assertThat(resp.bodyAsString()).doesNotContain("What links here");
+
+            Promise<HttpResponse<Buffer>> promise = Promise.promise();
+            webClient.get("/wiki/Other").send(promise);
+            return promise.future();
+        });
+
+        Future<HttpResponse<Buffer>> sourceFuture = otherFuture.compose(resp -> {
+            assertThat(resp.bodyAsString()).contains("<a href=\"/wiki/Source\">Source</a>");
+
+            Promise<HttpResponse<Buffer>> promise = Promise.promise();
+            webClient.get("/wiki/Source").send(promise);
+            return promise.future();
+        });
+
+        sourceFuture.onComplete(context.succeeding(resp -> context.verify(() -> {
+            assertThat(resp.bodyAsString()).contains("Rendered and cached: ");
+            context.completeNow();
+        })));
+
+        context.awaitCompletion(5000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void saving_an_unknown_page_with_links_is_not_found(VertxTestContext context) throws InterruptedException {
+        Promise<HttpResponse<JsonObject>> savePromise = Promise.promise();
+        webClient.put("/api/pages/42")
+            .as(BodyCodec.jsonObject())
+            .sendJsonObject(new JsonObject().put("markdown", "See [the target](/wiki/Target)."), savePromise);
+
+        Future<HttpResponse<Buffer>> targetFuture = savePromise.future().compose(resp -> {
+            assertThat(resp.statusCode()).isEqualTo(404);
+            assertThat(resp.body().getBoolean("success")).isFalse();
+            assertThat(resp.body().getString("error")).isEqualTo("There is no page with ID 42");
+
+            Promise<HttpResponse<Buffer>> promise = Promise.promise();
+            webClient.get("/wiki/Target").send(promise);
+            return promise.future();
+        });
+
+        targetFuture.onComplete(context.succeeding(resp -> context.verify(() -> {
+            assertThat(resp.bodyAsString()).doesNotContain("What links here");
+            context.completeNow();
+        })));
+
+        context.awaitCompletion(5000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void pages_are_patched_against_a_base_version(VertxTestContext context) throws InterruptedException {
+        JsonObject page = new JsonObject()
+            .put("name", "Patched")
+            .put("markdown", "# Title\n\nSome text.");
+
+        Promise<HttpResponse<JsonObject>> createPromise = Promise.promise();
+        webClient.post("/api/pages")
+            .as(BodyCodec.jsonObject())
+            .sendJsonObject(page, createPromise);
+
+        Future<HttpResponse<JsonObject>> getFuture = createPromise.future().compose(resp -> {
+            Promise<HttpResponse<JsonObject>> promise = Promise.promise();
+            webClient.get("/api/pages/0")
+                .as(BodyCodec.jsonObject())
+                .send(promise);
+            return promise.future();
+        });
+
+        JsonArray edits = new JsonArray()
+            .add(new JsonObject().put("offset", 2).put("delete", 5).put("insert", "Heading"))
+            .add(new JsonObject().put("offset", 19).put("insert", " More [links](/wiki/Other)."));
+        Future<String> baseFuture = getFuture.map(resp -> resp.body().getJsonObject("page").getString("version"));
+
+        Future<HttpResponse<JsonObject>> patchFuture = baseFuture.compose(base -> {
+            Promise<HttpResponse<JsonObject>> promise = Promise.promise();
+            webClient.patch("/api/pages/0")
+                .as(BodyCodec.jsonObject())
+                .sendJsonObject(new JsonObject().put("base", base).put("edits", edits), promise);
+            return promise.future();
+        });
+
+        Future<HttpResponse<JsonObject>> stalePatchFuture = patchFuture.compose(resp -> {
+            assertThat(resp.statusCode()).isEqualTo(200);
+            assertThat(resp.body().getString("version")).isNotEqualTo(baseFuture.result());
+
+            Promise<HttpResponse<JsonObject>> promise = Promise.promise();
+            webClient.patch("/api/pages/0")
+                .as(BodyCodec.jsonObject())
+                .sendJsonObject(new JsonObject().put("base", baseFuture.result()).put("edits", edits), promise);
+            return promise.future();
+        });
+
+        Future<HttpResponse<JsonObject>> patchedFuture = stalePatchFuture.compose(resp -> {
+            assertThat(resp.statusCode()).isEqualTo(409);
+            assertThat(resp.body().getString("version")).isEqualTo(patchFuture.result().body().getString("version"));
+
+            Promise<HttpResponse<JsonObject>> promise = Promise.promise();
+            webClient.get("/api/pages/0")
+                .as(BodyCodec.jsonObject())
+                .send(promise);
+            return promise.future();
+        });
+
+        patchedFuture.onComplete(context.succeeding(resp -> context.verify(() -> {
+            JsonObject patched = resp.body().getJsonObject("page");
+            assertThat(patched.getString("markdown")).isEqualTo("# Heading\n\nSome text. More [links](/wiki/Other).");
+            assertThat(patched.getString("version")).isEqualTo(patchFuture.result().body().getString("version"));
+            context.completeNow();
+        })));
+
+        context.awaitCompletion(5000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void live_updates_are_pushed(Vertx vertx, VertxTestContext context) throws InterruptedException {
+        HttpClient client = vertx.createHttpClient();
+        client.get(8080, "localhost", "/api/events?page=Live", resp -> {
+            assertThat(resp.getHeader("Content-Type")).isEqualTo("text/event-stream");
+            resp.exceptionHandler(t -> {
+                // the stream is cut when Vert.x closes
+            });
+            resp.handler(chunk -> {
+                if (chunk.toString().contains("event: created")) {
+                    context.verify(() -> assertThat(chunk.toString()).contains("\"name\":\"Live\""));
+                    context.completeNow();
+                }
+            });
+            webClient.post("/api/pages")
+                .sendJsonObject(new JsonObject().put("name", "Live").put("markdown", "# Live"), context.succeeding());
+        }).end();
+
+        context.awaitCompletion(5000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void request_bodies_are_limited_and_streamed(VertxTestContext context) throws InterruptedException {
+        StringBuilder markdown = new StringBuilder();
+        while (markdown.length() < 2048) {
+            markdown.append("Too long. ");
+        }
+
+        Promise<HttpResponse<JsonObject>> tooLargePromise = Promise.promise();
+        webClient.post("/api/pages")
+            .as(BodyCodec.jsonObject())
+            .sendJsonObject(new JsonObject().put("name", "Large").put("markdown", markdown.toString()), tooLargePromise);
+
+        Future<HttpResponse<JsonObject>> malformedFuture = tooLargePromise.future().compose(resp -> {
+            assertThat(resp.statusCode()).isEqualTo(413);
+            Promise<HttpResponse<JsonObject>> promise = Promise.promise();
+            webClient.post("/api/pages")
+                .as(BodyCodec.jsonObject())
+                .sendBuffer(Buffer.buffer("{\"name\": \"Broken\", "), promise);
+            return promise.future();
+        });
+
+        Future<HttpResponse<Buffer>> formFuture = malformedFuture.compose(resp -> {
+            assertThat(resp.statusCode()).isEqualTo(400);
+            Promise<HttpResponse<Buffer>> promise = Promise.promise();
+            webClient.post("/create")
+                .followRedirects(false)
+                .sendForm(MultiMap.caseInsensitiveMultiMap().add("name", "Form page"), promise);
+            return promise.future();
+        });
+
+        formFuture.onComplete(context.succeeding(resp -> context.verify(() -> {
+            assertThat(resp.statusCode()).isEqualTo(303);
+            assertThat(resp.getHeader("Location")).isEqualTo("/wiki/Form page");
+            context.completeNow();
+        })));
+
+        context.awaitCompletion(5000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void attachments_are_stored_by_content_and_served_with_ranges(VertxTestContext context) throws InterruptedException {
+        Buffer content = Buffer.buffer("0123456789abcdefghij");
+
+        Promise<HttpResponse<JsonObject>> createPromise = Promise.promise();
+        webClient.post("/api/pages")
+            .as(BodyCodec.jsonObject())
+            .sendJsonObject(new JsonObject().put("name", "Diagrams").put("markdown", "# Diagrams"), createPromise);
+
+        Future<HttpResponse<JsonObject>> uploadFuture = createPromise.future().compose(resp -> {
+            Promise<HttpResponse<JsonObject>> promise = Promise.promise();
+            webClient.post("/api/pages/0/attachments")
+                .addQueryParam("name", "notes.txt")
+                .putHeader("Content-Type", "text/plain")
+                .as(BodyCodec.jsonObject())
+                .sendBuffer(content, promise);
+            return promise.future();
+        });
+
+        Future<HttpResponse<Buffer>> rangeFuture = uploadFuture.compose(resp -> {
+            assertThat(resp.statusCode()).isEqualTo(201);
+            JsonObject attachment = resp.body().getJsonObject("attachment");
+            assertThat(attachment.getString("hash")).hasSize(64);
+            assertThat(attachment.getLong("size")).isEqualTo(20L);
+            Promise<HttpResponse<Buffer>> promise = Promise.promise();
+            webClient.get(attachment.getString("url"))
+                .putHeader("Range", "bytes=10-14")
+                .send(promise);
+            return promise.future();
+        });
+
+        Future<HttpResponse<Buffer>> cachedFuture = rangeFuture.compose(resp -> {
+            assertThat(resp.statusCode()).isEqualTo(206);
+            assertThat(resp.getHeader("Content-Range")).isEqualTo("bytes 10-14/20");
+            assertThat(resp.getHeader("Content-Type")).isEqualTo("text/plain");
+            assertThat(resp.getHeader("Cache-Control")).contains("immutable");
+            assertThat(resp.bodyAsString()).isEqualTo("abcde");
+            Promise<HttpResponse<Buffer>> promise = Promise.promise();
+            webClient.get("/attachments/" + resp.getHeader("ETag").replace("\"", "") + "/notes.txt")
+                .putHeader("If-None-Match", resp.getHeader("ETag"))
+                .send(promise);
+            return promise.future();
+        });
+
+        Future<HttpResponse<JsonObject>> listFuture = cachedFuture.compose(resp -> {
+            assertThat(resp.statusCode()).isEqualTo(304);
+            Promise<HttpResponse<JsonObject>> promise = Promise.promise();
+            webClient.get("/api/pages/0/attachments")
+                .as(BodyCodec.jsonObject())
+                .send(promise);
+            return promise.future();
+        });
+
+        listFuture.onComplete(context.succeeding(resp -> context.verify(() -> {
+            JsonArray attachments = resp.body().getJsonArray("attachments");
+            assertThat(attachments.size()).isEqualTo(1);
+            assertThat(attachments.getJsonObject(0).getString("name")).isEqualTo("notes.txt");
+            context.completeNow();
+        })));
+
+        context.awaitCompletion(5000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void a_malformed_content_length_is_a_bad_request(Vertx vertx, VertxTestContext context) throws InterruptedException {
+        // The HTTP/1.1 decoder already drops such requests, HTTP/2 hands the header over as it is
+        WebClient h2cClient = WebClient.create(vertx, new WebClientOptions()
+            .setDefaultHost("localhost")
+            .setDefaultPort(8080)
+            .setProtocolVersion(HttpVersion.HTTP_2)
+            .setHttp2ClearTextUpgrade(false));
+
+        Promise<HttpResponse<JsonObject>> createPromise = Promise.promise();
+        webClient.post("/api/pages")
+            .as(BodyCodec.jsonObject())
+            .sendJsonObject(new JsonObject().put("name", "Scans").put("markdown", "# Scans"), createPromise);
+
+        Future<HttpResponse<Buffer>> uploadFuture = createPromise.future().compose(resp -> {
+            Promise<HttpResponse<Buffer>> promise = Promise.promise();
+            h2cClient.post("/api/pages/0/attachments")
+                .addQueryParam("name", "scan.txt")
+                .putHeader("Content-Length", "4 bytes")
+                .sendBuffer(Buffer.buffer("Scan"), promise);
+            return promise.future();
+        });
+
+        uploadFuture.onComplete(context.succeeding(resp -> context.verify(() -> {
+            assertThat(resp.statusCode()).isEqualTo(400);
+            context.completeNow();
+        })));
+
+        context.awaitCompletion(5000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void serving_an_attachment_does_not_hold_up_shutdown(Vertx vertx, VertxTestContext context) throws InterruptedException {
+        Promise<HttpResponse<JsonObject>> createPromise = Promise.promise();
+        webClient.post("/api/pages")
+            .as(BodyCodec.jsonObject())
+            .sendJsonObject(new JsonObject().put("name", "Sketches").put("markdown", "# Sketches"), createPromise);
+
+        Future<HttpResponse<JsonObject>> uploadFuture = createPromise.future().compose(resp -> {
+            Promise<HttpResponse<JsonObject>> promise = Promise.promise();
+            webClient.post("/api/pages/0/attachments")
+                .addQueryParam("name", "sketch.txt")
+                .putHeader("Content-Type", "text/plain")
+                .as(BodyCodec.jsonObject())
+                .sendBuffer(Buffer.buffer("A sketch"), promise);
+            return promise.future();
+        });
+
+        Future<HttpResponse<Buffer>> downloadFuture = uploadFuture.compose(resp -> {
+            Promise<HttpResponse<Buffer>> promise = Promise.promise();
+            webClient.get(resp.body().getJsonObject("attachment").getString("url")).send(promise);
+            return promise.future();
+        });
+
+        Future<Long> undeployFuture = downloadFuture.compose(resp -> {
+            assertThat(resp.statusCode()).isEqualTo(200);
+            assertThat(resp.bodyAsString()).isEqualTo("A sketch");
+            long startedAt = System.nanoTime();
+            List<Future> undeployed = new ArrayList<>();
+            for (String id : vertx.deploymentIDs()) {
+                Promise<Void> promise = Promise.promise();
+                vertx.undeploy(id, promise);
+                undeployed.add(promise.future());
+            }
+            return CompositeFuture.all(undeployed).map(v -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        });
+
+        undeployFuture.onComplete(context.succeeding(millis -> context.verify(() -> {
+            // A file response left counted as in flight would hold the server up for the whole drain timeout
+            assertThat(millis).isLessThan(2_000L);
+            context.completeNow();
+        })));
+
+        context.awaitCompletion(15000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void http2_multiplexes_requests_over_one_connection(Vertx vertx, VertxTestContext context) throws InterruptedException {
+        AtomicInteger connections = new AtomicInteger();
+        HttpClient client = vertx.createHttpClient(new HttpClientOptions()
+            .setProtocolVersion(HttpVersion.HTTP_2)
+            .setHttp2ClearTextUpgrade(false));
+        client.connectionHandler(connection -> connections.incrementAndGet());
+
+        Checkpoint responses = context.checkpoint(20);
+        for (int i = 0; i < 20; i++) {
+            client.get(8080, "localhost", "/api/pages", resp -> context.verify(() -> {
+                assertThat(resp.statusCode()).isEqualTo(200);
+                assertThat(resp.version()).isEqualTo(HttpVersion.HTTP_2);
+                assertThat(connections.get()).isEqualTo(1);
+                responses.flag();
+            })).end();
+        }
+
+        context.awaitCompletion(5000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void http2_is_negotiated_over_tls(Vertx vertx, VertxTestContext context) throws InterruptedException {
+        JsonObject tlsConf = withScratchFiles(new JsonObject()
+            .put(HttpServerVerticle.CONFIG_HTTP_SERVER_PORT, 8443)
+            .put(HttpServerVerticle.CONFIG_HTTP_TLS_KEYSTORE_PATH, "tls/localhost.p12")
+            .put(HttpServerVerticle.CONFIG_HTTP_TLS_KEYSTORE_PASSWORD, "wikitest"));
+
+        vertx.deployVerticle(new HttpServerVerticle(), new DeploymentOptions().setConfig(tlsConf), context.succeeding(id -> {
+            HttpClient client = vertx.createHttpClient(new HttpClientOptions()
+                .setSsl(true)
+                .setUseAlpn(true)
+                .setTrustAll(true)
+                .setProtocolVersion(HttpVersion.HTTP_2));
+            client.get(8443, "localhost", "/api/pages", resp -> context.verify(() -> {
+                assertThat(resp.statusCode()).isEqualTo(200);
+                assertThat(resp.version()).isEqualTo(HttpVersion.HTTP_2);
+                context.completeNow();
+            })).end();
+        }));
+
+        context.awaitCompletion(5000, TimeUnit.MILLISECONDS);
+    }
 
     @BeforeEach
     void prepare(Vertx vertx, VertxTestContext context) {
+        scratch = "target/api-test/" + System.nanoTime();
         JsonObject dbConf = new JsonObject()
-            .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, "jdbc:hsqldb:mem:testdb;shutdown=true")
-            .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE, 4);
+            .put(WikiDatabaseVerticle.CONFIG_WIKIDB_STARTUP_EAGER, true)
+            .put("jdbc", new JsonObject()
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, "jdbc:hsqldb:mem:testdb;shutdown=true")
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_DRIVER_CLASS, "org.hsqldb.jdbcDriver")
+                .put("max_statements_per_connection", 40)
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_READ_POOL, new JsonObject()
+                    .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE, 4))
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_WRITE_POOL, new JsonObject()
+                    .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_MAX_POOL_SIZE, 4)));
 
+        JsonObject httpConf = new JsonObject()
+            .put(HttpServerVerticle.CONFIG_HTTP_STARTUP_PRECOMPILE_TEMPLATES, true)
+            .put(HttpServerVerticle.CONFIG_HTTP_STARTUP_WARMUP_REQUESTS, 20)
+            .put(HttpServerVerticle.CONFIG_HTTP_BODY_LIMIT_PAGE, 1024);
+
+        Checkpoint deployments = context.checkpoint(2);
         vertx.deployVerticle(new WikiDatabaseVerticle(),
-            new DeploymentOptions().setConfig(dbConf), context.completing());
+            new DeploymentOptions().setConfig(dbConf), context.succeeding(id -> deployments.flag()));
 
-        vertx.deployVerticle(new HttpServerVerticle(), context.completing());
+        vertx.deployVerticle(new HttpServerVerticle(),
+            new DeploymentOptions().setConfig(withScratchFiles(httpConf)), context.succeeding(id -> deployments.flag()));
 
         webClient = WebClient.create(vertx, new WebClientOptions()
             .setDefaultHost("localhost")
@@ -146,4 +640,16 @@ class ApiTest {
         vertx.close(context.completing());
     }
 
+    /**
+     * Keeps the files the HTTP verticles write under the directory of the current test, out of the source tree and
+     * away from the other tests.
+     */
+    private JsonObject withScratchFiles(JsonObject httpConf) {
+        return httpConf
+            .put(HttpServerVerticle.CONFIG_HTTP_ATTACHMENTS_DIRECTORY, "target/test-attachments")
+            .put(HttpServerVerticle.CONFIG_HTTP_HOT_PERSIST_FILE, scratch + "/hot-pages.json")
+            .put(HttpServerVerticle.CONFIG_HTTP_ASSETS_DIRECTORY, scratch + "/assets")
+            .put(HttpServerVerticle.CONFIG_HTTP_RENDER_SNAPSHOT_FILE, scratch + "/render-cache.json");
+    }
+
 }
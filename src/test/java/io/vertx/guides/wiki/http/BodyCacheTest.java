@@ -0,0 +1,95 @@
+package io.vertx.guides.wiki.http;
+
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+class BodyCacheTest {
+
+    private final UnpooledByteBufAllocator allocator = new UnpooledByteBufAllocator(true);
+
+    @Test
+    void evicts_the_least_recently_served_bodies_beyond_the_cap() {
+        BodyCache cache = new BodyCache(allocator, 1000);
+        for (char page = 'A'; page <= 'F'; page++) {
+            cache.put("wiki:" + page, String.valueOf(page), Collections.emptyList(), "text/html", body(200),
+                cache.generation());
+        }
+
+        JsonObject metrics = cache.metrics();
+        assertThat(metrics.getInteger("entries")).isEqualTo(5);
+        assertThat(metrics.getLong("bytes")).isEqualTo(1000);
+        assertThat(metrics.getLong("evictions")).isEqualTo(1);
+        assertThat(metrics.getLong("allocatorDirectBytes")).isEqualTo(1000);
+
+        cache.put("wiki:G", "G", Collections.emptyList(), "text/html", body(251), cache.generation());
+        assertThat(cache.metrics().getLong("skipped")).isEqualTo(1);
+    }
+
+    @Test
+    void page_events_drop_the_bodies_depending_on_the_page_or_its_links() {
+        BodyCache cache = new BodyCache(allocator, 10_000);
+        cache.put("wiki:Target", "Target", Arrays.asList("Source"), "text/html", body(100), cache.generation());
+        cache.put("wiki:Other", "Other", Collections.emptyList(), "text/html", body(100), cache.generation());
+        cache.put("api-page:3", "Unrelated", Collections.emptyList(), "application/json", body(100), cache.generation());
+
+        long before = cache.generation();
+        cache.invalidate("Source", Collections.emptyList());
+        assertThat(cache.metrics().getInteger("entries")).isEqualTo(2);
+        cache.invalidate("Source", Arrays.asList("Other"));
+        assertThat(cache.metrics().getInteger("entries")).isEqualTo(1);
+
+        cache.put("wiki:Stale", "Stale", Collections.emptyList(), "text/html", body(100), before);
+        assertThat(cache.metrics().getInteger("entries")).isEqualTo(1);
+
+        cache.invalidateAll();
+        assertThat(cache.metrics().getInteger("entries")).isZero();
+        assertThat(cache.metrics().getLong("allocatorDirectBytes")).isZero();
+    }
+
+    @Test
+    void bodies_are_released_once_sent_and_evicted(Vertx vertx, VertxTestContext context) {
+        BodyCache cache = new BodyCache(allocator, 100_000);
+        Buffer page = body(20_000);
+        cache.put("wiki:Page", "Page", Collections.emptyList(), "text/html", page, cache.generation());
+        vertx.createHttpServer()
+            .requestHandler(request -> context.verify(() -> {
+                assertThat(cache.send("wiki:Page", request.response())).isEqualTo("Page");
+                // Evicted while being written, the body stays readable until the write completes
+                cache.invalidateAll();
+            }))
+            .listen(0, context.succeeding(server -> vertx.createHttpClient()
+                .get(server.actualPort(), "localhost", "/", response -> response.bodyHandler(body -> {
+                    context.verify(() -> {
+                        assertThat(response.getHeader("Content-Type")).isEqualTo("text/html");
+                        assertThat(body).isEqualTo(page);
+                    });
+                    // The server learns that the write completed on its own event loop
+                    vertx.setTimer(100, id -> context.verify(() -> {
+                        assertThat(cache.metrics().getLong("sending")).isZero();
+                        assertThat(cache.metrics().getLong("allocatorDirectBytes")).isZero();
+                        context.completeNow();
+                    }));
+                }))
+                .end()));
+    }
+
+    private static Buffer body(int length) {
+        Buffer body = Buffer.buffer(length);
+        for (int i = 0; i < length; i++) {
+            body.appendByte((byte) ('a' + i % 26));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,39 @@
+package io.vertx.guides.wiki.http;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteRangeTest {
+
+    @Test
+    void resolves_single_ranges() {
+        ByteRange bounded = ByteRange.parse("bytes=10-19", 100);
+        assertThat(bounded.start).isEqualTo(10);
+        assertThat(bounded.end).isEqualTo(19);
+        assertThat(bounded.length()).isEqualTo(10);
+
+        ByteRange open = ByteRange.parse("bytes=90-", 100);
+        assertThat(open.start).isEqualTo(90);
+        assertThat(open.end).isEqualTo(99);
+
+        ByteRange suffix = ByteRange.parse("bytes=-30", 100);
+        assertThat(suffix.start).isEqualTo(70);
+        assertThat(suffix.end).isEqualTo(99);
+
+        ByteRange clamped = ByteRange.parse("bytes=50-500", 100);
+        assertThat(clamped.end).isEqualTo(99);
+    }
+
+    @Test
+    void serves_everything_or_nothing_for_other_ranges() {
+        assertThat(ByteRange.parse(null, 100)).isNull();
+        assertThat(ByteRange.parse("bytes=0-10,20-30", 100)).isNull();
+        assertThat(ByteRange.parse("bytes=20-10", 100)).isNull();
+        assertThat(ByteRange.parse("items=0-10", 100)).isNull();
+        assertThat(ByteRange.parse("bytes=abc-", 100)).isNull();
+
+        assertThat(ByteRange.parse("bytes=100-", 100)).isSameAs(ByteRange.UNSATISFIABLE);
+        assertThat(ByteRange.parse("bytes=-0", 100)).isSameAs(ByteRange.UNSATISFIABLE);
+    }
+}
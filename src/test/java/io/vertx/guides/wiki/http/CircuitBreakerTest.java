@@ -0,0 +1,76 @@
+package io.vertx.guides.wiki.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 100 * MS, 0.75, 1_000 * MS);
+
+    @Test
+    void opens_on_the_failure_rate_once_enough_calls_are_recorded() {
+        long now = 0;
+        breaker.record(true, MS, now);
+        breaker.record(true, MS, now);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        breaker.record(false, MS, now);
+        breaker.record(true, MS, now);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.allow(now + 10 * MS)).isFalse();
+        assertThat(breaker.remainingOpenNanos(now + 10 * MS)).isEqualTo(990 * MS);
+        assertThat(breaker.metrics().getLong("rejected")).isEqualTo(1L);
+    }
+
+    @Test
+    void opens_on_the_slow_call_rate() {
+        for (int i = 0; i < 3; i++) {
+            breaker.record(false, 200 * MS, 0);
+        }
+        breaker.record(false, MS, 0);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void older_outcomes_leave_the_window() {
+        for (int i = 0; i < 4; i++) {
+            breaker.record(i % 2 == 0, MS, 0);
+        }
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        CircuitBreaker sliding = new CircuitBreaker(4, 4, 0.5, 100 * MS, 0.75, 1_000 * MS);
+        sliding.record(true, MS, 0);
+        for (int i = 0; i < 4; i++) {
+            sliding.record(false, MS, 0);
+        }
+        sliding.record(true, MS, 0);
+        assertThat(sliding.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void lets_a_single_probe_through_after_the_open_period() {
+        for (int i = 0; i < 4; i++) {
+            breaker.record(true, MS, 0);
+        }
+        long later = 1_000 * MS;
+        assertThat(breaker.allow(later)).isTrue();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.allow(later)).isFalse();
+
+        breaker.record(false, 200 * MS, later);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        long probe = later + 1_000 * MS;
+        assertThat(breaker.allow(probe)).isTrue();
+        breaker.record(false, MS, probe);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.allow(probe)).isTrue();
+        assertThat(breaker.metrics().getLong("opened")).isEqualTo(2L);
+        assertThat(breaker.metrics().getInteger("calls")).isZero();
+    }
+}
@@ -0,0 +1,50 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.guides.wiki.database.Deadlines;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+class GuardedDatabaseTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void every_call_of_the_shared_proxy_carries_its_own_action_and_deadline(Vertx vertx, VertxTestContext context) {
+        // Answers with the headers it received, as an array or an object depending on the action
+        vertx.eventBus().<JsonObject>consumer("guarded.test", message -> {
+            JsonArray actions = new JsonArray(message.headers().getAll("action"));
+            JsonArray deadlines = new JsonArray(message.headers().getAll(Deadlines.HEADER));
+            if ("fetchAllPages".equals(message.headers().get("action"))) {
+                message.reply(new JsonArray().add(actions).add(deadlines));
+            } else {
+                message.reply(new JsonObject().put("actions", actions).put("deadlines", deadlines));
+            }
+        });
+        GuardedDatabase database = new GuardedDatabase(vertx, "guarded.test",
+            new CircuitBreaker(10, 4, 0.5, 1_000 * MS, 0.75, 1_000 * MS), 2_000, 5_000, 10);
+
+        vertx.runOnContext(v -> database.<JsonArray>read("pages", (db, handler) -> db.fetchAllPages(handler))
+            .compose(pages -> {
+                assertThat(pages.getJsonArray(0)).containsExactly("fetchAllPages");
+                assertThat(pages.getJsonArray(1)).hasSize(1);
+                return database.<JsonObject>write((db, handler) -> db.fetchPage("Home", handler));
+            })
+            .onComplete(context.succeeding(page -> context.verify(() -> {
+                assertThat(page.getJsonArray("actions")).containsExactly("fetchPage");
+                long deadline = Long.parseLong(page.getJsonArray("deadlines").getString(0));
+                assertThat(page.getJsonArray("deadlines")).hasSize(1);
+                assertThat(deadline - System.currentTimeMillis()).isBetween(2_000L, 5_000L);
+                context.completeNow();
+            }))));
+    }
+}
@@ -0,0 +1,50 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotPagesTest {
+
+    @Test
+    void finds_the_hottest_pages_among_a_long_tail() {
+        HotPages hotPages = new HotPages(1024, 4, 10);
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            hotPages.record("Tail " + random.nextInt(20_000));
+            if (i % 10 == 0) {
+                hotPages.record("Hot " + (i / 10) % 5);
+            }
+        }
+
+        JsonArray hottest = hotPages.hottest(5);
+        assertThat(hottest).hasSize(5);
+        for (Object page : hottest) {
+            JsonObject entry = (JsonObject) page;
+            assertThat(entry.getString("name")).startsWith("Hot ");
+            assertThat(entry.getLong("views")).isBetween(1_000L, 1_200L);
+        }
+        assertThat(hotPages.metrics().getLong("totalViews")).isEqualTo(55_000L);
+    }
+
+    @Test
+    void decays_and_forgets_pages() {
+        HotPages hotPages = new HotPages(256, 4, 3);
+        hotPages.add("Alpha", 100);
+        hotPages.add("Beta", 50);
+        hotPages.add("Gamma", 10);
+        hotPages.decay();
+        hotPages.add("Delta", 30);
+
+        assertThat(hotPages.hottest(10).stream().map(page -> ((JsonObject) page).getString("name")))
+            .containsExactly("Alpha", "Delta", "Beta");
+
+        hotPages.forget("Alpha");
+        assertThat(hotPages.hottest(10)).hasSize(2);
+        assertThat(hotPages.hottest(1).getJsonObject(0).getLong("views")).isEqualTo(30L);
+    }
+}
@@ -0,0 +1,82 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.guides.wiki.database.WikiDatabaseService;
+import io.vertx.guides.wiki.database.WikiDatabaseVerticle;
+import io.vertx.junit5.Checkpoint;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+class PageBatcherTest {
+
+    @BeforeEach
+    void prepare(Vertx vertx, VertxTestContext context) {
+        JsonObject dbConf = new JsonObject()
+            .put(WikiDatabaseVerticle.CONFIG_WIKIDB_STARTUP_EAGER, true)
+            .put("jdbc", new JsonObject()
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_URL, "jdbc:hsqldb:mem:batcher-" + System.nanoTime() + ";shutdown=true")
+                .put(WikiDatabaseVerticle.CONFIG_WIKIDB_JDBC_DRIVER_CLASS, "org.hsqldb.jdbcDriver"));
+        vertx.deployVerticle(new WikiDatabaseVerticle(), new DeploymentOptions().setConfig(dbConf),
+            context.succeeding(id -> {
+                WikiDatabaseService service = WikiDatabaseService.createProxy(vertx, WikiDatabaseVerticle.CONFIG_WIKIDB_QUEUE);
+                service.createPage("Alpha", "# Alpha", context.succeeding(v ->
+                    service.createPage("Beta", "# Beta", context.succeeding(w ->
+                        service.createPage("Gamma", "# Gamma", context.succeeding(x -> context.completeNow()))))));
+            }));
+    }
+
+    @Test
+    void lookups_of_one_tick_are_sent_as_one_batch(Vertx vertx, VertxTestContext context) {
+        PageBatcher batcher = new PageBatcher(vertx, WikiDatabaseVerticle.CONFIG_WIKIDB_QUEUE, 5_000, 100);
+        Checkpoint lookups = context.checkpoint(4);
+        vertx.runOnContext(v -> {
+            batcher.load(1, context.succeeding(page -> context.verify(() -> {
+                assertThat(page.getString("name")).isEqualTo("Beta");
+                lookups.flag();
+            })));
+            batcher.load(0, context.succeeding(page -> context.verify(() -> {
+                assertThat(page.getString("content")).isEqualTo("# Alpha");
+                lookups.flag();
+            })));
+            batcher.load(42, context.succeeding(page -> context.verify(() -> {
+                assertThat(page.getBoolean("found")).isFalse();
+                lookups.flag();
+            })));
+            batcher.load(1, context.succeeding(page -> context.verify(() -> {
+                assertThat(page.getString("name")).isEqualTo("Beta");
+                assertThat(batcher.metrics().getLong("loads")).isEqualTo(4);
+                assertThat(batcher.metrics().getLong("batches")).isEqualTo(1);
+                assertThat(batcher.metrics().getInteger("largestBatch")).isEqualTo(3);
+                lookups.flag();
+            })));
+        });
+    }
+
+    @Test
+    void full_batches_are_sent_right_away(Vertx vertx, VertxTestContext context) {
+        PageBatcher batcher = new PageBatcher(vertx, WikiDatabaseVerticle.CONFIG_WIKIDB_QUEUE, 5_000, 2);
+        AtomicInteger found = new AtomicInteger();
+        vertx.runOnContext(v -> {
+            for (int id = 0; id < 3; id++) {
+                batcher.load(id, context.succeeding(page -> context.verify(() -> {
+                    assertThat(page.getBoolean("found")).isTrue();
+                    if (found.incrementAndGet() == 3) {
+                        assertThat(batcher.metrics().getLong("batches")).isEqualTo(2);
+                        assertThat(batcher.metrics().getInteger("largestBatch")).isEqualTo(2);
+                        context.completeNow();
+                    }
+                })));
+            }
+        });
+    }
+}
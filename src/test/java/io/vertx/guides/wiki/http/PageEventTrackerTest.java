@@ -0,0 +1,40 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageEventTrackerTest {
+
+    private static JsonObject event(String origin, long sequence) {
+        return new JsonObject().put("type", "saved").put("name", "Page").put("origin", origin).put("sequence", sequence);
+    }
+
+    private static JsonObject heartbeat(String origin, long sequence) {
+        return new JsonObject().put("origin", origin).put("sequence", sequence);
+    }
+
+    @Test
+    void notices_missed_events_and_new_origins() {
+        PageEventTracker tracker = new PageEventTracker(1_000, 0);
+        assertThat(tracker.missedBefore(event("a", 5), 10)).isFalse();
+        assertThat(tracker.missedBefore(event("a", 6), 20)).isFalse();
+        assertThat(tracker.missedBeforeHeartbeat(heartbeat("a", 6), 30)).isFalse();
+        assertThat(tracker.missedBefore(event("a", 8), 40)).isTrue();
+        assertThat(tracker.missedBeforeHeartbeat(heartbeat("a", 9), 50)).isTrue();
+        assertThat(tracker.missedBefore(event("b", 1), 60)).isTrue();
+        assertThat(tracker.metrics(60).getLong("resyncs")).isEqualTo(3);
+    }
+
+    @Test
+    void rebuilds_after_a_silence() {
+        PageEventTracker tracker = new PageEventTracker(1_000, 0);
+        assertThat(tracker.missedBeforeHeartbeat(heartbeat("a", 3), 100)).isFalse();
+        assertThat(tracker.fellSilent(1_000)).isFalse();
+        assertThat(tracker.fellSilent(1_200)).isTrue();
+        assertThat(tracker.fellSilent(1_300)).isFalse();
+        assertThat(tracker.missedBeforeHeartbeat(heartbeat("a", 3), 1_400)).isTrue();
+        assertThat(tracker.metrics(1_400).getBoolean("silent")).isFalse();
+    }
+}
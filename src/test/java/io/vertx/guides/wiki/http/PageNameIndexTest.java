@@ -0,0 +1,38 @@
+package io.vertx.guides.wiki.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageNameIndexTest {
+
+    @Test
+    void suggests_case_insensitive_prefix_matches_in_order() {
+        PageNameIndex index = new PageNameIndex();
+        index.reset(Arrays.asList("Vert.x", "verticles", "Event bus", "Vector", "vertx-web", "Zebra"));
+
+        assertThat(index.suggest("ver", 10)).containsExactly("Vert.x", "verticles", "vertx-web");
+        assertThat(index.suggest("VE", 2)).containsExactly("Vector", "Vert.x");
+        assertThat(index.suggest("nothing", 10)).isEmpty();
+        assertThat(index.suggest("", 3)).hasSize(3);
+    }
+
+    @Test
+    void follows_additions_and_removals() {
+        PageNameIndex index = new PageNameIndex();
+        index.reset(Arrays.asList("Alpha", "Gamma"));
+
+        index.add("Beta");
+        index.add("beta");
+        index.add("Beta");
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(index.suggest("b", 10)).containsExactlyInAnyOrder("Beta", "beta");
+
+        index.remove("Beta");
+        index.remove("Delta");
+        assertThat(index.suggest("b", 10)).containsExactly("beta");
+        assertThat(index.suggest("", 10)).containsExactly("Alpha", "beta", "Gamma");
+    }
+}
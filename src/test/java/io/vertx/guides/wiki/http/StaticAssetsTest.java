@@ -0,0 +1,142 @@
+package io.vertx.guides.wiki.http;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.reactivex.ext.web.Router;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+class StaticAssetsTest {
+
+    @Test
+    void accepted_encodings_honour_zero_qualities() {
+        assertThat(StaticAssets.accepts("gzip, deflate, br", "br")).isTrue();
+        assertThat(StaticAssets.accepts("GZIP;q=0.5", "gzip")).isTrue();
+        assertThat(StaticAssets.accepts("gzip;q=0, br", "gzip")).isFalse();
+        assertThat(StaticAssets.accepts("br; q=0.0", "br")).isFalse();
+        assertThat(StaticAssets.accepts("identity", "gzip")).isFalse();
+        assertThat(StaticAssets.accepts(null, "gzip")).isFalse();
+    }
+
+    @Test
+    void the_bundled_assets_are_the_artifacts_the_manifest_describes(Vertx vertx, VertxTestContext context) throws IOException {
+        JsonObject manifest = new JsonObject(new String(
+            Files.readAllBytes(Paths.get("src/main/resources/assets/manifest.json")), StandardCharsets.UTF_8));
+        StaticAssets assets = new StaticAssets(io.vertx.reactivex.core.Vertx.newInstance(vertx), "target/bundled-assets");
+        assets.prepare().onComplete(context.succeeding(v -> context.verify(() -> {
+            for (String name : manifest.fieldNames()) {
+                String resource = manifest.getJsonObject(name).getString("resource");
+                assertThat(Paths.get("src/main/resources", resource + ".br")).exists();
+                assertThat(assets.urls().get(name).get("url")).startsWith(StaticAssets.PATH);
+                // Served by the wiki or by the CDN, the pages load the same file
+                assertThat(assets.urls().get(name).get("integrity"))
+                    .isEqualTo(manifest.getJsonObject(name).getString("integrity"));
+            }
+            context.completeNow();
+        })));
+    }
+
+    @Test
+    void assets_are_fingerprinted_and_sent_precompressed(Vertx vertx, VertxTestContext context) throws IOException {
+        byte[] script = Files.readAllBytes(Paths.get("src/test/resources/test-assets/greet.js"));
+        io.vertx.reactivex.core.Vertx rxVertx = io.vertx.reactivex.core.Vertx.newInstance(vertx);
+        StaticAssets assets = new StaticAssets(rxVertx, "test-assets/manifest.json", "target/test-assets");
+        Router router = Router.router(rxVertx);
+        router.get(StaticAssets.PATH + ":file").handler(assets::send);
+
+        assets.prepare()
+            .compose(v -> {
+                Map<String, Map<String, String>> urls = assets.urls();
+                assertThat(urls.get("missing")).containsEntry("url", "https://cdn.example.com/missing.css")
+                    .containsEntry("integrity", "sha384-fromthecdn");
+                assertThat(urls.get("greet").get("url")).matches("/assets/greet\\.[0-9a-f]{16}\\.js");
+                assertThat(urls.get("greet").get("integrity")).startsWith("sha384-");
+
+                Promise<io.vertx.reactivex.core.http.HttpServer> listening = Promise.promise();
+                rxVertx.createHttpServer().requestHandler(router).listen(0, listening);
+                return listening.future();
+            })
+            .compose(server -> {
+                HttpClient client = vertx.createHttpClient();
+                String url = assets.urls().get("greet").get("url");
+                int port = server.actualPort();
+                return get(client, port, url, "gzip, deflate, br").compose(brotli -> {
+                    assertThat(brotli.response.getHeader("Content-Encoding")).isEqualTo("br");
+                    assertThat(brotli.body.toString()).isEqualTo("pretend brotli");
+                    assertThat(brotli.response.getHeader("Cache-Control")).contains("immutable");
+                    assertThat(brotli.response.getHeader("Content-Type")).isEqualTo("application/javascript");
+                    return get(client, port, url, "br;q=0, gzip");
+                }).compose(gzip -> {
+                    assertThat(gzip.response.getHeader("Content-Encoding")).isEqualTo("gzip");
+                    assertThat(gzip.body.length()).isLessThan(script.length);
+                    assertThat(gunzip(gzip.body.getBytes())).isEqualTo(script);
+                    return get(client, port, url, null);
+                }).compose(identity -> {
+                    assertThat(identity.response.getHeader("Content-Encoding")).isNull();
+                    assertThat(identity.body.getBytes()).isEqualTo(script);
+                    return get(client, port, "/assets/greet.0000000000000000.js", null);
+                });
+            })
+            .onComplete(context.succeeding(unknown -> context.verify(() -> {
+                assertThat(unknown.response.statusCode()).isEqualTo(404);
+                context.completeNow();
+            })));
+    }
+
+    private static Future<Reply> get(HttpClient client, int port, String path, String acceptEncoding) {
+        Promise<Reply> promise = Promise.promise();
+        HttpClientRequest request = client.get(port, "localhost", path,
+            response -> response.bodyHandler(body -> promise.complete(new Reply(response, body))));
+        if (acceptEncoding != null) {
+            request.putHeader("Accept-Encoding", acceptEncoding);
+        }
+        request.exceptionHandler(promise::fail).end();
+        return promise.future();
+    }
+
+    private static byte[] gunzip(byte[] compressed) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            for (int n = in.read(chunk); n != -1; n = in.read(chunk)) {
+                content.write(chunk, 0, n);
+            }
+            return content.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Reply {
+
+        private final HttpClientResponse response;
+        private final Buffer body;
+
+        private Reply(HttpClientResponse response, Buffer body) {
+            this.response = response;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package io.vertx.guides.wiki.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketsTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allows_a_burst_then_the_refill_rate() {
+        TokenBuckets buckets = new TokenBuckets(2.0, 5);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(buckets.tryAcquire("client", now)).isZero();
+        }
+        assertThat(buckets.tryAcquire("client", now)).isEqualTo(SECOND / 2);
+        assertThat(buckets.tryAcquire("other", now)).isZero();
+
+        assertThat(buckets.tryAcquire("client", now + SECOND / 2)).isZero();
+        assertThat(buckets.tryAcquire("client", now + SECOND / 2)).isPositive();
+
+        assertThat(buckets.metrics().getLong("allowed")).isEqualTo(7L);
+        assertThat(buckets.metrics().getLong("limited")).isEqualTo(2L);
+    }
+
+    @Test
+    void evicts_only_refilled_buckets() {
+        TokenBuckets buckets = new TokenBuckets(1.0, 3);
+        long now = 1_000 * SECOND;
+        buckets.tryAcquire("idle", now);
+        buckets.tryAcquire("busy", now + 2 * SECOND);
+        buckets.tryAcquire("busy", now + 2 * SECOND);
+
+        buckets.evictIdle(now + 3 * SECOND);
+        assertThat(buckets.metrics().getInteger("clients")).isEqualTo(1);
+
+        buckets.evictIdle(now + 4 * SECOND);
+        assertThat(buckets.metrics().getInteger("clients")).isZero();
+        assertThat(buckets.metrics().getLong("evicted")).isEqualTo(2L);
+    }
+}
@@ -0,0 +1,107 @@
+package io.vertx.guides.wiki.render;
+
+import com.github.rjeschke.txtmark.Processor;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IncrementalRendererTest {
+
+    private static final String DOCUMENT =
+        "# Title\n" +
+            "\n" +
+            "Para one\n" +
+            "line two\n" +
+            "\n" +
+            "* a\n" +
+            "\n" +
+            "* b\n" +
+            "\n" +
+            "    continued\n" +
+            "\n" +
+            "> q1\n" +
+            "\n" +
+            "> q2\n" +
+            "\n" +
+            "```\n" +
+            "code\n" +
+            "\n" +
+            "more code\n" +
+            "```\n" +
+            "\n" +
+            "Setext\n" +
+            "======\n" +
+            "\n" +
+            "---\n" +
+            "\n" +
+            "last para\n";
+
+    @Test
+    void renders_like_txtmark() {
+        IncrementalRenderer renderer = new IncrementalRenderer(1024 * 1024);
+        assertThat(renderer.render(DOCUMENT)).isEqualTo(Processor.process(DOCUMENT));
+        assertThat(IncrementalRenderer.split(DOCUMENT)).hasSize(8);
+    }
+
+    @Test
+    void only_changed_blocks_are_rendered_again() {
+        IncrementalRenderer renderer = new IncrementalRenderer(1024 * 1024);
+        renderer.render(DOCUMENT);
+        long misses = renderer.metrics().getLong("misses");
+
+        String edited = DOCUMENT.replace("last para", "last paragraph");
+        assertThat(renderer.render(edited)).isEqualTo(Processor.process(edited));
+        assertThat(renderer.metrics().getLong("misses")).isEqualTo(misses + 1);
+        assertThat(renderer.metrics().getLong("hits")).isEqualTo(7);
+    }
+
+    @Test
+    void reference_links_are_rendered_as_a_whole() {
+        IncrementalRenderer renderer = new IncrementalRenderer(1024 * 1024);
+        String document = "See [the guide][guide].\n\n[guide]: https://vertx.io/docs/\n";
+        assertThat(renderer.render(document)).isEqualTo(Processor.process(document));
+    }
+
+    @Test
+    void blocks_are_rendered_by_the_configured_engine() {
+        MarkdownRenderer extended = MarkdownRenderer.forEngine(MarkdownRenderer.TXTMARK_EXTENDED);
+        assertThat(MarkdownRenderer.forEngine(TxtmarkRenderer.class.getName())).isInstanceOf(TxtmarkRenderer.class);
+
+        IncrementalRenderer renderer = new IncrementalRenderer(extended, 1024 * 1024);
+        assertThat(renderer.render(DOCUMENT)).isEqualTo(extended.render(DOCUMENT));
+        assertThat(renderer.render(DOCUMENT)).isNotEqualTo(Processor.process(DOCUMENT));
+        assertThat(renderer.metrics().getString("engine")).isEqualTo(MarkdownRenderer.TXTMARK_EXTENDED);
+    }
+
+    @Test
+    void commonmark_blocks_render_like_the_whole_document() {
+        MarkdownRenderer commonmark = MarkdownRenderer.forEngine(MarkdownRenderer.COMMONMARK);
+        assertThat(commonmark).isInstanceOf(CommonmarkRenderer.class);
+        // In CommonMark a list may interrupt a paragraph
+        assertThat(commonmark.render("*a* **b**\n- item\n")).isEqualTo(
+            "<p><em>a</em> <strong>b</strong></p>\n<ul>\n<li>item</li>\n</ul>\n");
+
+        IncrementalRenderer renderer = new IncrementalRenderer(commonmark, 1024 * 1024);
+        assertThat(renderer.render(DOCUMENT)).isEqualTo(commonmark.render(DOCUMENT));
+        assertThat(renderer.metrics().getString("engine")).isEqualTo(MarkdownRenderer.COMMONMARK);
+    }
+
+    @Test
+    void a_snapshot_warms_the_cache_of_a_renderer_with_the_same_engine() {
+        IncrementalRenderer previous = new IncrementalRenderer(1024 * 1024);
+        previous.render(DOCUMENT);
+        JsonObject snapshot = new JsonObject(previous.snapshot().encode());
+
+        IncrementalRenderer next = new IncrementalRenderer(1024 * 1024);
+        assertThat(next.restore(snapshot)).isEqualTo(8);
+        assertThat(next.render(DOCUMENT)).isEqualTo(Processor.process(DOCUMENT));
+        assertThat(next.metrics().getLong("misses")).isZero();
+        assertThat(next.metrics().getLong("hits")).isEqualTo(8);
+
+        IncrementalRenderer extended = new IncrementalRenderer(
+            MarkdownRenderer.forEngine(MarkdownRenderer.TXTMARK_EXTENDED), 1024 * 1024);
+        assertThat(extended.restore(snapshot)).isZero();
+        assertThat(extended.metrics().getInteger("cachedBlocks")).isZero();
+    }
+}
@@ -0,0 +1,52 @@
+package io.vertx.guides.wiki.render;
+
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(VertxExtension.class)
+class RenderServiceTest {
+
+    private static final String SMALL = "# Small\n\nA short page\n";
+
+    private static String large() {
+        StringBuilder markdown = new StringBuilder();
+        while (markdown.length() < 4096) {
+            markdown.append("A *long* paragraph of the page.\n\n");
+        }
+        return markdown.toString();
+    }
+
+    @Test
+    void small_pages_are_rendered_inline_and_large_ones_on_a_worker(Vertx vertx, VertxTestContext context) {
+        RenderService service = new RenderService(new IncrementalRenderer(1024 * 1024),
+            vertx.createSharedWorkerExecutor("render-test", 1), 1024, 1, 4);
+        vertx.runOnContext(v -> {
+            assertThat(service.render(SMALL).isComplete()).isTrue();
+            String eventLoop = Thread.currentThread().getName();
+            service.render(large()).onComplete(context.succeeding(html -> context.verify(() -> {
+                assertThat(html).contains("<em>long</em>");
+                assertThat(Thread.currentThread().getName()).isEqualTo(eventLoop);
+                assertThat(service.metrics().getLong("inline")).isEqualTo(1);
+                assertThat(service.metrics().getLong("offloaded")).isEqualTo(1);
+                assertThat(service.metrics().getInteger("queued")).isZero();
+                context.completeNow();
+            })));
+        });
+    }
+
+    @Test
+    void large_pages_are_rejected_when_the_queue_is_full(Vertx vertx, VertxTestContext context) {
+        RenderService service = new RenderService(new IncrementalRenderer(1024 * 1024),
+            vertx.createSharedWorkerExecutor("render-test", 1), 1024, 1, 0);
+        vertx.runOnContext(v -> service.render(large()).onComplete(context.failing(e -> context.verify(() -> {
+            assertThat(e).isInstanceOf(RenderService.QueueFullException.class);
+            assertThat(service.metrics().getLong("rejected")).isEqualTo(1);
+            context.completeNow();
+        }))));
+    }
+}
@@ -0,0 +1,180 @@
+function greet0(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet1(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet2(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet3(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet4(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet5(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet6(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet7(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet8(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet9(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet10(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet11(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet12(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet13(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet14(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet15(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet16(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet17(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet18(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet19(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet20(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet21(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet22(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet23(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet24(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet25(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet26(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet27(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet28(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet29(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet30(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet31(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet32(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet33(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet34(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet35(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet36(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet37(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet38(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet39(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet40(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet41(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet42(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet43(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet44(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet45(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet46(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet47(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet48(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet49(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet50(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet51(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet52(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet53(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet54(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet55(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet56(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet57(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet58(name) {
+    return 'Hello, ' + name + '!';
+}
+function greet59(name) {
+    return 'Hello, ' + name + '!';
+}